@@ -0,0 +1,19 @@
+package com.example.newsq;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+
+/**
+ * A {@link BroadcastReceiver} subclass of debug builds that starts the {@link LoadHarnessWorker}
+ * with the extras of the broadcast as its options.
+ */
+public class LoadHarnessReceiver extends BroadcastReceiver {
+
+  @Override
+  public void onReceive(Context context, Intent intent) {
+    Bundle extras = intent.getExtras();
+    LoadHarnessWorker.enqueue(context, extras != null ? extras : new Bundle());
+  }
+}
@@ -0,0 +1,379 @@
+package com.example.newsq;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link Worker} subclass of debug builds that drives the request pipeline, from {@link
+ * QueryUtils#fetchNews(String, CancellationSignal, RequestLimiter.Priority)} through parsing to
+ * the {@link StoryStore}, against a {@link StandInServer} at a fixed concurrency, and reports the
+ * throughput, the latency percentiles and the outcome of every request.
+ * <p>
+ * By default the server runs in the app on the loopback address; a server on another host can be
+ * used with {@link #KEY_AUTHORITY}. Every request asks for a different page, so responses are
+ * never coalesced. The requests go through a {@link RequestPipeline} of their own, without a
+ * {@link ResponseCache} and with a {@link RequestLimiter} sized to the concurrency instead of the
+ * API quota unless {@link #KEY_USE_QUOTA} is set, and their stories are saved to a {@link
+ * StoryStore} of their own that is deleted after the run. A run therefore leaves the quota, the
+ * circuit, the cache, the search index and the stored stories of the screens alone. The report
+ * is logged and written to {@link #REPORT_FILE} in the external files directory.
+ * <p>
+ * Run it with {@code adb shell am broadcast -a com.example.newsq.action.RUN_LOAD_HARNESS
+ * -n com.example.newsq/.LoadHarnessReceiver}, adding extras such as {@code --ei concurrency 16}.
+ */
+public class LoadHarnessWorker extends Worker {
+
+  /**
+   * The number of requests to send; an {@code int}.
+   */
+  public static final String KEY_REQUESTS = "requests";
+
+  /**
+   * The number of requests in flight at the same time; an {@code int}.
+   */
+  public static final String KEY_CONCURRENCY = "concurrency";
+
+  /**
+   * The page size of the requests; an {@code int}.
+   */
+  public static final String KEY_PAGE_SIZE = "pageSize";
+
+  /**
+   * The host and port of a stand-in server that is already running, e.g. {@code 10.0.2.2:8080};
+   * a {@link String}.
+   */
+  public static final String KEY_AUTHORITY = "authority";
+
+  /**
+   * A {@code boolean} value of true to limit the requests to the quota of the API key.
+   */
+  public static final String KEY_USE_QUOTA = "useQuota";
+
+  /**
+   * The delay of each response in milliseconds; a {@code long}.
+   */
+  public static final String KEY_LATENCY = "latency";
+
+  /**
+   * The largest random change of the delay in milliseconds; a {@code long}.
+   */
+  public static final String KEY_JITTER = "jitter";
+
+  /**
+   * The bandwidth of response bodies in bytes per second, or 0 for no limit; a {@code long}.
+   */
+  public static final String KEY_BANDWIDTH = "bandwidth";
+
+  /**
+   * The number of stories of every response, or 0 to use the page size; an {@code int}.
+   */
+  public static final String KEY_STORIES = "stories";
+
+  /**
+   * The share of requests answered with {@code 429 Too Many Requests}; a {@code float}.
+   */
+  public static final String KEY_RATE_LIMIT = "rateLimit";
+
+  /**
+   * The share of requests answered with {@code 500 Internal Server Error}; a {@code float}.
+   */
+  public static final String KEY_SERVER_ERROR = "serverError";
+
+  /**
+   * The share of requests that aren't answered; a {@code float}.
+   */
+  public static final String KEY_TIMEOUT = "timeout";
+
+  /**
+   * The report of a finished run in the output data; a {@link String}.
+   */
+  public static final String KEY_REPORT = "report";
+
+  private static final String LOG_TAG = LoadHarnessWorker.class.getSimpleName();
+  private static final String WORK_NAME = "load-harness";
+  private static final String REPORT_FILE = "load-report.txt";
+  private static final String DATABASE_NAME = "load-harness.db";
+  private static final String SCHEME = "http";
+  private static final int DEFAULT_REQUESTS = 200;
+  private static final int DEFAULT_CONCURRENCY = 8;
+  private static final int DEFAULT_PAGE_SIZE = 30;
+  private static final long DEFAULT_LATENCY = 100;   // in milliseconds
+  private static final long DEFAULT_JITTER = 50;     // in milliseconds
+  private static final double UNLIMITED_TOKENS_PER_SECOND = 1000;
+  private static final String[] SECTIONS = {"world", "uk-news", "business", "sport", "culture",
+      "search"};
+
+  /**
+   * The type of every option, so an extra with an unknown key or the wrong type is left out of the
+   * input data instead of failing the broadcast.
+   */
+  private static final Map<String, Class<?>> OPTION_TYPES = new HashMap<>();
+
+  static {
+    OPTION_TYPES.put(KEY_REQUESTS, Integer.class);
+    OPTION_TYPES.put(KEY_CONCURRENCY, Integer.class);
+    OPTION_TYPES.put(KEY_PAGE_SIZE, Integer.class);
+    OPTION_TYPES.put(KEY_AUTHORITY, String.class);
+    OPTION_TYPES.put(KEY_USE_QUOTA, Boolean.class);
+    OPTION_TYPES.put(KEY_LATENCY, Long.class);
+    OPTION_TYPES.put(KEY_JITTER, Long.class);
+    OPTION_TYPES.put(KEY_BANDWIDTH, Long.class);
+    OPTION_TYPES.put(KEY_STORIES, Integer.class);
+    OPTION_TYPES.put(KEY_RATE_LIMIT, Float.class);
+    OPTION_TYPES.put(KEY_SERVER_ERROR, Float.class);
+    OPTION_TYPES.put(KEY_TIMEOUT, Float.class);
+  }
+
+  private final List<CancellationSignal> SIGNALS = new ArrayList<>();
+
+  /**
+   * Creates a new {@link LoadHarnessWorker}; instances are created by {@link WorkManager}.
+   *
+   * @param context    The application {@link Context}.
+   * @param parameters The {@link WorkerParameters} of the work.
+   */
+  public LoadHarnessWorker(@NonNull Context context, @NonNull WorkerParameters parameters) {
+    super(context, parameters);
+  }
+
+  /**
+   * Starts a run; a run that is already in progress is kept. Extras that aren't options of the
+   * run, or that have the wrong type, e.g. {@code --ei latency} instead of {@code --el latency},
+   * are logged and ignored.
+   *
+   * @param context Any {@link Context}.
+   * @param extras  A {@link Bundle} with the options of the run, e.g. the extras of a broadcast.
+   */
+  public static void enqueue(@NonNull Context context, @NonNull Bundle extras) {
+    Map<String, Object> values = new HashMap<>();
+    for (String key : extras.keySet()) {
+      Object value = extras.get(key);
+      Class<?> type = OPTION_TYPES.get(key);
+      if (type != null && type.isInstance(value)) {
+        values.put(key, value);
+      } else {
+        Log.w(LOG_TAG, "Ignored the extra " + key + "; it isn't an option of the expected type.");
+      }
+    }
+    OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(LoadHarnessWorker.class)
+        .setInputData(new Data.Builder().putAll(values).build())
+        .build();
+    WorkManager.getInstance(context)
+        .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.KEEP, request);
+  }
+
+  @NonNull
+  @Override
+  public Result doWork() {
+    Data input = getInputData();
+    int requests = input.getInt(KEY_REQUESTS, DEFAULT_REQUESTS);
+    int concurrency = Math.max(1, input.getInt(KEY_CONCURRENCY, DEFAULT_CONCURRENCY));
+    int pageSize = input.getInt(KEY_PAGE_SIZE, DEFAULT_PAGE_SIZE);
+    String authority = input.getString(KEY_AUTHORITY);
+    RequestLimiter limiter = input.getBoolean(KEY_USE_QUOTA, false)
+        ? new RequestLimiter()
+        : new RequestLimiter(UNLIMITED_TOKENS_PER_SECOND, concurrency, 0, concurrency,
+            concurrency);
+    RequestPipeline pipeline = new RequestPipeline.Builder()
+        .setRequestLimiter(limiter)
+        .build();
+    Context context = getApplicationContext();
+    StoryStore store = StoryStore.newInstance(context, DATABASE_NAME);
+    StandInServer server = null;
+    try {
+      if (authority == null) {
+        server = createServer(input);
+        server.start(InetAddress.getLoopbackAddress(), 0);
+        authority = server.getAuthority();
+      }
+      String report = run(authority, requests, concurrency, pageSize, pipeline, store)
+          + (server != null ? "\nServer: " + server : "");
+      Log.i(LOG_TAG, report);
+      writeReport(report);
+      return Result.success(new Data.Builder().putString(KEY_REPORT, report).build());
+    } catch (IOException e) {
+      Log.e(LOG_TAG, "Unable to run the load harness.", e);
+      return Result.failure();
+    } finally {
+      store.close();
+      context.deleteDatabase(DATABASE_NAME);
+      if (server != null) {
+        try {
+          server.close();
+        } catch (IOException e) {
+          Log.e(LOG_TAG, "Unable to close the stand-in server.", e);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void onStopped() {
+    synchronized (SIGNALS) {
+      for (CancellationSignal signal : SIGNALS) {
+        signal.cancel();
+      }
+    }
+  }
+
+  /**
+   * Sends the requests and returns the report of the run.
+   *
+   * @param authority   A {@link String} with the host and port of the stand-in server.
+   * @param requests    The number of requests to send.
+   * @param concurrency The number of requests in flight at the same time.
+   * @param pageSize    The page size of the requests.
+   * @param pipeline    The {@link RequestPipeline} of the requests.
+   * @param store       The {@link StoryStore} the stories are saved to.
+   * @return A {@link String} that contains the report.
+   */
+  private String run(String authority, int requests, int concurrency, int pageSize,
+      RequestPipeline pipeline, StoryStore store) {
+    Histogram latencies = new Histogram();
+    FetchResult.ErrorKind[] errorKinds = FetchResult.ErrorKind.values();
+    AtomicLongArray outcomes = new AtomicLongArray(errorKinds.length);
+    ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+    List<Future<?>> futures = new ArrayList<>(requests);
+    long startTime = System.nanoTime();
+    synchronized (SIGNALS) {
+      for (int i = 0; i < requests; i++) {
+        String url = createUrl(authority, SECTIONS[i % SECTIONS.length], i / SECTIONS.length + 1,
+            pageSize);
+        CancellationSignal signal = new CancellationSignal();
+        SIGNALS.add(signal);
+        futures.add(executor.submit(() -> {
+          long requestStart = System.nanoTime();
+          FetchResult result = QueryUtils.fetchNews(url, signal, RequestLimiter.Priority.USER,
+              pipeline);
+          if (result.isSuccessful()) {
+            store.saveFeed(QueryUtils.canonicalizeUrl(url), result.getStories());
+          }
+          latencies.record((System.nanoTime() - requestStart) / 1000);
+          outcomes.incrementAndGet(result.getErrorKind().ordinal());
+        }));
+      }
+    }
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      Log.e(LOG_TAG, "Unable to finish the load harness.", e);
+    } finally {
+      executor.shutdownNow();
+    }
+    long elapsed = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+    StringBuilder report = new StringBuilder()
+        .append("Requests: ").append(latencies.getCount()).append(" of ").append(requests)
+        .append(" at concurrency ").append(concurrency).append(" in ").append(elapsed)
+        .append("ms\nThroughput: ").append(latencies.getCount() * 1000 / elapsed)
+        .append(" requests/s\nLatency: ").append(latencies)
+        .append("\nOutcomes:");
+    for (FetchResult.ErrorKind errorKind : errorKinds) {
+      long count = outcomes.get(errorKind.ordinal());
+      if (count > 0) {
+        report.append(' ').append(errorKind).append('=').append(count);
+      }
+    }
+    RequestLimiter limiter = pipeline.getRequestLimiter();
+    return report
+        .append("\nRetries: ").append(pipeline.getRetryCount())
+        .append(", circuit opened: ").append(pipeline.getCircuitBreaker().getOpenCount())
+        .append(", limiter throttled: ").append(limiter.getThrottledCount())
+        .append(", final limit: ").append(limiter.getLimit())
+        .toString();
+  }
+
+  /**
+   * Returns a {@link StandInServer} configured with the input data and loaded with the sample
+   * responses in the assets.
+   *
+   * @param input The input {@link Data} of the work.
+   * @return A {@link StandInServer} that isn't started yet.
+   * @throws IOException if the sample responses can't be read.
+   */
+  private StandInServer createServer(Data input) throws IOException {
+    StandInServer.Builder builder = new StandInServer.Builder()
+        .setLatency(input.getLong(KEY_LATENCY, DEFAULT_LATENCY),
+            input.getLong(KEY_JITTER, DEFAULT_JITTER))
+        .setBandwidth(input.getLong(KEY_BANDWIDTH, 0))
+        .setStoryCount(input.getInt(KEY_STORIES, 0))
+        .setRateLimitRate(input.getFloat(KEY_RATE_LIMIT, 0))
+        .setServerErrorRate(input.getFloat(KEY_SERVER_ERROR, 0))
+        .setTimeoutRate(input.getFloat(KEY_TIMEOUT, 0));
+    AssetManager assets = getApplicationContext().getAssets();
+    for (int storyCount : StandInServer.PAYLOAD_STORY_COUNTS) {
+      try (InputStream inputStream = assets.open(
+          String.format(StandInServer.PAYLOAD_PATH, storyCount))) {
+        builder.addPayload(storyCount, StandInServer.readFully(inputStream));
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the url of a request to the stand-in server, built like the urls of the screens.
+   *
+   * @param authority A {@link String} with the host and port of the server.
+   * @param path      A {@link String} that contains a section or endpoint.
+   * @param page      The page to request.
+   * @param pageSize  The page size of the request.
+   * @return A {@link String} that contains the url.
+   */
+  private String createUrl(String authority, String path, int page, int pageSize) {
+    Context context = getApplicationContext();
+    String url = QueryUtils.createSectionUrl(context, SCHEME, authority, path,
+        String.valueOf(pageSize));
+    if (page == 1) {
+      return url;
+    }
+    // Later pages are requested like the StoryPager requests them
+    return Uri.parse(url).buildUpon()
+        .appendQueryParameter(context.getString(R.string.param_key_page), String.valueOf(page))
+        .build().toString();
+  }
+
+  /**
+   * Writes the report to {@link #REPORT_FILE}.
+   *
+   * @param report A {@link String} that contains the report.
+   */
+  private void writeReport(String report) {
+    File directory = getApplicationContext().getExternalFilesDir(null);
+    if (directory == null) {
+      return;
+    }
+    try (OutputStream outputStream = new FileOutputStream(new File(directory, REPORT_FILE))) {
+      outputStream.write(report.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      Log.e(LOG_TAG, "Unable to write the load report.", e);
+    }
+  }
+}
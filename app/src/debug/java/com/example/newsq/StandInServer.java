@@ -0,0 +1,690 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A local stand-in for the Guardian content API that serves sample responses for the {@code
+ * search} endpoint and every section, so the request pipeline can be measured without the network
+ * or the quota of an API key. It only uses the JDK and runs in the app of a debug build or on a
+ * computer, see {@link #main(String[])}.
+ * <p>
+ * Every response can be delayed, its body sent at a limited bandwidth, and a share of the requests
+ * answered with {@code 429 Too Many Requests}, {@code 500 Internal Server Error} or no response
+ * at all, which the client sees as a read timeout. Connections are kept alive, and bodies are
+ * compressed with gzip for clients that accept it.
+ */
+public final class StandInServer implements Closeable {
+
+  /**
+   * The path of the sample responses in the assets or resources; the argument is the number of
+   * stories in the response.
+   */
+  public static final String PAYLOAD_PATH = "payloads/guardian-%d.json";
+
+  /**
+   * The numbers of stories of the sample responses.
+   */
+  public static final int[] PAYLOAD_STORY_COUNTS = {10, 30, 200};
+
+  private static final int DEFAULT_PORT = 8080;
+  private static final int DEFAULT_PAGE_SIZE = 10;
+  private static final int DEFAULT_RETRY_AFTER = 1;         // in seconds
+  private static final long DEFAULT_TIMEOUT_STALL = 20000;  // in milliseconds
+  private static final int IDLE_TIMEOUT = 30000;            // in milliseconds
+  private static final long THROTTLE_INTERVAL = 50;         // in milliseconds
+  private static final int BUFFER_SIZE = 8192;
+  private static final String PARAM_PAGE_SIZE = "page-size";
+  private static final String ENCODING_GZIP = "gzip";
+  private static final byte[] RATE_LIMIT_BODY =
+      "{\"message\":\"API rate limit exceeded\"}".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] SERVER_ERROR_BODY = createErrorBody("Internal server error");
+  private static final byte[] NOT_FOUND_BODY =
+      createErrorBody("The requested resource could not be found.");
+  private static final byte[] BAD_REQUEST_BODY = createErrorBody("Only GET requests are served.");
+
+  private final TreeMap<Integer, byte[]> PAYLOADS;
+  private final TreeMap<Integer, byte[]> GZIP_PAYLOADS = new TreeMap<>();
+  private final long LATENCY;
+  private final long LATENCY_JITTER;
+  private final long BANDWIDTH;
+  private final int STORY_COUNT;
+  private final double RATE_LIMIT_RATE;
+  private final double SERVER_ERROR_RATE;
+  private final double TIMEOUT_RATE;
+  private final long TIMEOUT_STALL;
+  private final Random RANDOM;
+  private final ExecutorService EXECUTOR = Executors.newCachedThreadPool();
+  private final Set<Socket> SOCKETS = Collections.newSetFromMap(new ConcurrentHashMap<>());
+  private final AtomicLong REQUEST_COUNT = new AtomicLong();
+  private final AtomicLong RATE_LIMITED_COUNT = new AtomicLong();
+  private final AtomicLong SERVER_ERROR_COUNT = new AtomicLong();
+  private final AtomicLong TIMEOUT_COUNT = new AtomicLong();
+  private final AtomicLong BYTES_SENT = new AtomicLong();
+  private volatile ServerSocket serverSocket;
+
+  /**
+   * Private constructor; use {@link Builder}.
+   *
+   * @param builder The {@link Builder} with the configuration of the server.
+   * @throws IOException if a payload can't be compressed.
+   */
+  private StandInServer(Builder builder) throws IOException {
+    this.PAYLOADS = new TreeMap<>(builder.payloads);
+    this.LATENCY = builder.latency;
+    this.LATENCY_JITTER = builder.latencyJitter;
+    this.BANDWIDTH = builder.bandwidth;
+    this.STORY_COUNT = builder.storyCount;
+    this.RATE_LIMIT_RATE = builder.rateLimitRate;
+    this.SERVER_ERROR_RATE = builder.serverErrorRate;
+    this.TIMEOUT_RATE = builder.timeoutRate;
+    this.TIMEOUT_STALL = builder.timeoutStall;
+    this.RANDOM = new Random(builder.seed);
+    for (Map.Entry<Integer, byte[]> payload : PAYLOADS.entrySet()) {
+      GZIP_PAYLOADS.put(payload.getKey(), compress(payload.getValue()));
+    }
+  }
+
+  /**
+   * Runs a {@link StandInServer} on a computer, e.g. for an emulator that reaches it at {@code
+   * 10.0.2.2}; the sample responses are read from the classpath. Options are given as pairs of
+   * a name and a value: {@code --port}, {@code --latency}, {@code --jitter} and {@code
+   * --timeout-stall} in milliseconds, {@code --bandwidth} in bytes per second, {@code --stories},
+   * and {@code --rate-limit}, {@code --server-error} and {@code --timeout} as shares between 0 and
+   * 1.
+   *
+   * @param args The options of the server.
+   * @throws IOException if the sample responses can't be read or the port can't be bound.
+   */
+  public static void main(String[] args) throws IOException {
+    Builder builder = new Builder();
+    int port = DEFAULT_PORT;
+    long latency = 0;
+    long jitter = 0;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "--port":
+          port = Integer.parseInt(value);
+          break;
+        case "--latency":
+          latency = Long.parseLong(value);
+          break;
+        case "--jitter":
+          jitter = Long.parseLong(value);
+          break;
+        case "--bandwidth":
+          builder.setBandwidth(Long.parseLong(value));
+          break;
+        case "--stories":
+          builder.setStoryCount(Integer.parseInt(value));
+          break;
+        case "--rate-limit":
+          builder.setRateLimitRate(Double.parseDouble(value));
+          break;
+        case "--server-error":
+          builder.setServerErrorRate(Double.parseDouble(value));
+          break;
+        case "--timeout":
+          builder.setTimeoutRate(Double.parseDouble(value));
+          break;
+        case "--timeout-stall":
+          builder.setTimeoutStall(Long.parseLong(value));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+    builder.setLatency(latency, jitter);
+    for (int storyCount : PAYLOAD_STORY_COUNTS) {
+      String path = "/" + String.format(PAYLOAD_PATH, storyCount);
+      try (InputStream inputStream = StandInServer.class.getResourceAsStream(path)) {
+        if (inputStream == null) {
+          throw new IOException("No payload at " + path);
+        }
+        builder.addPayload(storyCount, readFully(inputStream));
+      }
+    }
+    StandInServer server = builder.build();
+    server.start(null, port);
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(server)));
+    System.out.println("Serving on port " + server.getPort());
+  }
+
+  /**
+   * Starts accepting connections on a background thread.
+   *
+   * @param address The {@link InetAddress} to listen on, or null for every address.
+   * @param port    The port to listen on, or 0 for any free port.
+   * @throws IOException if the port can't be bound.
+   */
+  public void start(@Nullable InetAddress address, int port) throws IOException {
+    ServerSocket socket = new ServerSocket();
+    socket.bind(new InetSocketAddress(address, port));
+    serverSocket = socket;
+    EXECUTOR.execute(this::acceptConnections);
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return The port, or -1 if the server wasn't started.
+   */
+  public int getPort() {
+    ServerSocket socket = serverSocket;
+    return socket != null ? socket.getLocalPort() : -1;
+  }
+
+  /**
+   * Returns the authority of the server on the loopback address, to build request urls with.
+   *
+   * @return A {@link String} that contains the host and port, e.g. {@code 127.0.0.1:8080}.
+   */
+  @NonNull
+  public String getAuthority() {
+    return InetAddress.getLoopbackAddress().getHostAddress() + ":" + getPort();
+  }
+
+  /**
+   * Returns the number of requests the server received.
+   *
+   * @return A {@link Long} with the number of requests.
+   */
+  public long getRequestCount() {
+    return REQUEST_COUNT.get();
+  }
+
+  /**
+   * Returns the number of requests answered with {@code 429 Too Many Requests}.
+   *
+   * @return A {@link Long} with the number of requests.
+   */
+  public long getRateLimitedCount() {
+    return RATE_LIMITED_COUNT.get();
+  }
+
+  /**
+   * Returns the number of requests answered with {@code 500 Internal Server Error}.
+   *
+   * @return A {@link Long} with the number of requests.
+   */
+  public long getServerErrorCount() {
+    return SERVER_ERROR_COUNT.get();
+  }
+
+  /**
+   * Returns the number of requests that weren't answered.
+   *
+   * @return A {@link Long} with the number of requests.
+   */
+  public long getTimeoutCount() {
+    return TIMEOUT_COUNT.get();
+  }
+
+  /**
+   * Returns the number of response bytes sent, including headers.
+   *
+   * @return A {@link Long} with the number of bytes.
+   */
+  public long getBytesSent() {
+    return BYTES_SENT.get();
+  }
+
+  /**
+   * Stops the server and closes every open connection.
+   */
+  @Override
+  public void close() throws IOException {
+    ServerSocket socket = serverSocket;
+    if (socket != null) {
+      socket.close();
+    }
+    for (Socket connection : SOCKETS) {
+      connection.close();
+    }
+    EXECUTOR.shutdownNow();
+  }
+
+  @NonNull
+  @Override
+  public String toString() {
+    return "requests=" + getRequestCount() + ", rateLimited=" + getRateLimitedCount()
+        + ", serverErrors=" + getServerErrorCount() + ", timeouts=" + getTimeoutCount()
+        + ", bytesSent=" + getBytesSent();
+  }
+
+  /**
+   * Accepts connections until the server is closed and serves each on its own thread.
+   */
+  private void acceptConnections() {
+    ServerSocket socket = serverSocket;
+    while (!socket.isClosed()) {
+      try {
+        Socket connection = socket.accept();
+        SOCKETS.add(connection);
+        EXECUTOR.execute(() -> serveConnection(connection));
+      } catch (IOException e) {
+        // The server socket was closed
+        return;
+      }
+    }
+  }
+
+  /**
+   * Reads requests from a connection and answers them until the client closes it, asks for it to
+   * be closed, or a request is left unanswered.
+   *
+   * @param connection The {@link Socket} of the connection.
+   */
+  private void serveConnection(Socket connection) {
+    try (Socket socket = connection) {
+      socket.setSoTimeout(IDLE_TIMEOUT);
+      // Headers and body are flushed separately, and must not wait for each other's ACK
+      socket.setTcpNoDelay(true);
+      InputStream inputStream = new BufferedInputStream(socket.getInputStream());
+      OutputStream outputStream = new BufferedOutputStream(socket.getOutputStream());
+      while (true) {
+        String requestLine = readLine(inputStream);
+        if (requestLine == null) {
+          return;
+        }
+        boolean acceptsGzip = false;
+        boolean keepAlive = true;
+        String header;
+        while ((header = readLine(inputStream)) != null && !header.isEmpty()) {
+          String name = header.substring(0, Math.max(header.indexOf(':'), 0)).trim();
+          String value = header.substring(header.indexOf(':') + 1).trim();
+          if (name.equalsIgnoreCase("Accept-Encoding")) {
+            acceptsGzip = value.contains(ENCODING_GZIP);
+          } else if (name.equalsIgnoreCase("Connection")) {
+            keepAlive = !value.equalsIgnoreCase("close");
+          }
+        }
+        if (!respond(requestLine, acceptsGzip, outputStream) || !keepAlive) {
+          return;
+        }
+      }
+    } catch (IOException e) {
+      // The client closed the connection or the server was closed
+    } finally {
+      SOCKETS.remove(connection);
+    }
+  }
+
+  /**
+   * Answers a request, or leaves it unanswered to inject a timeout.
+   *
+   * @param requestLine  A {@link String} that contains the request line, e.g. {@code GET /world
+   *                     HTTP/1.1}.
+   * @param acceptsGzip  A {@link Boolean} value of true if the client accepts gzip bodies.
+   * @param outputStream The {@link OutputStream} of the connection.
+   * @return A {@link Boolean} value of true if the request was answered, and false if the
+   * connection must be closed.
+   * @throws IOException if the response can't be written.
+   */
+  private boolean respond(String requestLine, boolean acceptsGzip, OutputStream outputStream)
+      throws IOException {
+    REQUEST_COUNT.incrementAndGet();
+    String[] parts = requestLine.split(" ");
+    if (parts.length < 3 || !parts[0].equals("GET")) {
+      writeResponse(outputStream, "400 Bad Request", null, BAD_REQUEST_BODY, false);
+      return false;
+    }
+    String target = parts[1];
+    int queryStart = target.indexOf('?');
+    String path = queryStart < 0 ? target : target.substring(0, queryStart);
+    String query = queryStart < 0 ? "" : target.substring(queryStart + 1);
+    double roll = RANDOM.nextDouble();
+    if (roll < TIMEOUT_RATE) {
+      TIMEOUT_COUNT.incrementAndGet();
+      pause(TIMEOUT_STALL);
+      return false;
+    }
+    pause(getLatency());
+    if (roll < TIMEOUT_RATE + RATE_LIMIT_RATE) {
+      RATE_LIMITED_COUNT.incrementAndGet();
+      writeResponse(outputStream, "429 Too Many Requests",
+          "Retry-After: " + DEFAULT_RETRY_AFTER + "\r\n", RATE_LIMIT_BODY, false);
+    } else if (roll < TIMEOUT_RATE + RATE_LIMIT_RATE + SERVER_ERROR_RATE) {
+      SERVER_ERROR_COUNT.incrementAndGet();
+      writeResponse(outputStream, "500 Internal Server Error", null, SERVER_ERROR_BODY, false);
+    } else if (path.length() < 2 || path.indexOf('/', 1) != -1 || PAYLOADS.isEmpty()) {
+      writeResponse(outputStream, "404 Not Found", null, NOT_FOUND_BODY, false);
+    } else {
+      int storyCount = STORY_COUNT > 0 ? STORY_COUNT : getPageSize(query);
+      Integer key = PAYLOADS.ceilingKey(storyCount);
+      if (key == null) {
+        key = PAYLOADS.lastKey();
+      }
+      byte[] body = acceptsGzip ? GZIP_PAYLOADS.get(key) : PAYLOADS.get(key);
+      writeResponse(outputStream, "200 OK",
+          acceptsGzip ? "Content-Encoding: " + ENCODING_GZIP + "\r\n" : null, body, true);
+    }
+    return true;
+  }
+
+  /**
+   * Writes the headers of a response at once, then its body at the configured bandwidth.
+   *
+   * @param outputStream The {@link OutputStream} of the connection.
+   * @param status       A {@link String} with the status code and reason phrase.
+   * @param headers      A {@link String} of additional header lines, or null.
+   * @param body         A byte array that contains the body.
+   * @param isThrottled  A {@link Boolean} value of true if the body is sent at the bandwidth.
+   * @throws IOException if the response can't be written.
+   */
+  private void writeResponse(OutputStream outputStream, String status, @Nullable String headers,
+      byte[] body, boolean isThrottled) throws IOException {
+    byte[] head = ("HTTP/1.1 " + status + "\r\n"
+        + "Content-Type: application/json; charset=utf-8\r\n"
+        + "Content-Length: " + body.length + "\r\n"
+        + (headers != null ? headers : "")
+        + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    outputStream.write(head);
+    outputStream.flush();
+    BYTES_SENT.addAndGet(head.length);
+    if (!isThrottled || BANDWIDTH <= 0) {
+      outputStream.write(body);
+      outputStream.flush();
+      BYTES_SENT.addAndGet(body.length);
+      return;
+    }
+    int chunkSize = (int) Math.max(1, BANDWIDTH * THROTTLE_INTERVAL / 1000);
+    long startTime = System.nanoTime();
+    for (int offset = 0; offset < body.length; offset += chunkSize) {
+      int length = Math.min(chunkSize, body.length - offset);
+      outputStream.write(body, offset, length);
+      outputStream.flush();
+      BYTES_SENT.addAndGet(length);
+      long dueTime = (offset + length) * 1000L / BANDWIDTH;
+      pause(dueTime - (System.nanoTime() - startTime) / 1000000);
+    }
+  }
+
+  /**
+   * Returns the delay of the next response.
+   *
+   * @return A {@link Long} with the delay in milliseconds.
+   */
+  private long getLatency() {
+    if (LATENCY_JITTER <= 0) {
+      return LATENCY;
+    }
+    return Math.max(0, LATENCY + (long) ((RANDOM.nextDouble() * 2 - 1) * LATENCY_JITTER));
+  }
+
+  /**
+   * Returns the page size of a request.
+   *
+   * @param query A {@link String} that contains the query of the request url.
+   * @return The number of stories requested.
+   */
+  private static int getPageSize(String query) {
+    for (String parameter : query.split("&")) {
+      if (parameter.startsWith(PARAM_PAGE_SIZE + "=")) {
+        try {
+          return Integer.parseInt(parameter.substring(PARAM_PAGE_SIZE.length() + 1));
+        } catch (NumberFormatException e) {
+          return DEFAULT_PAGE_SIZE;
+        }
+      }
+    }
+    return DEFAULT_PAGE_SIZE;
+  }
+
+  /**
+   * Reads a line of the request head.
+   *
+   * @param inputStream The {@link InputStream} of the connection.
+   * @return A {@link String} that contains the line without its line break, or null if the
+   * connection was closed before the line started.
+   * @throws IOException if the connection can't be read.
+   */
+  @Nullable
+  private static String readLine(InputStream inputStream) throws IOException {
+    StringBuilder builder = new StringBuilder();
+    int character;
+    while ((character = inputStream.read()) != -1) {
+      if (character == '\n') {
+        int length = builder.length();
+        if (length > 0 && builder.charAt(length - 1) == '\r') {
+          builder.setLength(length - 1);
+        }
+        return builder.toString();
+      }
+      builder.append((char) character);
+    }
+    if (builder.length() == 0) {
+      return null;
+    }
+    throw new SocketException("The connection closed in the middle of a line");
+  }
+
+  /**
+   * Waits for a time; the wait ends early if the server is closed.
+   *
+   * @param millis The time to wait in milliseconds.
+   * @throws InterruptedIOException if the server is closed while it waits.
+   */
+  private static void pause(long millis) throws InterruptedIOException {
+    if (millis <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("The server was closed");
+    }
+  }
+
+  /**
+   * Returns the body of an error response in the format of the API.
+   *
+   * @param message A {@link String} that contains the error message.
+   * @return A byte array that contains the UTF-8 encoded body.
+   */
+  private static byte[] createErrorBody(String message) {
+    return ("{\"response\":{\"status\":\"error\",\"message\":\"" + message + "\"}}")
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns a copy of a payload compressed with gzip.
+   *
+   * @param payload A byte array to compress.
+   * @return A byte array that contains the compressed payload.
+   * @throws IOException if the payload can't be compressed.
+   */
+  private static byte[] compress(byte[] payload) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(payload.length / 4);
+    try (GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream)) {
+      gzipStream.write(payload);
+    }
+    return outputStream.toByteArray();
+  }
+
+  /**
+   * Reads an {@link InputStream} to its end, e.g. to load a sample response.
+   *
+   * @param inputStream The {@link InputStream} to read.
+   * @return A byte array with the content of the stream.
+   * @throws IOException if the stream can't be read.
+   */
+  @NonNull
+  public static byte[] readFully(@NonNull InputStream inputStream) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    byte[] buffer = new byte[BUFFER_SIZE];
+    int length;
+    while ((length = inputStream.read(buffer)) != -1) {
+      outputStream.write(buffer, 0, length);
+    }
+    return outputStream.toByteArray();
+  }
+
+  /**
+   * A builder for the configuration of a {@link StandInServer}.
+   */
+  public static final class Builder {
+
+    private final TreeMap<Integer, byte[]> payloads = new TreeMap<>();
+    private long latency;
+    private long latencyJitter;
+    private long bandwidth;
+    private int storyCount;
+    private double rateLimitRate;
+    private double serverErrorRate;
+    private double timeoutRate;
+    private long timeoutStall = DEFAULT_TIMEOUT_STALL;
+    private long seed;
+
+    /**
+     * Adds a sample response; requests are answered with the smallest response that has at least
+     * as many stories as their page size.
+     *
+     * @param storyCount The number of stories in the response.
+     * @param payload    A byte array that contains the UTF-8 encoded response.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder addPayload(int storyCount, @NonNull byte[] payload) {
+      payloads.put(storyCount, payload);
+      return this;
+    }
+
+    /**
+     * Sets the delay before each response.
+     *
+     * @param latency The delay in milliseconds.
+     * @param jitter  The largest random change of the delay in milliseconds.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder setLatency(long latency, long jitter) {
+      this.latency = latency;
+      this.latencyJitter = jitter;
+      return this;
+    }
+
+    /**
+     * Sets the bandwidth response bodies are sent at.
+     *
+     * @param bandwidth The bandwidth in bytes per second, or 0 for no limit.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder setBandwidth(long bandwidth) {
+      this.bandwidth = bandwidth;
+      return this;
+    }
+
+    /**
+     * Sets the number of stories of every response, whatever their page size.
+     *
+     * @param storyCount The number of stories, or 0 to use the page size of the request.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder setStoryCount(int storyCount) {
+      this.storyCount = storyCount;
+      return this;
+    }
+
+    /**
+     * Sets the share of requests answered with {@code 429 Too Many Requests}.
+     *
+     * @param rate A {@link Double} between 0 and 1.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder setRateLimitRate(double rate) {
+      this.rateLimitRate = rate;
+      return this;
+    }
+
+    /**
+     * Sets the share of requests answered with {@code 500 Internal Server Error}.
+     *
+     * @param rate A {@link Double} between 0 and 1.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder setServerErrorRate(double rate) {
+      this.serverErrorRate = rate;
+      return this;
+    }
+
+    /**
+     * Sets the share of requests that aren't answered.
+     *
+     * @param rate A {@link Double} between 0 and 1.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder setTimeoutRate(double rate) {
+      this.timeoutRate = rate;
+      return this;
+    }
+
+    /**
+     * Sets how long the server holds a request it doesn't answer before it closes the
+     * connection; it should be longer than the read timeout of the client.
+     *
+     * @param timeoutStall The time in milliseconds.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder setTimeoutStall(long timeoutStall) {
+      this.timeoutStall = timeoutStall;
+      return this;
+    }
+
+    /**
+     * Sets the seed of the random numbers that pick the injected errors and the jitter, so a run
+     * can be repeated.
+     *
+     * @param seed The seed.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder setSeed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /**
+     * Creates a {@link StandInServer} with this configuration.
+     *
+     * @return A {@link StandInServer} that isn't started yet.
+     * @throws IOException if a payload can't be compressed.
+     */
+    @NonNull
+    public StandInServer build() throws IOException {
+      return new StandInServer(this);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.newsq;
+
+import android.text.Html;
+import android.text.format.DateUtils;
+import androidx.annotation.NonNull;
+
+/**
+ * A {@link StoryFormatter.Platform} that uses {@link Html} and {@link DateUtils}.
+ */
+public final class AndroidFormatterPlatform implements StoryFormatter.Platform {
+
+  /**
+   * The shared {@link StoryFormatter} of the app.
+   */
+  public static final StoryFormatter FORMATTER = new StoryFormatter(
+      new AndroidFormatterPlatform());
+
+  /**
+   * Private constructor; use {@link #FORMATTER}.
+   */
+  private AndroidFormatterPlatform() {
+  }
+
+  @NonNull
+  @Override
+  public String fromHtml(@NonNull String html) {
+    return Html.fromHtml(html).toString();
+  }
+
+  @NonNull
+  @Override
+  public CharSequence getRelativeTime(long time, long now) {
+    return DateUtils.getRelativeTimeSpanString(time, now, DateUtils.MINUTE_IN_MILLIS);
+  }
+}
@@ -0,0 +1,64 @@
+package com.example.newsq;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import androidx.annotation.NonNull;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link FilterInputStream} that stops reading once its {@link CancellationSignal} is cancelled.
+ * Every read throws an {@link OperationCanceledException} after cancellation, including a read that
+ * fails because the cancellation closed the connection, so callers can tell a cancelled request
+ * from a broken one and stop parsing immediately.
+ */
+public final class CancellableInputStream extends FilterInputStream {
+
+  private final CancellationSignal SIGNAL;
+
+  /**
+   * Creates a new {@link CancellableInputStream}.
+   *
+   * @param inputStream The {@link InputStream} to read.
+   * @param signal      The {@link CancellationSignal} of the request.
+   */
+  public CancellableInputStream(@NonNull InputStream inputStream,
+      @NonNull CancellationSignal signal) {
+    super(inputStream);
+    this.SIGNAL = signal;
+  }
+
+  @Override
+  public int read() throws IOException {
+    SIGNAL.throwIfCanceled();
+    try {
+      return super.read();
+    } catch (IOException e) {
+      SIGNAL.throwIfCanceled();
+      throw e;
+    }
+  }
+
+  @Override
+  public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+    SIGNAL.throwIfCanceled();
+    try {
+      return super.read(buffer, offset, length);
+    } catch (IOException e) {
+      SIGNAL.throwIfCanceled();
+      throw e;
+    }
+  }
+
+  @Override
+  public long skip(long byteCount) throws IOException {
+    SIGNAL.throwIfCanceled();
+    try {
+      return super.skip(byteCount);
+    } catch (IOException e) {
+      SIGNAL.throwIfCanceled();
+      throw e;
+    }
+  }
+}
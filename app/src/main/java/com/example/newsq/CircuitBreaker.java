@@ -0,0 +1,144 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Stops sending requests to the API while it is down. After {@code failureThreshold} consecutive
+ * failures the circuit opens and requests fail immediately for {@code openTime}; then a single
+ * trial request is let through, which closes the circuit if it succeeds and opens it again if it
+ * fails.
+ */
+public final class CircuitBreaker {
+
+  private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+  private static final long DEFAULT_OPEN_TIME = 30000; // in milliseconds
+
+  /**
+   * The states of a {@link CircuitBreaker}.
+   */
+  public enum State {
+    /**
+     * Requests are sent.
+     */
+    CLOSED,
+    /**
+     * Requests fail without being sent.
+     */
+    OPEN,
+    /**
+     * A single trial request is sent to find out if the API has recovered.
+     */
+    HALF_OPEN
+  }
+
+  private final int FAILURE_THRESHOLD;
+  private final long OPEN_TIME;
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openedAt;
+  private long trialStartedAt = -1;
+  private long openCount;
+  private long rejectedCount;
+
+  /**
+   * Creates a new {@link CircuitBreaker} with the default threshold and open time.
+   */
+  public CircuitBreaker() {
+    this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_TIME);
+  }
+
+  /**
+   * Creates a new {@link CircuitBreaker}.
+   *
+   * @param failureThreshold The number of consecutive failures that opens the circuit.
+   * @param openTime         The time in milliseconds the circuit stays open before a trial.
+   */
+  public CircuitBreaker(int failureThreshold, long openTime) {
+    this.FAILURE_THRESHOLD = failureThreshold;
+    this.OPEN_TIME = openTime;
+  }
+
+  /**
+   * Returns a {@link Boolean} to indicate if a request may be sent; a request that isn't allowed
+   * should fail immediately.
+   *
+   * @return A {@link Boolean} value of true if the request may be sent, and false if not.
+   */
+  public synchronized boolean allowRequest() {
+    long now = now();
+    if (state == State.OPEN) {
+      if (now - openedAt < OPEN_TIME) {
+        rejectedCount++;
+        return false;
+      }
+      state = State.HALF_OPEN;
+      trialStartedAt = -1;
+    }
+    if (state == State.HALF_OPEN) {
+      // A trial that never reported back, e.g. because it was cancelled, is replaced
+      if (trialStartedAt >= 0 && now - trialStartedAt < OPEN_TIME) {
+        rejectedCount++;
+        return false;
+      }
+      trialStartedAt = now;
+    }
+    return true;
+  }
+
+  /**
+   * Records a request that reached a healthy API, which closes the circuit.
+   */
+  public synchronized void recordSuccess() {
+    consecutiveFailures = 0;
+    state = State.CLOSED;
+  }
+
+  /**
+   * Records a request that failed because the API is unreachable or failing.
+   */
+  public synchronized void recordFailure() {
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN || consecutiveFailures >= FAILURE_THRESHOLD) {
+      if (state != State.OPEN) {
+        openCount++;
+      }
+      state = State.OPEN;
+      openedAt = now();
+    }
+  }
+
+  /**
+   * Returns the current state of the circuit.
+   *
+   * @return The {@link State} of the circuit.
+   */
+  @NonNull
+  public synchronized State getState() {
+    return state;
+  }
+
+  /**
+   * Returns the number of times the circuit opened.
+   *
+   * @return A {@link Long} with the number of times.
+   */
+  public synchronized long getOpenCount() {
+    return openCount;
+  }
+
+  /**
+   * Returns the number of requests that failed immediately because the circuit was open.
+   *
+   * @return A {@link Long} with the number of requests.
+   */
+  public synchronized long getRejectedCount() {
+    return rejectedCount;
+  }
+
+  /**
+   * Returns the current time in milliseconds from a monotonic clock.
+   */
+  private static long now() {
+    return System.nanoTime() / 1000000;
+  }
+}
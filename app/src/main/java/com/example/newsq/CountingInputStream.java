@@ -0,0 +1,64 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link FilterInputStream} that counts the bytes read from the underlying stream, so the size
+ * of a response can be measured without reading it twice.
+ */
+public final class CountingInputStream extends FilterInputStream {
+
+  private long count;
+
+  /**
+   * Creates a new {@link CountingInputStream}.
+   *
+   * @param inputStream The {@link InputStream} to count.
+   */
+  public CountingInputStream(@NonNull InputStream inputStream) {
+    super(inputStream);
+  }
+
+  /**
+   * Returns the number of bytes read or skipped so far.
+   *
+   * @return A {@link Long} with the number of bytes.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int value = super.read();
+    if (value != -1) {
+      count++;
+    }
+    return value;
+  }
+
+  @Override
+  public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+    int bytesRead = super.read(buffer, offset, length);
+    if (bytesRead > 0) {
+      count += bytesRead;
+    }
+    return bytesRead;
+  }
+
+  @Override
+  public long skip(long byteCount) throws IOException {
+    long skipped = super.skip(byteCount);
+    count += skipped;
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    // Resetting would count the same bytes twice
+    return false;
+  }
+}
@@ -0,0 +1,497 @@
+package com.example.newsq;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable result of a single API request that holds the {@link Story} objects, the HTTP
+ * status, the kind of error that occurred, the time spent on each stage of the request, and the
+ * time the stories were obtained.
+ * Instances are safe to share between threads.
+ * <p>
+ * A {@link StoryItem} is created for each story when the result is built, so results should be
+ * built on the background thread that runs the request.
+ */
+public final class FetchResult {
+
+  /**
+   * The status code used when no HTTP response was received.
+   */
+  public static final int NO_STATUS_CODE = -1;
+
+  /**
+   * The kinds of errors that can occur during a request.
+   */
+  public enum ErrorKind {
+    /**
+     * The request was successful.
+     */
+    NONE,
+    /**
+     * The request url was missing or malformed.
+     */
+    INVALID_URL,
+    /**
+     * The connection failed before a response was received.
+     */
+    CONNECTION_ERROR,
+    /**
+     * The API replied with an unsuccessful status code.
+     */
+    HTTP_ERROR,
+    /**
+     * The API replied with an empty response.
+     */
+    NO_DATA,
+    /**
+     * The response couldn't be parsed.
+     */
+    PARSE_ERROR,
+    /**
+     * The request was cancelled before it finished.
+     */
+    CANCELLED,
+    /**
+     * The API is unavailable, so the request wasn't sent.
+     */
+    UNAVAILABLE,
+    /**
+     * The request wasn't sent to stay within the quota of the API key.
+     */
+    THROTTLED
+  }
+
+  private final List<Story> STORIES;
+  private final List<StoryItem> ITEMS;
+  private final int STATUS_CODE;
+  private final String STATUS_MESSAGE;
+  private final ErrorKind ERROR_KIND;
+  private final boolean FROM_CACHE;
+  private final boolean FROM_STORE;
+  private final long RESPONSE_BYTES;
+  private final long DECODED_BYTES;
+  private final long RESPONSE_TIME;
+  private final long PARSE_TIME;
+  private final long TOTAL_TIME;
+  private final long FETCHED_AT;
+  private final int ATTEMPTS;
+
+  /**
+   * Private constructor; instances are created with a {@link Builder}.
+   */
+  private FetchResult(Builder builder) {
+    this.STORIES = builder.stories != null
+        ? Collections.unmodifiableList(new ArrayList<>(builder.stories))
+        : Collections.emptyList();
+    this.ITEMS = createItems(STORIES);
+    this.STATUS_CODE = builder.statusCode;
+    this.STATUS_MESSAGE = builder.statusMessage;
+    this.ERROR_KIND = builder.errorKind;
+    this.FROM_CACHE = builder.fromCache;
+    this.FROM_STORE = builder.fromStore;
+    this.RESPONSE_BYTES = builder.responseBytes;
+    this.DECODED_BYTES = builder.decodedBytes;
+    this.RESPONSE_TIME = builder.responseTime;
+    this.PARSE_TIME = builder.parseTime;
+    this.TOTAL_TIME = builder.totalTime;
+    this.FETCHED_AT = builder.fetchedAt;
+    this.ATTEMPTS = builder.attempts;
+  }
+
+  /**
+   * Returns a new {@link ArrayList} with the stories obtained from the request.
+   *
+   * @return An {@link ArrayList} of {@link Story} objects that is empty if the request failed.
+   */
+  @NonNull
+  public ArrayList<Story> getStories() {
+    return new ArrayList<>(STORIES);
+  }
+
+  /**
+   * Returns the display-ready stories obtained from the request.
+   *
+   * @return An unmodifiable {@link List} of {@link StoryItem} objects in the same order as {@link
+   * #getStories()}.
+   */
+  @NonNull
+  public List<StoryItem> getItems() {
+    return ITEMS;
+  }
+
+  /**
+   * Creates a {@link StoryItem} for each story.
+   *
+   * @param stories A {@link List} of {@link Story} objects.
+   * @return An unmodifiable {@link List} of {@link StoryItem} objects.
+   */
+  private static List<StoryItem> createItems(List<Story> stories) {
+    if (stories.isEmpty()) {
+      return Collections.emptyList();
+    }
+    ArrayList<StoryItem> items = new ArrayList<>(stories.size());
+    for (Story story : stories) {
+      items.add(new StoryItem(story));
+    }
+    return Collections.unmodifiableList(items);
+  }
+
+  /**
+   * Returns a {@link Boolean} to indicate if the request was successful.
+   *
+   * @return A {@link Boolean} value of true if no error occurred, and false if one did.
+   */
+  public boolean isSuccessful() {
+    return ERROR_KIND == ErrorKind.NONE;
+  }
+
+  /**
+   * Returns the HTTP status code of the response.
+   *
+   * @return An {@link Integer} with the status code, or {@link #NO_STATUS_CODE} if no response was
+   * received.
+   */
+  public int getStatusCode() {
+    return STATUS_CODE;
+  }
+
+  /**
+   * Returns the HTTP status code and message of the response, e.g. "404 Not Found".
+   *
+   * @return A {@link String} that contains the status, or an empty string if no response was
+   * received.
+   */
+  @NonNull
+  public String getStatusMessage() {
+    return STATUS_MESSAGE;
+  }
+
+  /**
+   * Returns the kind of error that occurred during the request.
+   *
+   * @return The {@link ErrorKind} of the request.
+   */
+  @NonNull
+  public ErrorKind getErrorKind() {
+    return ERROR_KIND;
+  }
+
+  /**
+   * Returns the message that describes the error of the request to the user. Transient HTTP
+   * failures that outlasted the retries aren't shown as raw status codes.
+   *
+   * @param context The {@link Context} used to read the string resources.
+   * @return A {@link String} that contains the error message.
+   */
+  @NonNull
+  public String getErrorMessage(@NonNull Context context) {
+    switch (ERROR_KIND) {
+      case CONNECTION_ERROR:
+        return context.getString(R.string.problem_with_request);
+      case HTTP_ERROR:
+        if (RetryPolicy.isRetryable(STATUS_CODE)) {
+          return context.getString(R.string.service_unavailable);
+        }
+        return STATUS_MESSAGE;
+      case UNAVAILABLE:
+      case THROTTLED:
+        return context.getString(R.string.service_unavailable);
+      case PARSE_ERROR:
+        return context.getString(R.string.problem_with_response);
+      default:
+        return context.getString(R.string.no_data_available);
+    }
+  }
+
+  /**
+   * Returns a {@link Boolean} to indicate if the response was read from the {@link
+   * ResponseCache}.
+   *
+   * @return A {@link Boolean} value of true if the response was cached, and false if it wasn't.
+   */
+  public boolean isFromCache() {
+    return FROM_CACHE;
+  }
+
+  /**
+   * Returns a {@link Boolean} to indicate if the stories were read from the {@link StoryStore}
+   * instead of the API.
+   *
+   * @return A {@link Boolean} value of true if the stories were stored, and false if they weren't.
+   */
+  public boolean isFromStore() {
+    return FROM_STORE;
+  }
+
+  /**
+   * Returns the size of the response body that was downloaded from the API, as it crossed the
+   * network.
+   *
+   * @return A {@link Long} with the number of bytes, or 0 if no body was downloaded.
+   */
+  public long getResponseBytes() {
+    return RESPONSE_BYTES;
+  }
+
+  /**
+   * Returns the size of the response body after decompression; it equals {@link
+   * #getResponseBytes()} for uncompressed responses.
+   *
+   * @return A {@link Long} with the number of bytes, or 0 if no body was downloaded.
+   */
+  public long getDecodedBytes() {
+    return DECODED_BYTES;
+  }
+
+  /**
+   * Returns the time from the start of the request until the response status was received.
+   *
+   * @return A {@link Long} with the time in milliseconds.
+   */
+  public long getResponseTime() {
+    return RESPONSE_TIME;
+  }
+
+  /**
+   * Returns the time spent reading and parsing the response body.
+   *
+   * @return A {@link Long} with the time in milliseconds.
+   */
+  public long getParseTime() {
+    return PARSE_TIME;
+  }
+
+  /**
+   * Returns the total time of the request.
+   *
+   * @return A {@link Long} with the time in milliseconds.
+   */
+  public long getTotalTime() {
+    return TOTAL_TIME;
+  }
+
+  /**
+   * Returns the time the stories were obtained from the API; for stored stories, this is the time
+   * they were saved.
+   *
+   * @return A {@link Long} with the time in milliseconds since the epoch.
+   */
+  public long getFetchedAt() {
+    return FETCHED_AT;
+  }
+
+  /**
+   * Returns the time that has passed since the stories were obtained from the API.
+   *
+   * @return A {@link Long} with the age in milliseconds.
+   */
+  public long getAge() {
+    return Math.max(0, System.currentTimeMillis() - FETCHED_AT);
+  }
+
+  /**
+   * Returns the number of times the request was sent to the API, including retries.
+   *
+   * @return An {@link Integer} with the number of attempts, or 0 if the request wasn't sent.
+   */
+  public int getAttempts() {
+    return ATTEMPTS;
+  }
+
+  @NonNull
+  @Override
+  public String toString() {
+    return "FetchResult{" + ERROR_KIND + ", status=" + STATUS_CODE + ", stories=" + STORIES.size()
+        + ", cached=" + FROM_CACHE + ", stored=" + FROM_STORE + ", bytes=" + RESPONSE_BYTES
+        + ", decoded=" + DECODED_BYTES + ", response=" + RESPONSE_TIME + "ms, parse=" + PARSE_TIME
+        + "ms, total=" + TOTAL_TIME + "ms, age=" + getAge() + "ms, attempts=" + ATTEMPTS + "}";
+  }
+
+  /**
+   * Collects the state of a request while it runs; a builder is confined to the thread that runs
+   * the request.
+   */
+  public static final class Builder {
+
+    private final long START_TIME = System.nanoTime();
+    private List<Story> stories;
+    private int statusCode = NO_STATUS_CODE;
+    private String statusMessage = "";
+    private ErrorKind errorKind = ErrorKind.NONE;
+    private boolean fromCache;
+    private boolean fromStore;
+    private long responseBytes;
+    private long decodedBytes;
+    private long responseTime;
+    private long parseTime;
+    private long totalTime;
+    private long fetchedAt = -1;
+    private int attempts;
+    private long responseReceivedAt = START_TIME;
+
+    /**
+     * Sets the stories obtained from the request.
+     *
+     * @param stories A {@link List} of {@link Story} objects, or null.
+     * @return This {@link Builder}.
+     */
+    public Builder setStories(@Nullable List<Story> stories) {
+      this.stories = stories;
+      return this;
+    }
+
+    /**
+     * Sets the HTTP status of the response and records the response time.
+     *
+     * @param statusCode    An {@link Integer} with the status code.
+     * @param statusMessage A {@link String} with the status message, or null.
+     * @return This {@link Builder}.
+     */
+    public Builder setStatus(int statusCode, @Nullable String statusMessage) {
+      this.statusCode = statusCode;
+      this.statusMessage = statusMessage != null ? statusCode + " " + statusMessage
+          : String.valueOf(statusCode);
+      markResponseReceived();
+      return this;
+    }
+
+    /**
+     * Sets the kind of error that occurred; only the first error is kept.
+     *
+     * @param errorKind The {@link ErrorKind} of the request.
+     * @return This {@link Builder}.
+     */
+    public Builder setErrorKind(@NonNull ErrorKind errorKind) {
+      if (this.errorKind == ErrorKind.NONE) {
+        this.errorKind = errorKind;
+      }
+      return this;
+    }
+
+    /**
+     * Sets whether the response was read from the {@link ResponseCache}.
+     *
+     * @param fromCache A {@link Boolean} value of true if the response was cached.
+     * @return This {@link Builder}.
+     */
+    public Builder setFromCache(boolean fromCache) {
+      this.fromCache = fromCache;
+      if (fromCache && statusCode == NO_STATUS_CODE) {
+        markResponseReceived();
+      }
+      return this;
+    }
+
+    /**
+     * Sets whether the stories were read from the {@link StoryStore}.
+     *
+     * @param fromStore A {@link Boolean} value of true if the stories were stored.
+     * @return This {@link Builder}.
+     */
+    public Builder setFromStore(boolean fromStore) {
+      this.fromStore = fromStore;
+      return this;
+    }
+
+    /**
+     * Sets the time the stories were obtained from the API; by default, it is the time the result
+     * is built.
+     *
+     * @param fetchedAt A {@link Long} with the time in milliseconds since the epoch.
+     * @return This {@link Builder}.
+     */
+    public Builder setFetchedAt(long fetchedAt) {
+      this.fetchedAt = fetchedAt;
+      return this;
+    }
+
+    /**
+     * Sets the number of times the request was sent to the API, including retries.
+     *
+     * @param attempts An {@link Integer} with the number of attempts.
+     * @return This {@link Builder}.
+     */
+    public Builder setAttempts(int attempts) {
+      this.attempts = attempts;
+      return this;
+    }
+
+    /**
+     * Sets the size of the response body that was downloaded from the API, as it crossed the
+     * network.
+     *
+     * @param responseBytes A {@link Long} with the number of bytes.
+     * @return This {@link Builder}.
+     */
+    public Builder setResponseBytes(long responseBytes) {
+      this.responseBytes = responseBytes;
+      return this;
+    }
+
+    /**
+     * Sets the size of the response body after decompression.
+     *
+     * @param decodedBytes A {@link Long} with the number of bytes.
+     * @return This {@link Builder}.
+     */
+    public Builder setDecodedBytes(long decodedBytes) {
+      this.decodedBytes = decodedBytes;
+      return this;
+    }
+
+    /**
+     * Returns the size of the response body that has been downloaded so far.
+     *
+     * @return A {@link Long} with the number of bytes.
+     */
+    public long getResponseBytes() {
+      return responseBytes;
+    }
+
+    /**
+     * Returns a {@link Boolean} to indicate if an error has been recorded.
+     *
+     * @return A {@link Boolean} value of true if no error has been recorded, and false otherwise.
+     */
+    public boolean isSuccessful() {
+      return errorKind == ErrorKind.NONE;
+    }
+
+    /**
+     * Records the time the response status was received.
+     */
+    private void markResponseReceived() {
+      responseReceivedAt = System.nanoTime();
+      responseTime = toMillis(responseReceivedAt - START_TIME);
+    }
+
+    /**
+     * Creates the {@link FetchResult} and records the parse and total times.
+     *
+     * @return A new {@link FetchResult}.
+     */
+    @NonNull
+    public FetchResult build() {
+      long now = System.nanoTime();
+      if (responseReceivedAt != START_TIME) {
+        parseTime = toMillis(now - responseReceivedAt);
+      }
+      totalTime = toMillis(now - START_TIME);
+      if (fetchedAt < 0) {
+        fetchedAt = System.currentTimeMillis();
+      }
+      return new FetchResult(this);
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds.
+     */
+    private static long toMillis(long nanos) {
+      return nanos / 1000000;
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations with fixed buckets from 50 microseconds to 10 seconds. Recording a
+ * value only increments counters, so it can be used on hot paths like binding views, and
+ * percentiles are estimated by the upper bound of the bucket they fall in.
+ * <p>
+ * Instances are safe to use from several threads.
+ */
+public final class Histogram {
+
+  /**
+   * The upper bounds of the buckets in microseconds; larger values go to an overflow bucket.
+   */
+  private static final long[] BUCKET_BOUNDS = {50, 100, 250, 500, 1000, 2500, 5000, 10000, 25000,
+      50000, 100000, 250000, 500000, 1000000, 2500000, 5000000, 10000000};
+
+  private final AtomicLongArray COUNTS = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+  private final AtomicLong COUNT = new AtomicLong();
+  private final AtomicLong SUM = new AtomicLong();
+  private final AtomicLong MAX = new AtomicLong();
+
+  /**
+   * Records a duration.
+   *
+   * @param micros A {@link Long} with the duration in microseconds.
+   */
+  public void record(long micros) {
+    int bucket = Arrays.binarySearch(BUCKET_BOUNDS, micros);
+    COUNTS.incrementAndGet(bucket >= 0 ? bucket : -bucket - 1);
+    COUNT.incrementAndGet();
+    SUM.addAndGet(micros);
+    long max;
+    while (micros > (max = MAX.get()) && !MAX.compareAndSet(max, micros)) {
+      // Another thread recorded a value at the same time
+    }
+  }
+
+  /**
+   * Returns the number of recorded durations.
+   *
+   * @return A {@link Long} with the number of durations.
+   */
+  public long getCount() {
+    return COUNT.get();
+  }
+
+  /**
+   * Returns the mean of the recorded durations.
+   *
+   * @return A {@link Long} with the mean in microseconds, or 0 if nothing was recorded.
+   */
+  public long getMean() {
+    long count = COUNT.get();
+    return count > 0 ? SUM.get() / count : 0;
+  }
+
+  /**
+   * Returns the longest recorded duration.
+   *
+   * @return A {@link Long} with the duration in microseconds.
+   */
+  public long getMax() {
+    return MAX.get();
+  }
+
+  /**
+   * Returns an estimate of a percentile of the recorded durations: the upper bound of the bucket
+   * that contains it, or the longest duration if that is smaller.
+   *
+   * @param percentile A {@link Double} between 0 and 100, e.g. 99 for the 99th percentile.
+   * @return A {@link Long} with the duration in microseconds, or 0 if nothing was recorded.
+   */
+  public long getPercentile(double percentile) {
+    long count = COUNT.get();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKET_BOUNDS.length; bucket++) {
+      seen += COUNTS.get(bucket);
+      if (seen >= rank) {
+        return Math.min(BUCKET_BOUNDS[bucket], getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Discards the recorded durations.
+   */
+  public void reset() {
+    for (int bucket = 0; bucket < COUNTS.length(); bucket++) {
+      COUNTS.set(bucket, 0);
+    }
+    COUNT.set(0);
+    SUM.set(0);
+    MAX.set(0);
+  }
+
+  @NonNull
+  @Override
+  public String toString() {
+    return "count=" + getCount() + ", mean=" + getMean() + "us, p50=" + getPercentile(50)
+        + "us, p90=" + getPercentile(90) + "us, p99=" + getPercentile(99) + "us, max=" + getMax()
+        + "us";
+  }
+}
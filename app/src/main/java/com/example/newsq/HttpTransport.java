@@ -0,0 +1,145 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Sends GET requests to the API over HTTP. Implementations decide how connections are opened and
+ * kept, e.g. whether idle connections are reused or parallel requests share one connection, and
+ * report how often a request could reuse a connection instead of opening a new one.
+ * <p>
+ * Implementations are shared by every thread that runs a request.
+ *
+ * @see QueryUtils#setTransport(HttpTransport)
+ */
+public interface HttpTransport {
+
+  /**
+   * Creates an {@link Exchange} for a GET request; the request is sent by {@link
+   * Exchange#execute()}.
+   *
+   * @param url     A {@link URL} object formatted for an API request.
+   * @param headers A {@link Map} of request header names and values.
+   * @return A new {@link Exchange}.
+   * @throws IOException if the request can't be created.
+   */
+  @NonNull
+  Exchange newExchange(@NonNull URL url, @NonNull Map<String, String> headers) throws IOException;
+
+  /**
+   * Returns the name of the transport for logs and reports.
+   *
+   * @return A {@link String} with the name.
+   */
+  @NonNull
+  String getName();
+
+  /**
+   * Returns the number of requests sent since the transport was created.
+   *
+   * @return A {@link Long} with the number of requests.
+   */
+  long getRequestCount();
+
+  /**
+   * Returns the number of connections opened since the transport was created.
+   *
+   * @return A {@link Long} with the number of connections.
+   */
+  long getConnectionCount();
+
+  /**
+   * Returns the number of requests that were sent on a connection that was already open.
+   *
+   * @return A {@link Long} with the number of requests.
+   */
+  long getReusedCount();
+
+  /**
+   * Returns the number of TLS handshakes since the transport was created.
+   *
+   * @return A {@link Long} with the number of handshakes.
+   */
+  long getHandshakeCount();
+
+  /**
+   * A single request and its response. An exchange is used by the thread that runs the request,
+   * except for {@link #cancel()}, and it must be closed once the response has been read so its
+   * connection can be reused.
+   */
+  interface Exchange extends Closeable {
+
+    /**
+     * Sends the request and waits for the response status and headers.
+     *
+     * @throws IOException if the request fails or is cancelled.
+     */
+    void execute() throws IOException;
+
+    /**
+     * Returns the time {@link #execute()} spent obtaining a connection, including the DNS lookup
+     * and the TCP and TLS handshakes; the rest of it was spent waiting for the response.
+     *
+     * @return A {@link Long} with the time in nanoseconds, close to 0 if a connection was reused.
+     */
+    long getConnectTime();
+
+    /**
+     * Returns the HTTP status code of the response.
+     *
+     * @return An {@link Integer} with the status code.
+     */
+    int getStatusCode();
+
+    /**
+     * Returns the HTTP status message of the response, e.g. "Not Found".
+     *
+     * @return A {@link String} with the message, or null if the response has none.
+     */
+    @Nullable
+    String getStatusMessage();
+
+    /**
+     * Returns the value of a response header.
+     *
+     * @param name A {@link String} with the header name.
+     * @return A {@link String} with the header value, or null if the response doesn't have it.
+     */
+    @Nullable
+    String getHeader(@NonNull String name);
+
+    /**
+     * Returns the size of the response body as sent by the API.
+     *
+     * @return A {@link Long} with the number of bytes, or -1 if it's unknown.
+     */
+    long getContentLength();
+
+    /**
+     * Returns the response body.
+     *
+     * @return An {@link InputStream} with the response body.
+     * @throws IOException if the body can't be opened.
+     */
+    @NonNull
+    InputStream getBody() throws IOException;
+
+    /**
+     * Stops the request; this may be called from any thread, and a blocked {@link #execute()} or
+     * read of the body fails with an {@link IOException}.
+     */
+    void cancel();
+
+    /**
+     * Releases the response, returning its connection for reuse if the transport keeps
+     * connections.
+     */
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,168 @@
+package com.example.newsq;
+
+/**
+ * Parses ISO-8601 timestamps such as {@code 2020-12-15T18:04:31Z} into milliseconds since the
+ * epoch without creating a {@link java.text.SimpleDateFormat} or any other objects, so it is
+ * safe to call from any thread while stories are parsed.
+ * <p>
+ * Fractional seconds and {@code +hh:mm} or {@code -hh:mm} offsets are accepted; timestamps
+ * without an offset are read as UTC.
+ */
+public final class IsoDateParser {
+
+  /**
+   * The value returned for timestamps that can't be parsed.
+   */
+  public static final long INVALID_TIME = -1;
+
+  private static final long MILLIS_PER_SECOND = 1000;
+  private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+  /**
+   * Private constructor; this class only has static methods.
+   */
+  private IsoDateParser() {
+  }
+
+  /**
+   * Returns the time of an ISO-8601 timestamp.
+   *
+   * @param timestamp A {@link String} that contains a timestamp, e.g. a web publication date.
+   * @return A {@link Long} with the time in milliseconds since the epoch, or {@link #INVALID_TIME}
+   * if the timestamp is null or malformed.
+   */
+  public static long parseEpochMillis(String timestamp) {
+    if (timestamp == null || timestamp.length() < 19
+        || timestamp.charAt(4) != '-' || timestamp.charAt(7) != '-'
+        || (timestamp.charAt(10) != 'T' && timestamp.charAt(10) != ' ')
+        || timestamp.charAt(13) != ':' || timestamp.charAt(16) != ':') {
+      return INVALID_TIME;
+    }
+    int year = parseDigits(timestamp, 0, 4);
+    int month = parseDigits(timestamp, 5, 2);
+    int day = parseDigits(timestamp, 8, 2);
+    int hour = parseDigits(timestamp, 11, 2);
+    int minute = parseDigits(timestamp, 14, 2);
+    int second = parseDigits(timestamp, 17, 2);
+    if (year < 0 || month < 1 || month > 12 || day < 1 || day > getDaysInMonth(year, month)
+        || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+      return INVALID_TIME;
+    }
+    int index = 19;
+    int length = timestamp.length();
+    long millis = 0;
+    // Fractional seconds; digits after milliseconds are ignored
+    if (index < length && timestamp.charAt(index) == '.') {
+      index++;
+      int digits = 0;
+      while (index < length && Character.isDigit(timestamp.charAt(index))) {
+        if (digits < 3) {
+          millis = millis * 10 + (timestamp.charAt(index) - '0');
+        }
+        digits++;
+        index++;
+      }
+      if (digits == 0) {
+        return INVALID_TIME;
+      }
+      for (; digits < 3; digits++) {
+        millis *= 10;
+      }
+    }
+    // Offset from UTC
+    long offsetSeconds = 0;
+    if (index < length) {
+      char designator = timestamp.charAt(index);
+      if (designator == 'Z' && index + 1 == length) {
+        offsetSeconds = 0;
+      } else if ((designator == '+' || designator == '-') && index + 3 <= length) {
+        int offsetHours = parseDigits(timestamp, index + 1, 2);
+        int offsetMinutes = 0;
+        int minutesIndex = index + 3;
+        boolean hasSeparator = minutesIndex < length && timestamp.charAt(minutesIndex) == ':';
+        if (hasSeparator) {
+          minutesIndex++;
+        }
+        if (minutesIndex < length || hasSeparator) {
+          // A separator must be followed by the minutes, e.g. +05:30 but not +05:
+          if (minutesIndex + 2 != length) {
+            return INVALID_TIME;
+          }
+          offsetMinutes = parseDigits(timestamp, minutesIndex, 2);
+        }
+        if (offsetHours < 0 || offsetHours > 23 || offsetMinutes < 0 || offsetMinutes > 59) {
+          return INVALID_TIME;
+        }
+        offsetSeconds = (offsetHours * 60L + offsetMinutes) * 60;
+        if (designator == '-') {
+          offsetSeconds = -offsetSeconds;
+        }
+      } else {
+        return INVALID_TIME;
+      }
+    }
+    long epochSeconds = daysFromCivil(year, month, day) * SECONDS_PER_DAY
+        + hour * 3600L + minute * 60L + second - offsetSeconds;
+    return epochSeconds * MILLIS_PER_SECOND + millis;
+  }
+
+  /**
+   * Parses a fixed number of decimal digits.
+   *
+   * @param text   The {@link String} that contains the digits.
+   * @param start  The index of the first digit.
+   * @param length The number of digits.
+   * @return An {@link Integer} with the value of the digits, or -1 if a character isn't a digit.
+   */
+  private static int parseDigits(String text, int start, int length) {
+    if (start + length > text.length()) {
+      return -1;
+    }
+    int value = 0;
+    for (int i = start; i < start + length; i++) {
+      char character = text.charAt(i);
+      if (character < '0' || character > '9') {
+        return -1;
+      }
+      value = value * 10 + (character - '0');
+    }
+    return value;
+  }
+
+  /**
+   * Returns the number of days in a month of the proleptic Gregorian calendar.
+   *
+   * @param year  The year.
+   * @param month The month, from 1 to 12.
+   * @return An {@link Integer} with the number of days, from 28 to 31.
+   */
+  private static int getDaysInMonth(int year, int month) {
+    if (month == 2) {
+      boolean isLeapYear = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+      return isLeapYear ? 29 : 28;
+    }
+    return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * Returns the number of days between the epoch and a date in the proleptic Gregorian calendar.
+   *
+   * @param year  The year.
+   * @param month The month, from 1 to 12.
+   * @param day   The day of the month, from 1 to 31.
+   * @return A {@link Long} with the number of days since 1970-01-01.
+   */
+  private static long daysFromCivil(int year, int month, int day) {
+    /*
+     * Method: daysFromCivil
+     * Adopted Content: Conversion from a civil date to a day count.
+     * Original Source Location: https://howardhinnant.github.io/date_algorithms.html
+     */
+    year -= month <= 2 ? 1 : 0;
+    long era = (year >= 0 ? year : year - 399) / 400;
+    long yearOfEra = year - era * 400;
+    long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+}
@@ -0,0 +1,95 @@
+package com.example.newsq;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The calls of a streaming JSON reader that {@link StoryParser} uses. The methods match those of
+ * {@code android.util.JsonReader}, so the parser doesn't depend on the Android framework and can
+ * be run on a plain JVM with any reader that offers the same calls.
+ */
+public interface JsonTokenReader extends Closeable {
+
+  /**
+   * Returns a {@link Boolean} to indicate if the reader has any content to read.
+   *
+   * @return A {@link Boolean} value of true if the input has content, and false if it's empty.
+   * @throws IOException if the input can't be read.
+   */
+  boolean hasContent() throws IOException;
+
+  /**
+   * Consumes the start of an object.
+   *
+   * @throws IOException if the input can't be read or the next token isn't an object.
+   */
+  void beginObject() throws IOException;
+
+  /**
+   * Consumes the end of an object.
+   *
+   * @throws IOException if the input can't be read or the next token isn't the end of an object.
+   */
+  void endObject() throws IOException;
+
+  /**
+   * Consumes the start of an array.
+   *
+   * @throws IOException if the input can't be read or the next token isn't an array.
+   */
+  void beginArray() throws IOException;
+
+  /**
+   * Consumes the end of an array.
+   *
+   * @throws IOException if the input can't be read or the next token isn't the end of an array.
+   */
+  void endArray() throws IOException;
+
+  /**
+   * Returns a {@link Boolean} to indicate if the current object or array has another element.
+   *
+   * @return A {@link Boolean} value of true if there's another element, and false otherwise.
+   * @throws IOException if the input can't be read.
+   */
+  boolean hasNext() throws IOException;
+
+  /**
+   * Consumes the next property name.
+   *
+   * @return A {@link String} that contains the name.
+   * @throws IOException if the input can't be read or the next token isn't a name.
+   */
+  String nextName() throws IOException;
+
+  /**
+   * Consumes the next string or number value.
+   *
+   * @return A {@link String} that contains the value.
+   * @throws IOException if the input can't be read or the next token isn't a string.
+   */
+  String nextString() throws IOException;
+
+  /**
+   * Returns a {@link Boolean} to indicate if the next value is a literal null, without consuming
+   * it.
+   *
+   * @return A {@link Boolean} value of true if the next value is null, and false otherwise.
+   * @throws IOException if the input can't be read.
+   */
+  boolean isNextNull() throws IOException;
+
+  /**
+   * Consumes the next literal null.
+   *
+   * @throws IOException if the input can't be read or the next value isn't null.
+   */
+  void nextNull() throws IOException;
+
+  /**
+   * Skips the next value, including all nested objects and arrays.
+   *
+   * @throws IOException if the input can't be read.
+   */
+  void skipValue() throws IOException;
+}
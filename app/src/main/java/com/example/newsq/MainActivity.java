@@ -1,6 +1,7 @@
 package com.example.newsq;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
@@ -10,9 +11,14 @@ import androidx.navigation.ui.AppBarConfiguration;
 import androidx.navigation.ui.NavigationUI;
 import com.example.newsq.databinding.ActivityMainBinding;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import java.io.File;
+import java.io.IOException;
 
 public class MainActivity extends AppCompatActivity {
 
+  private static final String LOG_TAG = MainActivity.class.getSimpleName();
+  private static final String METRICS_FILE = "metrics.txt";
+
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
@@ -22,6 +28,32 @@ public class MainActivity extends AppCompatActivity {
     configureNavigation(binding);
   }
 
+  @Override
+  protected void onStop() {
+    super.onStop();
+    if (BuildConfig.DEBUG) {
+      dumpMetrics();
+    }
+  }
+
+  /**
+   * Writes the {@link Metrics} to logcat, and to a file in the app's external files directory
+   * that can be pulled with adb for offline analysis.
+   */
+  private void dumpMetrics() {
+    final Metrics metrics = Metrics.getInstance();
+    metrics.dumpToLog();
+    File directory = getExternalFilesDir(null);
+    final File file = new File(directory != null ? directory : getFilesDir(), METRICS_FILE);
+    new Thread(() -> {
+      try {
+        metrics.dumpToFile(file);
+      } catch (IOException e) {
+        Log.e(LOG_TAG, "Problem writing the metrics file.", e);
+      }
+    }, LOG_TAG).start();
+  }
+
   /**
    * Configures the {@link BottomNavigationView} for the user interface.
    *
@@ -0,0 +1,202 @@
+package com.example.newsq;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-process registry of {@link Histogram Histograms} for the stages of loading and showing
+ * stories. Each stage is recorded once overall and once for a tag, e.g. the screen or the section
+ * it belongs to, so a regression can be traced to the stage and the screen or section it affects.
+ * <p>
+ * Timers are plain {@link System#nanoTime()} values; recording a duration doesn't allocate once
+ * its histograms exist.
+ */
+public final class Metrics {
+
+  /**
+   * The time to obtain a connection, including DNS, TCP and TLS; close to 0 when it is reused.
+   */
+  public static final String STAGE_CONNECT = "connect";
+  /**
+   * The time from sending a request on a connection until the response status arrives.
+   */
+  public static final String STAGE_TTFB = "ttfb";
+  /**
+   * The time spent waiting for response bytes from the network.
+   */
+  public static final String STAGE_DOWNLOAD = "download";
+  /**
+   * The time spent decoding and parsing a response, without the time spent waiting for it.
+   */
+  public static final String STAGE_PARSE = "parse";
+  /**
+   * The time of a whole successful request in {@link QueryUtils#fetchNews(String)}.
+   */
+  public static final String STAGE_FETCH = "fetch";
+  /**
+   * The time a screen waits for its stories, from the request until they are displayed.
+   */
+  public static final String STAGE_LOAD = "load";
+  /**
+   * The time to bind a story to its view.
+   */
+  public static final String STAGE_BIND = "bind";
+
+  private static final String LOG_TAG = Metrics.class.getSimpleName();
+  private static final Metrics INSTANCE = new Metrics();
+
+  private final ConcurrentHashMap<String, Histogram> STAGES = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, ConcurrentHashMap<String, Histogram>> TAGGED_STAGES =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Private constructor; use {@link #getInstance()}.
+   */
+  private Metrics() {
+  }
+
+  /**
+   * Returns the shared {@link Metrics} registry.
+   *
+   * @return The shared {@link Metrics} instance.
+   */
+  @NonNull
+  public static Metrics getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Starts a timer.
+   *
+   * @return A {@link Long} with the start time to pass to {@link #record(String, String, long)}.
+   */
+  public static long startTimer() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Records the time that passed since a timer was started.
+   *
+   * @param stage     A {@link String} with the stage, e.g. {@link #STAGE_BIND}.
+   * @param tag       A {@link String} with the screen or section, or null.
+   * @param startTime A {@link Long} returned by {@link #startTimer()}.
+   */
+  public void record(@NonNull String stage, @Nullable String tag, long startTime) {
+    recordDuration(stage, tag, System.nanoTime() - startTime);
+  }
+
+  /**
+   * Records a duration that was measured elsewhere.
+   *
+   * @param stage    A {@link String} with the stage, e.g. {@link #STAGE_CONNECT}.
+   * @param tag      A {@link String} with the screen or section, or null.
+   * @param duration A {@link Long} with the duration in nanoseconds.
+   */
+  public void recordDuration(@NonNull String stage, @Nullable String tag, long duration) {
+    long micros = Math.max(0, duration / 1000);
+    getOrCreate(STAGES, stage).record(micros);
+    if (tag != null) {
+      ConcurrentHashMap<String, Histogram> tags = TAGGED_STAGES.get(stage);
+      if (tags == null) {
+        TAGGED_STAGES.putIfAbsent(stage, new ConcurrentHashMap<>());
+        tags = TAGGED_STAGES.get(stage);
+      }
+      getOrCreate(tags, tag).record(micros);
+    }
+  }
+
+  /**
+   * Returns the {@link Histogram} of a stage.
+   *
+   * @param stage A {@link String} with the stage.
+   * @param tag   A {@link String} with the screen or section, or null for the whole stage.
+   * @return The {@link Histogram}, or null if nothing was recorded for it.
+   */
+  @Nullable
+  public Histogram getHistogram(@NonNull String stage, @Nullable String tag) {
+    if (tag == null) {
+      return STAGES.get(stage);
+    }
+    Map<String, Histogram> tags = TAGGED_STAGES.get(stage);
+    return tags != null ? tags.get(tag) : null;
+  }
+
+  /**
+   * Writes every histogram to logcat, one line each.
+   */
+  public void dumpToLog() {
+    for (String line : createReport()) {
+      Log.i(LOG_TAG, line);
+    }
+  }
+
+  /**
+   * Writes every histogram to a file for offline analysis, one line each; an existing file is
+   * replaced.
+   *
+   * @param file The {@link File} to write.
+   * @throws IOException if the file can't be written.
+   */
+  public void dumpToFile(@NonNull File file) throws IOException {
+    try (Writer writer = new FileWriter(file)) {
+      writer.write("# time=" + System.currentTimeMillis() + ", durations in microseconds\n");
+      for (String line : createReport()) {
+        writer.write(line);
+        writer.write('\n');
+      }
+    }
+  }
+
+  /**
+   * Discards every recorded duration.
+   */
+  public void reset() {
+    STAGES.clear();
+    TAGGED_STAGES.clear();
+  }
+
+  /**
+   * Creates a line for each histogram, sorted by stage and then by tag.
+   */
+  private List<String> createReport() {
+    List<String> stages = new ArrayList<>(STAGES.keySet());
+    Collections.sort(stages);
+    List<String> lines = new ArrayList<>();
+    for (String stage : stages) {
+      lines.add(stage + ": " + STAGES.get(stage));
+      Map<String, Histogram> tags = TAGGED_STAGES.get(stage);
+      if (tags == null) {
+        continue;
+      }
+      List<String> tagNames = new ArrayList<>(tags.keySet());
+      Collections.sort(tagNames);
+      for (String tag : tagNames) {
+        lines.add(stage + "[" + tag + "]: " + tags.get(tag));
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * Returns the {@link Histogram} for a key, creating it if it doesn't exist.
+   */
+  private static Histogram getOrCreate(ConcurrentHashMap<String, Histogram> histograms,
+      String key) {
+    Histogram histogram = histograms.get(key);
+    if (histogram == null) {
+      histograms.putIfAbsent(key, new Histogram());
+      histogram = histograms.get(key);
+    }
+    return histogram;
+  }
+}
@@ -0,0 +1,46 @@
+package com.example.newsq;
+
+import android.app.Application;
+import java.io.File;
+import java.util.ArrayList;
+
+/**
+ * An {@link Application} subclass that configures the components shared by every screen.
+ * <p>
+ * Stored stories are added to the {@link StoryIndex} on a background thread at startup, so they
+ * can be searched offline, and the {@link WarmUpWorker} is scheduled to keep the stored feeds
+ * current between launches. API requests use the pooled {@link OkHttpTransport}, so parallel
+ * requests share connections and their handshakes.
+ */
+public class NewsQApplication extends Application {
+
+  private static final String LOG_TAG = NewsQApplication.class.getSimpleName();
+  private static final String RESPONSE_CACHE_DIRECTORY = "responses";
+  private static final long RESPONSE_CACHE_SIZE = 4 * 1024 * 1024; // in bytes
+  private static final int MAX_INDEXED_STORED_STORIES = 1000;
+
+  @Override
+  public void onCreate() {
+    super.onCreate();
+    File cacheDirectory = new File(getCacheDir(), RESPONSE_CACHE_DIRECTORY);
+    QueryUtils.setResponseCache(new ResponseCache(cacheDirectory, RESPONSE_CACHE_SIZE));
+    QueryUtils.setTransport(new OkHttpTransport());
+    indexStoredStories();
+    WarmUpWorker.schedule(this);
+  }
+
+  /**
+   * Adds the stored stories to the {@link StoryIndex} on a background thread.
+   */
+  private void indexStoredStories() {
+    final StoryStore store = StoryStore.getInstance(this);
+    new Thread(() -> {
+      ArrayList<Story> stories = store.getRecentStories(MAX_INDEXED_STORED_STORIES);
+      ArrayList<StoryItem> items = new ArrayList<>(stories.size());
+      for (Story story : stories) {
+        items.add(new StoryItem(story));
+      }
+      StoryIndex.getInstance().addAll(items);
+    }, LOG_TAG).start();
+  }
+}
@@ -0,0 +1,248 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * An {@link HttpTransport} built on OkHttp that keeps idle connections in a pool and negotiates
+ * HTTP/2 with the API, so parallel requests, e.g. prefetched sections, are multiplexed over one
+ * connection and share its TLS handshake.
+ * <p>
+ * OkHttp's own retries are disabled, since {@link QueryUtils} retries requests with its {@link
+ * RetryPolicy}.
+ */
+public final class OkHttpTransport implements HttpTransport {
+
+  private static final String NAME = "OkHttp";
+  private static final int DEFAULT_CONNECT_TIMEOUT = 10000; // in milliseconds
+  private static final int DEFAULT_READ_TIMEOUT = 15000;    // in milliseconds
+  private static final int MAX_IDLE_CONNECTIONS = 5;
+  private static final long KEEP_ALIVE_TIME = 5 * 60 * 1000; // in milliseconds
+
+  private final OkHttpClient CLIENT;
+  private final ConnectionPool CONNECTION_POOL;
+  private final AtomicLong REQUEST_COUNT = new AtomicLong();
+  private final AtomicLong CONNECTION_COUNT = new AtomicLong();
+  private final AtomicLong HANDSHAKE_COUNT = new AtomicLong();
+  private final AtomicLong ACQUIRED_COUNT = new AtomicLong();
+  private final AtomicLong MULTIPLEXED_COUNT = new AtomicLong();
+  private final ConcurrentHashMap<Call, Long> CALL_STARTS = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Call, Long> CONNECT_TIMES = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new {@link OkHttpTransport} with the default timeouts.
+   */
+  public OkHttpTransport() {
+    this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+  }
+
+  /**
+   * Creates a new {@link OkHttpTransport}.
+   *
+   * @param connectTimeout The connect timeout in milliseconds.
+   * @param readTimeout    The read timeout in milliseconds.
+   */
+  public OkHttpTransport(int connectTimeout, int readTimeout) {
+    this.CONNECTION_POOL = new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_TIME,
+        TimeUnit.MILLISECONDS);
+    this.CLIENT = new OkHttpClient.Builder()
+        .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+        .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
+        .connectionPool(CONNECTION_POOL)
+        .retryOnConnectionFailure(false)
+        .eventListener(new StatsListener())
+        .build();
+  }
+
+  @NonNull
+  @Override
+  public Exchange newExchange(@NonNull URL url, @NonNull Map<String, String> headers) {
+    Request.Builder request = new Request.Builder().url(url).get();
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      request.header(header.getKey(), header.getValue());
+    }
+    return new OkHttpExchange(CLIENT.newCall(request.build()), CONNECT_TIMES);
+  }
+
+  @NonNull
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public long getRequestCount() {
+    return REQUEST_COUNT.get();
+  }
+
+  @Override
+  public long getConnectionCount() {
+    return CONNECTION_COUNT.get();
+  }
+
+  @Override
+  public long getReusedCount() {
+    return Math.max(0, ACQUIRED_COUNT.get() - CONNECTION_COUNT.get());
+  }
+
+  @Override
+  public long getHandshakeCount() {
+    return HANDSHAKE_COUNT.get();
+  }
+
+  /**
+   * Returns the number of requests that were sent on an HTTP/2 connection, which may carry
+   * several requests at the same time.
+   *
+   * @return A {@link Long} with the number of requests.
+   */
+  public long getMultiplexedCount() {
+    return MULTIPLEXED_COUNT.get();
+  }
+
+  /**
+   * Returns the number of connections in the pool, whether they are in use or idle.
+   *
+   * @return An {@link Integer} with the number of connections.
+   */
+  public int getPooledConnectionCount() {
+    return CONNECTION_POOL.connectionCount();
+  }
+
+  /**
+   * An {@link EventListener} that counts new connections, handshakes and connections acquired
+   * by requests; the difference between acquired and new connections is the reuse. The time from
+   * the start of a call until it acquires a connection is kept for its exchange.
+   */
+  private final class StatsListener extends EventListener {
+
+    @Override
+    public void callStart(Call call) {
+      REQUEST_COUNT.incrementAndGet();
+      CALL_STARTS.put(call, System.nanoTime());
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+      CONNECTION_COUNT.incrementAndGet();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, @Nullable Handshake handshake) {
+      HANDSHAKE_COUNT.incrementAndGet();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+      ACQUIRED_COUNT.incrementAndGet();
+      if (connection.protocol() == Protocol.HTTP_2) {
+        MULTIPLEXED_COUNT.incrementAndGet();
+      }
+      Long callStart = CALL_STARTS.remove(call);
+      if (callStart != null) {
+        CONNECT_TIMES.put(call, System.nanoTime() - callStart);
+      }
+    }
+
+    @Override
+    public void callFailed(Call call, IOException e) {
+      CALL_STARTS.remove(call);
+      CONNECT_TIMES.remove(call);
+    }
+  }
+
+  /**
+   * An {@link Exchange} over a single OkHttp {@link Call}.
+   */
+  private static final class OkHttpExchange implements Exchange {
+
+    private final Call CALL;
+    private final Map<Call, Long> CONNECT_TIMES;
+    private long connectTime;
+    private Response response;
+
+    private OkHttpExchange(Call call, Map<Call, Long> connectTimes) {
+      this.CALL = call;
+      this.CONNECT_TIMES = connectTimes;
+    }
+
+    @Override
+    public void execute() throws IOException {
+      response = CALL.execute();
+      Long time = CONNECT_TIMES.remove(CALL);
+      connectTime = time != null ? time : 0;
+    }
+
+    @Override
+    public long getConnectTime() {
+      return connectTime;
+    }
+
+    @Override
+    public int getStatusCode() {
+      return response.code();
+    }
+
+    @Nullable
+    @Override
+    public String getStatusMessage() {
+      // HTTP/2 responses have no status message
+      String message = response.message();
+      return message.isEmpty() ? null : message;
+    }
+
+    @Nullable
+    @Override
+    public String getHeader(@NonNull String name) {
+      return response.header(name);
+    }
+
+    @Override
+    public long getContentLength() {
+      ResponseBody body = response.body();
+      return body != null ? body.contentLength() : -1;
+    }
+
+    @NonNull
+    @Override
+    public InputStream getBody() throws IOException {
+      ResponseBody body = response.body();
+      if (body == null) {
+        throw new IOException("The response has no body.");
+      }
+      return body.byteStream();
+    }
+
+    @Override
+    public void cancel() {
+      CALL.cancel();
+    }
+
+    @Override
+    public void close() {
+      CONNECT_TIMES.remove(CALL);
+      if (response != null) {
+        response.close();
+      }
+    }
+  }
+}
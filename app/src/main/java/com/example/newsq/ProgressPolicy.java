@@ -0,0 +1,123 @@
+package com.example.newsq;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.View;
+import android.widget.ProgressBar;
+import androidx.annotation.NonNull;
+
+/**
+ * Controls the visibility of a {@link ProgressBar} for news requests. The progress bar is only
+ * shown if a request takes longer than the show delay, and once it is shown, it stays visible for
+ * at least the minimum show time so it doesn't flash on the screen. Results that arrive before the
+ * show delay are displayed immediately.
+ * <p>
+ * All methods must be called from the main thread.
+ */
+public class ProgressPolicy {
+
+  private static final long DEFAULT_SHOW_DELAY = 400;     // in milliseconds
+  private static final long DEFAULT_MIN_SHOW_TIME = 500;  // in milliseconds
+
+  private final ProgressBar PROGRESS_BAR;
+  private final long SHOW_DELAY;
+  private final long MIN_SHOW_TIME;
+  private final Handler HANDLER = new Handler(Looper.getMainLooper());
+  private final Runnable SHOW_PROGRESS = this::showProgress;
+  private Runnable pendingResult;
+  private long shownAt = -1;
+
+  /**
+   * Creates a new {@link ProgressPolicy} with the default show delay and minimum show time.
+   *
+   * @param progressBar The {@link ProgressBar} controlled by this policy.
+   */
+  public ProgressPolicy(@NonNull ProgressBar progressBar) {
+    this(progressBar, DEFAULT_SHOW_DELAY, DEFAULT_MIN_SHOW_TIME);
+  }
+
+  /**
+   * Creates a new {@link ProgressPolicy}.
+   *
+   * @param progressBar The {@link ProgressBar} controlled by this policy.
+   * @param showDelay   The time a request may take before the progress bar is shown, in
+   *                    milliseconds.
+   * @param minShowTime The minimum time the progress bar stays visible once shown, in
+   *                    milliseconds.
+   */
+  public ProgressPolicy(@NonNull ProgressBar progressBar, long showDelay, long minShowTime) {
+    this.PROGRESS_BAR = progressBar;
+    this.SHOW_DELAY = showDelay;
+    this.MIN_SHOW_TIME = minShowTime;
+  }
+
+  /**
+   * Starts tracking a request; the progress bar is shown if the request is still running after
+   * the show delay.
+   */
+  public void start() {
+    cancel();
+    HANDLER.postDelayed(SHOW_PROGRESS, SHOW_DELAY);
+  }
+
+  /**
+   * Finishes tracking a request and runs the given {@link Runnable} to display the result. The
+   * result is displayed immediately if the progress bar was never shown, or once the progress bar
+   * has been visible for the minimum show time.
+   *
+   * @param showResult A {@link Runnable} that displays the result of the request.
+   */
+  public void finish(@NonNull Runnable showResult) {
+    HANDLER.removeCallbacks(SHOW_PROGRESS);
+    removePendingResult();
+    long remainingTime = MIN_SHOW_TIME - (SystemClock.uptimeMillis() - shownAt);
+    if (shownAt < 0 || remainingTime <= 0) {
+      hideProgress();
+      showResult.run();
+    } else {
+      pendingResult = () -> {
+        pendingResult = null;
+        hideProgress();
+        showResult.run();
+      };
+      HANDLER.postDelayed(pendingResult, remainingTime);
+    }
+  }
+
+  /**
+   * Hides the progress bar and discards any scheduled updates; this should be called when the
+   * views of the screen are destroyed.
+   */
+  public void cancel() {
+    HANDLER.removeCallbacks(SHOW_PROGRESS);
+    removePendingResult();
+    hideProgress();
+  }
+
+  /**
+   * Shows the progress bar and records the time it was shown.
+   */
+  private void showProgress() {
+    shownAt = SystemClock.uptimeMillis();
+    PROGRESS_BAR.setVisibility(View.VISIBLE);
+  }
+
+  /**
+   * Hides the progress bar.
+   */
+  private void hideProgress() {
+    shownAt = -1;
+    PROGRESS_BAR.setVisibility(View.INVISIBLE);
+  }
+
+  /**
+   * Removes a result that is waiting for the minimum show time.
+   */
+  private void removePendingResult() {
+    if (pendingResult != null) {
+      HANDLER.removeCallbacks(pendingResult);
+      pendingResult = null;
+    }
+  }
+}
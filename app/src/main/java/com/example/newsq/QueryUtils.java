@@ -1,22 +1,48 @@
 package com.example.newsq;
 
+import static com.example.newsq.RequestUriBuilder.PARAM_API_KEY;
+import static com.example.newsq.StoryParser.BYLINE;
+import static com.example.newsq.StoryParser.HEADLINE;
+import static com.example.newsq.StoryParser.JSON_FIELDS;
+import static com.example.newsq.StoryParser.JSON_RESPONSE;
+import static com.example.newsq.StoryParser.JSON_RESULTS;
+import static com.example.newsq.StoryParser.SECTION_NAME;
+import static com.example.newsq.StoryParser.TRAIL_TEXT;
+import static com.example.newsq.StoryParser.WEB_PUBLICATION_DATE;
+import static com.example.newsq.StoryParser.WEB_URL;
+
 import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
 import android.util.Base64;
+import android.util.JsonReader;
 import android.util.Log;
+import android.util.MalformedJsonException;
 import androidx.annotation.NonNull;
-import java.io.BufferedReader;
+import androidx.annotation.Nullable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.NoRouteToHostException;
 import java.net.URL;
+import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -27,20 +53,62 @@ import org.json.JSONObject;
  */
 public final class QueryUtils {
 
-  public static String httpResponseMessage = "";
-  public static boolean isNoDataResponse;
-  public static boolean isParseError;
-
   private static final String LOG_TAG = QueryUtils.class.getSimpleName();
-  private static final String JSON_RESPONSE = "response";
-  private static final String JSON_RESULTS = "results";
-  private static final String JSON_FIELDS = "fields";
-  private static final String SECTION_NAME = "sectionName";
-  private static final String WEB_PUBLICATION_DATE = "webPublicationDate";
-  private static final String WEB_URL = "webUrl";
-  private static final String HEADLINE = "headline";
-  private static final String BYLINE = "byline";
-  private static final String TRAIL_TEXT = "trailText";
+
+  /**
+   * A {@link Boolean} with a state of true if API responses are parsed directly from the
+   * connection's {@link InputStream}, and false if the response is read into a {@link String} and
+   * parsed with {@link JSONObject}.
+   *
+   * @see #setStreamingParse(boolean)
+   */
+  private static volatile boolean isStreamingParse = true;
+
+  /**
+   * The {@link HttpTransport} that sends API requests.
+   *
+   * @see #setTransport(HttpTransport)
+   */
+  private static volatile HttpTransport transport = new UrlConnectionTransport();
+
+  /**
+   * The number of response bytes downloaded and the number of stories they contained since the
+   * app started; together they show the cost of each story on the network.
+   */
+  private static final AtomicLong TOTAL_RESPONSE_BYTES = new AtomicLong();
+  private static final AtomicLong TOTAL_RESPONSE_STORIES = new AtomicLong();
+  private static final AtomicLong TOTAL_RESPONSES = new AtomicLong();
+
+  /**
+   * The number of response bytes after decompression since the app started; compared with the
+   * downloaded bytes, it shows what compression saves.
+   */
+  private static final AtomicLong TOTAL_DECODED_BYTES = new AtomicLong();
+
+  /**
+   * The number of requests cancelled since the app started, and an estimate of the response bytes
+   * they didn't download because they were cancelled.
+   */
+  private static final AtomicLong CANCELLED_FETCHES = new AtomicLong();
+  private static final AtomicLong SAVED_RESPONSE_BYTES = new AtomicLong();
+
+  /**
+   * Decides when failed requests are retried.
+   */
+  private static final RetryPolicy RETRY_POLICY = new RetryPolicy();
+
+  /**
+   * The {@link RequestPipeline} of the screens: its {@link RequestLimiter} keeps requests within
+   * the quota of the API key, its {@link CircuitBreaker} stops requests while the API is down,
+   * and it shares one request and its {@link FetchResult} between threads that request the same
+   * canonical url at the same time.
+   *
+   * @see #setRequestLimiter(RequestLimiter)
+   * @see #setResponseCache(ResponseCache)
+   */
+  private static final RequestPipeline PIPELINE = new RequestPipeline.Builder()
+      .setIndexed(true)
+      .build();
 
   /**
    * Private constructor
@@ -50,50 +118,355 @@ public final class QueryUtils {
   }
 
   /**
-   * Requests news data from the API and returns it in an array list of custom {@link Story}
-   * objects.
+   * Requests news data from the API and returns it in a {@link FetchResult} with the custom {@link
+   * Story} objects and the status of the request. Requests can run on several threads at the same
+   * time; threads that request the same canonical url while a request for it is running share
+   * that request and its result.
    * <p>
-   * Calls: {@link #delayNewsFetch()}, {@link HttpConnectionClient#getHttpResponse(URL)}, and {@link
-   * #extractNewsStories(String)}
+   * Calls: {@link #fetchNews(String, CancellationSignal)}
    *
    * @param urlString A {@link String} that contains a url for a specific API request.
-   * @return An {@link ArrayList} of {@link Story} objects obtained from the API request.
+   * @return A {@link FetchResult} with the {@link Story} objects obtained from the API request.
    */
-  public static ArrayList<Story> fetchNews(String urlString) {
-    // Pause thread for loading indicator
-    delayNewsFetch();
+  @NonNull
+  public static FetchResult fetchNews(String urlString) {
+    return fetchNews(urlString, null);
+  }
+
+  /**
+   * Requests news data from the API like {@link #fetchNews(String)}, and stops the request once
+   * the given {@link CancellationSignal} is cancelled: the connection is closed, the response
+   * isn't read any further, and it isn't parsed. A request shared with other threads is only
+   * stopped once every thread waiting for it has been cancelled, but a cancelled thread returns
+   * at once.
+   * <p>
+   * Calls: {@link #fetchNews(String, CancellationSignal, RequestLimiter.Priority)}
+   *
+   * @param urlString A {@link String} that contains a url for a specific API request.
+   * @param signal    The {@link CancellationSignal} of the request, or null if it can't be
+   *                  cancelled.
+   * @return A {@link FetchResult} with the {@link Story} objects obtained from the API request, or
+   * an error of {@link FetchResult.ErrorKind#CANCELLED} if the request was stopped.
+   */
+  @NonNull
+  public static FetchResult fetchNews(String urlString, @Nullable CancellationSignal signal) {
+    return fetchNews(urlString, signal, RequestLimiter.Priority.USER);
+  }
+
+  /**
+   * Requests news data from the API like {@link #fetchNews(String, CancellationSignal)} with the
+   * given {@link RequestLimiter.Priority}. Requests of {@link RequestLimiter.Priority#PREFETCH}
+   * wait while the user waits for stories, and give up sooner when the API quota runs low. A
+   * request shared with other threads keeps the priority of the thread that started it.
+   * <p>
+   * Calls: {@link #fetchNews(String, CancellationSignal, RequestLimiter.Priority,
+   * RequestPipeline)}
+   *
+   * @param urlString A {@link String} that contains a url for a specific API request.
+   * @param signal    The {@link CancellationSignal} of the request, or null if it can't be
+   *                  cancelled.
+   * @param priority  The {@link RequestLimiter.Priority} of the request.
+   * @return A {@link FetchResult} with the {@link Story} objects obtained from the API request, or
+   * an error of {@link FetchResult.ErrorKind#THROTTLED} if the quota didn't allow the request.
+   */
+  @NonNull
+  public static FetchResult fetchNews(String urlString, @Nullable CancellationSignal signal,
+      @NonNull RequestLimiter.Priority priority) {
+    return fetchNews(urlString, signal, priority, PIPELINE);
+  }
+
+  /**
+   * Requests news data from the API like {@link #fetchNews(String, CancellationSignal,
+   * RequestLimiter.Priority)} through the given {@link RequestPipeline} instead of the pipeline of
+   * the screens, e.g. to measure the request pipeline against a local server without using up the
+   * quota of the API key or tripping the circuit of the screens.
+   * <p>
+   * Calls: {@link #requestNews(String, CancellationSignal, RequestLimiter.Priority,
+   * RequestPipeline)}
+   *
+   * @param urlString A {@link String} that contains a url for a specific API request.
+   * @param signal    The {@link CancellationSignal} of the request, or null if it can't be
+   *                  cancelled.
+   * @param priority  The {@link RequestLimiter.Priority} of the request.
+   * @param pipeline  The {@link RequestPipeline} of the request.
+   * @return A {@link FetchResult} with the {@link Story} objects obtained from the API request.
+   */
+  @NonNull
+  public static FetchResult fetchNews(String urlString, @Nullable CancellationSignal signal,
+      @NonNull RequestLimiter.Priority priority, @NonNull RequestPipeline pipeline) {
+    if (isNullOrEmpty(urlString)) {
+      return requestNews(urlString, null, priority, pipeline);
+    }
+    try {
+      return pipeline.getFetchFlights().execute(canonicalizeUrl(urlString), signal,
+          flightSignal -> requestNews(urlString, flightSignal, priority, pipeline));
+    } catch (OperationCanceledException e) {
+      // The request keeps running for the other threads waiting for it
+      return new FetchResult.Builder().setErrorKind(FetchResult.ErrorKind.CANCELLED).build();
+    } catch (InterruptedException e) {
+      // e.g. the executor of the caller was shut down
+      Thread.currentThread().interrupt();
+      return new FetchResult.Builder().setErrorKind(FetchResult.ErrorKind.CANCELLED).build();
+    }
+  }
+
+  /**
+   * Returns the number of calls to {@link #fetchNews(String, CancellationSignal)} since the app
+   * started.
+   *
+   * @return A {@link Long} with the number of requests.
+   */
+  public static long getFetchCount() {
+    return PIPELINE.getFetchFlights().getCallCount();
+  }
+
+  /**
+   * Returns the number of calls to {@link #fetchNews(String, CancellationSignal)} that shared a
+   * request that was already running instead of contacting the API.
+   *
+   * @return A {@link Long} with the number of coalesced requests.
+   */
+  public static long getCoalescedFetchCount() {
+    return PIPELINE.getFetchFlights().getCoalescedCount();
+  }
+
+  /**
+   * Requests news data from the API; this method keeps no shared state, so requests can run on
+   * several threads at the same time.
+   * <p>
+   * Calls: {@link HttpConnectionClient#streamHttpResponse(URL, FetchResult.Builder,
+   * CancellationSignal, RequestLimiter.Priority, RequestPipeline)}, or {@link
+   * HttpConnectionClient#getHttpResponse(URL, FetchResult.Builder, CancellationSignal,
+   * RequestLimiter.Priority, RequestPipeline)} and
+   * {@link #extractNewsStories(String, FetchResult.Builder)}
+   * <p>
+   * Called by: {@link #fetchNews(String, CancellationSignal, RequestLimiter.Priority)}
+   *
+   * @param urlString A {@link String} that contains a url for a specific API request.
+   * @param signal    The {@link CancellationSignal} of the request, or null.
+   * @param priority  The {@link RequestLimiter.Priority} of the request.
+   * @param pipeline  The {@link RequestPipeline} of the request.
+   * @return A {@link FetchResult} with the {@link Story} objects obtained from the API request.
+   */
+  @NonNull
+  private static FetchResult requestNews(String urlString, @Nullable CancellationSignal signal,
+      RequestLimiter.Priority priority, RequestPipeline pipeline) {
+    long startTime = Metrics.startTimer();
+    FetchResult.Builder result = new FetchResult.Builder();
     // Create URL
     URL url = createUrl(urlString);
-    // Retrieve API response
-    String response = HttpConnectionClient.getHttpResponse(url);
-    if (HttpConnectionClient.responseOk) {
-      // Return ArrayList of news stories
-      return extractNewsStories(response);
+    if (url == null) {
+      return result.setErrorKind(FetchResult.ErrorKind.INVALID_URL).build();
+    }
+    if (isStreamingParse) {
+      // Parse the API response while it is read from the connection
+      result.setStories(HttpConnectionClient.streamHttpResponse(url, result, signal,
+          priority, pipeline));
     } else {
-      // Assign a bad response for reference
-      httpResponseMessage = response;
-      return null;
+      // Retrieve API response
+      String response = HttpConnectionClient.getHttpResponse(url, result, signal,
+          priority, pipeline);
+      if (result.isSuccessful()) { // Cancelled responses aren't parsed
+        // Add news stories to the result
+        result.setStories(extractNewsStories(response, result));
+      }
+    }
+    FetchResult fetchResult = result.build();
+    if (fetchResult.isSuccessful()) {
+      Metrics.getInstance().record(Metrics.STAGE_FETCH, getSection(url), startTime);
     }
+    fetchResult = recordResponseSize(fetchResult);
+    return pipeline.isIndexed() ? indexStories(fetchResult) : fetchResult;
   }
 
   /**
-   * Puts the current thread to sleep for showing the circular progress bar.
-   * <p>
-   * Called by: {@link #fetchNews(String)}
+   * Returns the section of a request url for {@link Metrics}, e.g. "world" or "search".
+   *
+   * @param url A {@link URL} object formatted for an API request.
+   * @return A {@link String} with the first segment of the url path, or null if it has none.
    */
-  private static void delayNewsFetch() {
-    final int time = 1500; // in milliseconds
-    try {
-      Thread.sleep(time);
-    } catch (InterruptedException e) {
-      e.printStackTrace();
+  @Nullable
+  private static String getSection(URL url) {
+    String path = url.getPath();
+    int start = path.startsWith("/") ? 1 : 0;
+    int end = path.indexOf('/', start);
+    String section = end >= 0 ? path.substring(start, end) : path.substring(start);
+    return section.isEmpty() ? null : section;
+  }
+
+  /**
+   * Adds the stories of a successful result to the {@link StoryIndex} so they can be searched
+   * offline.
+   *
+   * @param result The {@link FetchResult} of a request.
+   * @return The same {@link FetchResult}.
+   */
+  private static FetchResult indexStories(FetchResult result) {
+    if (result.isSuccessful()) {
+      StoryIndex.getInstance().addAll(result.getItems());
     }
+    return result;
+  }
+
+  /**
+   * Adds the size of a downloaded response and the number of its stories to the session totals;
+   * cancelled responses are incomplete, so they aren't added.
+   *
+   * @param result The {@link FetchResult} of a request.
+   * @return The same {@link FetchResult}.
+   */
+  private static FetchResult recordResponseSize(FetchResult result) {
+    if (result.getResponseBytes() > 0
+        && result.getErrorKind() != FetchResult.ErrorKind.CANCELLED) {
+      TOTAL_RESPONSES.incrementAndGet();
+      TOTAL_RESPONSE_BYTES.addAndGet(result.getResponseBytes());
+      TOTAL_DECODED_BYTES.addAndGet(result.getDecodedBytes());
+      TOTAL_RESPONSE_STORIES.addAndGet(result.getItems().size());
+      if (BuildConfig.DEBUG) {
+        Log.d(LOG_TAG, "Downloaded " + result.getResponseBytes() + " bytes ("
+            + result.getDecodedBytes() + " decoded) for " + result.getItems().size()
+            + " stories; " + getAverageBytesPerStory() + " bytes per story and "
+            + getTotalDecodedBytes() + " of " + getTotalResponseBytes()
+            + " bytes decoded this session");
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of response bytes downloaded from the API since the app started, as they
+   * crossed the network; cached and revalidated responses aren't counted.
+   *
+   * @return A {@link Long} with the number of bytes.
+   */
+  public static long getTotalResponseBytes() {
+    return TOTAL_RESPONSE_BYTES.get();
+  }
+
+  /**
+   * Returns the number of response bytes downloaded from the API since the app started, after
+   * decompression; like {@link #getTotalResponseBytes()}, cached and revalidated responses aren't
+   * counted.
+   *
+   * @return A {@link Long} with the number of bytes.
+   */
+  public static long getTotalDecodedBytes() {
+    return TOTAL_DECODED_BYTES.get();
+  }
+
+  /**
+   * Returns the average number of response bytes downloaded for each story since the app started;
+   * comparing it before and after changing the requested {@link StoryField StoryFields} shows the
+   * size reduction.
+   *
+   * @return A {@link Long} with the number of bytes per story, or 0 if no stories were downloaded.
+   */
+  public static long getAverageBytesPerStory() {
+    long stories = TOTAL_RESPONSE_STORIES.get();
+    return stories > 0 ? TOTAL_RESPONSE_BYTES.get() / stories : 0;
+  }
+
+  /**
+   * Returns the average size of a complete response downloaded since the app started.
+   *
+   * @return A {@link Long} with the number of bytes per response, or 0 if nothing was downloaded.
+   */
+  public static long getAverageResponseBytes() {
+    long responses = TOTAL_RESPONSES.get();
+    return responses > 0 ? TOTAL_RESPONSE_BYTES.get() / responses : 0;
+  }
+
+  /**
+   * Records a cancelled request and the response bytes it didn't download. If the size of the
+   * response is unknown, e.g. the request was cancelled before the response arrived or the body is
+   * chunked, the average response size is used instead.
+   *
+   * @param result        The {@link FetchResult.Builder} of the request.
+   * @param expectedBytes The size of the response body, or -1 if it's unknown.
+   * @param readBytes     The number of bytes read before the request was cancelled.
+   */
+  private static void recordCancellation(FetchResult.Builder result, long expectedBytes,
+      long readBytes) {
+    result.setErrorKind(FetchResult.ErrorKind.CANCELLED);
+    if (expectedBytes < 0) {
+      expectedBytes = getAverageResponseBytes();
+    }
+    long savedBytes = Math.max(0, expectedBytes - readBytes);
+    CANCELLED_FETCHES.incrementAndGet();
+    SAVED_RESPONSE_BYTES.addAndGet(savedBytes);
+    if (BuildConfig.DEBUG) {
+      Log.d(LOG_TAG, "Cancelled a request after " + readBytes + " bytes; saved " + savedBytes
+          + " bytes, " + getSavedResponseBytes() + " bytes this session");
+    }
+  }
+
+  /**
+   * Returns the number of requests cancelled since the app started.
+   *
+   * @return A {@link Long} with the number of cancelled requests.
+   */
+  public static long getCancelledFetchCount() {
+    return CANCELLED_FETCHES.get();
+  }
+
+  /**
+   * Returns an estimate of the response bytes that weren't downloaded since the app started
+   * because their requests were cancelled, e.g. when the user moved on to another section.
+   *
+   * @return A {@link Long} with the number of bytes.
+   */
+  public static long getSavedResponseBytes() {
+    return SAVED_RESPONSE_BYTES.get();
+  }
+
+  /**
+   * Returns the number of times a request was sent again after a transient failure since the app
+   * started.
+   *
+   * @return A {@link Long} with the number of retries.
+   */
+  public static long getRetryCount() {
+    return PIPELINE.getRetryCount();
+  }
+
+  /**
+   * Returns the {@link CircuitBreaker} that stops requests while the API is down, e.g. to report
+   * its state.
+   *
+   * @return The shared {@link CircuitBreaker}.
+   */
+  @NonNull
+  public static CircuitBreaker getCircuitBreaker() {
+    return PIPELINE.getCircuitBreaker();
+  }
+
+  /**
+   * Returns the {@link RequestLimiter} that keeps requests within the API quota, e.g. to report
+   * its limit and the number of throttled requests.
+   *
+   * @return The shared {@link RequestLimiter}.
+   */
+  @NonNull
+  public static RequestLimiter getRequestLimiter() {
+    return PIPELINE.getRequestLimiter();
+  }
+
+  /**
+   * Sets the {@link RequestLimiter} that keeps requests within the API quota, e.g. to measure the
+   * request pipeline against a local server without the quota of the API key; requests that
+   * already hold a slot give it back to the previous limiter.
+   *
+   * @param limiter A {@link RequestLimiter} instance.
+   */
+  public static void setRequestLimiter(@NonNull RequestLimiter limiter) {
+    PIPELINE.setRequestLimiter(limiter);
   }
 
   /**
    * Returns a new {@link URL} created from the given {@link String}.
    * <p>
-   * Called by: {@link #fetchNews(String)}
+   * Called by: {@link #requestNews(String, CancellationSignal, RequestLimiter.Priority,
+   * RequestPipeline)}
    *
    * @param uri A {@link String} that contains a {@link Uri} for an API request.
    * @return A {@link URL} object formatted for an API request.
@@ -114,21 +487,23 @@ public final class QueryUtils {
 
   /**
    * Extracts news stories from the HTTP response retrieved by {@link
-   * HttpConnectionClient#getHttpResponse(URL) getHttpResponse}.
+   * HttpConnectionClient#getHttpResponse(URL, FetchResult.Builder, CancellationSignal)
+   * getHttpResponse}.
    * <p>
-   * Called by: {@link #fetchNews(String)}
+   * Called by: {@link #requestNews(String, CancellationSignal, RequestLimiter.Priority,
+   * RequestPipeline)}
    *
    * @param response A {@link String} that contains the response data.
+   * @param result   The {@link FetchResult.Builder} of the request.
    * @return An {@link ArrayList} of news objects obtained from the API request.
    */
-  private static ArrayList<Story> extractNewsStories(String response) {
+  private static ArrayList<Story> extractNewsStories(String response,
+      FetchResult.Builder result) {
     ArrayList<Story> stories = new ArrayList<>();
-    isNoDataResponse = false;
-    isParseError = false;
-    if (isNullOrEmpty(response) && HttpConnectionClient.responseOk) {
-      isNoDataResponse = true;
+    if (isNullOrEmpty(response)) {
+      result.setErrorKind(FetchResult.ErrorKind.NO_DATA);
       return null;
-    } else if (!isNullOrEmpty(response) && HttpConnectionClient.responseOk) {
+    } else {
       try {
         // Get response object
         JSONObject responseData = new JSONObject(response).getJSONObject(JSON_RESPONSE);
@@ -150,13 +525,52 @@ public final class QueryUtils {
         }
       } catch (JSONException e) {
         Log.e(LOG_TAG, "Problem parsing JSON response", e);
-        isParseError = true;
+        result.setErrorKind(FetchResult.ErrorKind.PARSE_ERROR);
         return null;
       }
     }
     return stories;
   }
 
+  /**
+   * Extracts news stories from the {@link InputStream} of an API response as it is read, without
+   * holding the complete response or a {@link JSONObject} tree in memory. Since the response is
+   * parsed while it is downloaded, a malformed response is recorded as an error of {@link
+   * FetchResult.ErrorKind#PARSE_ERROR}, and a connection that fails before the end of the response
+   * as an error of {@link FetchResult.ErrorKind#CONNECTION_ERROR}.
+   * <p>
+   * Calls: {@link StoryParser#parse(JsonTokenReader)}
+   * <p>
+   * Called by: {@link HttpConnectionClient#streamHttpResponse(URL, FetchResult.Builder,
+   * CancellationSignal, RequestLimiter.Priority, RequestPipeline)}
+   *
+   * @param inputStream An {@link InputStream} that contains the response data.
+   * @param result      The {@link FetchResult.Builder} of the request.
+   * @return An {@link ArrayList} of news objects obtained from the API request, or null if the
+   * response is empty or can't be parsed.
+   */
+  @Nullable
+  private static ArrayList<Story> extractNewsStories(InputStream inputStream,
+      FetchResult.Builder result) {
+    ArrayList<Story> stories;
+    try (JsonTokenReader reader = new AndroidJsonTokenReader(new JsonReader(
+        new InputStreamReader(inputStream, StandardCharsets.UTF_8)))) {
+      stories = StoryParser.parse(reader);
+    } catch (MalformedJsonException | IllegalStateException e) {
+      Log.e(LOG_TAG, "Problem parsing JSON response", e);
+      result.setErrorKind(FetchResult.ErrorKind.PARSE_ERROR);
+      return null;
+    } catch (IOException e) {
+      Log.e(LOG_TAG, "The connection failed while the response was read.", e);
+      result.setErrorKind(FetchResult.ErrorKind.CONNECTION_ERROR);
+      return null;
+    }
+    if (stories == null) {
+      result.setErrorKind(FetchResult.ErrorKind.NO_DATA);
+    }
+    return stories;
+  }
+
   /**
    * Checks the attributes in the {@link JSONArray} of the API response for null values and returns
    * a {@link String} that is empty if the value <b>does not</b> exist, or contains the value if it
@@ -200,34 +614,85 @@ public final class QueryUtils {
    * @return A {@link String} that contains a {@link Uri} built with the given parameters.
    */
   public static String createUri(@NonNull Map<String, String> uriSegments) {
-    Uri.Builder builder = new Uri.Builder();
-    final String scheme = "scheme";
-    final String authority = "authority";
-    final String path = "path";
-    final String apiKey = "api-key";
     if (isNullOrEmpty(uriSegments)) {
       return null;
-    } else {
-      for (Map.Entry<String, String> parametersEntry : uriSegments.entrySet()) {
-        String key = parametersEntry.getKey();
-        switch (key) {
-          case scheme:
-            builder.scheme(parametersEntry.getValue());
-            break;
-          case authority:
-            builder.authority(parametersEntry.getValue());
-            break;
-          case path:
-            builder.appendPath(parametersEntry.getValue());
-            break;
-          default:
-            builder.appendQueryParameter(parametersEntry.getKey(), parametersEntry.getValue());
-            break;
-        }
+    }
+    return RequestUriBuilder.createUri(uriSegments, HttpConnectionClient.getApiKey());
+  }
+
+  /**
+   * Returns the url of an API request for the newest stories of a news section. The screens and
+   * the {@link WarmUpWorker} build their section urls here, so they share responses and stored
+   * feeds.
+   * <p>
+   * Calls: {@link #createSectionUrl(Context, String, String, String, String)}
+   *
+   * @param context Any {@link Context}, used to read the request parameters.
+   * @param section A {@link String} that contains an API section.
+   * @return A {@link String} that contains a url for the section.
+   */
+  public static String createSectionUrl(@NonNull Context context, @NonNull String section) {
+    return createSectionUrl(context, BuildConfig.API_SCHEME, BuildConfig.API_AUTHORITY, section,
+        context.getString(R.string.param_value_page_size_30));
+  }
+
+  /**
+   * Returns the url of a request for the newest stories of a news section like {@link
+   * #createSectionUrl(Context, String)}, sent to the given server with the given page size.
+   * <p>
+   * Calls: {@link #createUri(Map)}
+   *
+   * @param context   Any {@link Context}, used to read the request parameters.
+   * @param scheme    A {@link String} with the scheme of the request.
+   * @param authority A {@link String} with the host, and optionally the port, of the server.
+   * @param section   A {@link String} that contains an API section.
+   * @param pageSize  A {@link String} with the number of stories of the response.
+   * @return A {@link String} that contains a url for the section.
+   */
+  public static String createSectionUrl(@NonNull Context context, @NonNull String scheme,
+      @NonNull String authority, @NonNull String section, @NonNull String pageSize) {
+    Map<String, String> uriSegments = new HashMap<>();
+    // Base URL
+    uriSegments.put(context.getString(R.string.uri_scheme_key), scheme);
+    uriSegments.put(context.getString(R.string.uri_authority_key), authority);
+    // Section
+    uriSegments.put(context.getString(R.string.uri_path_key), section);
+    // Parameters
+    uriSegments.put(context.getString(R.string.param_key_show_fields),
+        StoryField.toParameterValue(StoryField.DISPLAYED_FIELDS));
+    uriSegments.put(context.getString(R.string.param_key_page_size), pageSize);
+    uriSegments.put(context.getString(R.string.param_key_use_date),
+        context.getString(R.string.param_value_use_date_last_modified));
+    uriSegments.put(context.getString(R.string.param_key_order_by),
+        context.getString(R.string.param_value_order_by_newest));
+    return createUri(uriSegments);
+  }
+
+  /**
+   * Returns the canonical form of a request url that is used to identify identical requests; the
+   * API key is removed and the query parameters are sorted by name.
+   *
+   * @param url A {@link String} that contains a url for an API request.
+   * @return A {@link String} that contains the canonical url.
+   */
+  @NonNull
+  public static String canonicalizeUrl(@NonNull String url) {
+    int queryStart = url.indexOf('?');
+    if (queryStart < 0) {
+      return url;
+    }
+    ArrayList<String> parameters = new ArrayList<>();
+    for (String parameter : url.substring(queryStart + 1).split("&")) {
+      if (!parameter.isEmpty() && !parameter.startsWith(PARAM_API_KEY + "=")) {
+        parameters.add(parameter);
       }
-      builder.appendQueryParameter(apiKey, HttpConnectionClient.getApiKey());
     }
-    return builder.build().toString();
+    Collections.sort(parameters);
+    StringBuilder builder = new StringBuilder(url.length()).append(url, 0, queryStart);
+    for (int i = 0; i < parameters.size(); i++) {
+      builder.append(i == 0 ? '?' : '&').append(parameters.get(i));
+    }
+    return builder.toString();
   }
 
   /**
@@ -245,13 +710,13 @@ public final class QueryUtils {
   }
 
   /**
-   * Checks if the given {@link ArrayList} is null or empty.
+   * Checks if the given {@link List} is null or empty.
    *
-   * @param stories An {@link ArrayList} of {@link Story} objects.
-   * @return A {@link Boolean} value of true if the {@link ArrayList} is empty or null, and false if
-   * it isn't.
+   * @param stories A {@link List} of {@link Story} or {@link StoryItem} objects.
+   * @return A {@link Boolean} value of true if the {@link List} is empty or null, and false if it
+   * isn't.
    */
-  public static boolean isNullOrEmpty(ArrayList<Story> stories) {
+  public static boolean isNullOrEmpty(List<?> stories) {
     boolean isNullOrEmpty = false;
     if (stories == null || stories.isEmpty()) {
       isNullOrEmpty = true;
@@ -283,23 +748,53 @@ public final class QueryUtils {
   }
 
   /**
-   * Returns a {@link Boolean} to indicate if the HTTP response code is valid.
+   * Sets the parse mode for API responses; streaming is enabled by default.
+   *
+   * @param streamingParse A {@link Boolean} value of true to parse responses from the connection's
+   *                       {@link InputStream}, or false to read them into a {@link String} first.
+   */
+  public static void setStreamingParse(boolean streamingParse) {
+    isStreamingParse = streamingParse;
+  }
+
+  /**
+   * Sets the {@link ResponseCache} used for API responses.
    *
-   * @return A {@link Boolean} value of true if the response is valid, and false if it isn't.
-   * @see HttpConnectionClient#responseOk
+   * @param cache A {@link ResponseCache} instance, or null to disable caching.
    */
-  public static boolean isResponseValid() {
-    return HttpConnectionClient.responseOk;
+  public static void setResponseCache(@Nullable ResponseCache cache) {
+    PIPELINE.setResponseCache(cache);
   }
 
   /**
-   * Returns a {@link Boolean} to indicate if a connection error occurred.
+   * Sets the {@link HttpTransport} that sends API requests; requests that are already running
+   * finish on the previous transport.
    *
-   * @return A {@link Boolean} value of true if an error occurred, and false if it didn't.
-   * @see HttpConnectionClient#caughtConnectionError
+   * @param httpTransport An {@link HttpTransport} instance.
    */
-  public static boolean isConnectionError() {
-    return HttpConnectionClient.caughtConnectionError;
+  public static void setTransport(@NonNull HttpTransport httpTransport) {
+    transport = httpTransport;
+  }
+
+  /**
+   * Returns the {@link HttpTransport} that sends API requests, e.g. to report its connection
+   * reuse and handshakes.
+   *
+   * @return The {@link HttpTransport} instance.
+   */
+  @NonNull
+  public static HttpTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Returns the {@link ResponseCache} used for API responses.
+   *
+   * @return The {@link ResponseCache} instance, or null if caching is disabled.
+   */
+  @Nullable
+  public static ResponseCache getResponseCache() {
+    return PIPELINE.getResponseCache();
   }
 
   /**
@@ -318,23 +813,21 @@ public final class QueryUtils {
   private final static class HttpConnectionClient {
 
     private static final String LOG_TAG = HttpURLConnection.class.getSimpleName();
-
-    /**
-     * A {@link Boolean} Boolean with a state of true if the HTTP response is valid (code 200), and
-     * false if the response is invalid.
-     *
-     * @see #getHttpResponse(URL)
-     */
-    private static boolean responseOk;
-
-    /**
-     * A {@link Boolean} with a state of true if a connection error occurred; this is used to make
-     * sure the screen is responsive for errors unrelated to parsing or response codes, e.g. a local
-     * network connection only.
-     *
-     * @see #getHttpResponse(URL)
-     */
-    private static boolean caughtConnectionError;
+    private static final int STATUS_OK = 200;
+    private static final int STATUS_NOT_MODIFIED = 304;
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+    private static final String HEADER_RETRY_AFTER = "Retry-After";
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    private static final String ENCODING_GZIP = "gzip";
+    private static final int GZIP_BUFFER_SIZE = 8192; // in bytes
+    private static final int READ_BUFFER_SIZE = 4096; // in characters
+    private static final long MAX_USER_WAIT = 10000;    // in milliseconds
+    private static final long MAX_PREFETCH_WAIT = 5000; // in milliseconds
 
     /**
      * Default constructor
@@ -361,76 +854,547 @@ public final class QueryUtils {
     }
 
     /**
-     * Connects to the API and returns the response in a {@link String}. This method is also
-     * responsible for setting the {@link #responseOk} {@link Boolean} to true for valid responses
-     * and false for invalid responses.
+     * Connects to the API and returns the response in a {@link String}. The status of the request
+     * is recorded in the given {@link FetchResult.Builder}.
      *
      * <p>
-     * Calls: {@link #readInputStream(HttpURLConnection)}
+     * Calls: {@link #requestResponse(URL, FetchResult.Builder, ResponseReader,
+     * CancellationSignal, RequestLimiter.Priority, RequestPipeline)} and {@link
+     * #readInputStream(InputStream, FetchResult.Builder)}
      * <p>
-     * Called by: {@link #fetchNews(String)}
+     * Called by: {@link #requestNews(String, CancellationSignal, RequestLimiter.Priority,
+     * RequestPipeline)}
      *
-     * @param url A {@link URL} object formatted for an API request.
+     * @param url      A {@link URL} object formatted for an API request.
+     * @param result   The {@link FetchResult.Builder} of the request.
+     * @param signal   The {@link CancellationSignal} of the request, or null.
+     * @param priority The {@link RequestLimiter.Priority} of the request.
+     * @param pipeline The {@link RequestPipeline} of the request.
      * @return A {@link String} that contains the API response data.
      */
     @NonNull
-    private static String getHttpResponse(URL url) {
-      HttpURLConnection connection = null;
-      responseOk = false;
-      caughtConnectionError = false;
-      String response = "";
-      final int STATUS_OK = 200;
-      final int connectionTimeoutLimit = 10000; // in milliseconds
-      final int readTimeoutLimit = 15000;       // in milliseconds
-      final String requestGet = "GET";
-      if (url != null) {
+    private static String getHttpResponse(@NonNull URL url, FetchResult.Builder result,
+        @Nullable CancellationSignal signal, RequestLimiter.Priority priority,
+        RequestPipeline pipeline) {
+      String response = requestResponse(url, result, HttpConnectionClient::readInputStream,
+          signal, priority, pipeline);
+      return response != null ? response : "";
+    }
+
+    /**
+     * Connects to the API and parses the response while it is read from the connection. The
+     * status of the request is recorded in the given {@link FetchResult.Builder}.
+     * <p>
+     * Calls: {@link #requestResponse(URL, FetchResult.Builder, ResponseReader,
+     * CancellationSignal, RequestLimiter.Priority, RequestPipeline)} and {@link
+     * #extractNewsStories(InputStream, FetchResult.Builder)}
+     * <p>
+     * Called by: {@link #requestNews(String, CancellationSignal, RequestLimiter.Priority,
+     * RequestPipeline)}
+     *
+     * @param url      A {@link URL} object formatted for an API request.
+     * @param result   The {@link FetchResult.Builder} of the request.
+     * @param signal   The {@link CancellationSignal} of the request, or null.
+     * @param priority The {@link RequestLimiter.Priority} of the request.
+     * @param pipeline The {@link RequestPipeline} of the request.
+     * @return An {@link ArrayList} of {@link Story} objects, or null if the request failed.
+     */
+    @Nullable
+    private static ArrayList<Story> streamHttpResponse(@NonNull URL url,
+        FetchResult.Builder result, @Nullable CancellationSignal signal,
+        RequestLimiter.Priority priority, RequestPipeline pipeline) {
+      return requestResponse(url, result, QueryUtils::extractNewsStories, signal, priority,
+          pipeline);
+    }
+
+    /**
+     * Requests a response from the {@link ResponseCache} or the API and reads it with the given
+     * {@link ResponseReader}. Fresh cached responses are read without contacting the API, stale
+     * responses are revalidated with a conditional request, and new responses are written to the
+     * cache while they are read.
+     * <p>
+     * Once the {@link CancellationSignal} is cancelled, the exchange is cancelled from the
+     * cancelling thread, which stops a blocked connect or read, and the request ends with an error
+     * of {@link FetchResult.ErrorKind#CANCELLED}. Otherwise the exchange is closed once the
+     * response is read, which lets the {@link HttpTransport} reuse its connection.
+     * <p>
+     * Requests that need the API wait for a slot in the {@link RequestLimiter} and hold it until
+     * the response is read; a request that can't get one in time ends with an error of {@link
+     * FetchResult.ErrorKind#THROTTLED}.
+     * <p>
+     * Calls: {@link #openResponse(URL, ResponseCache.Entry, FetchResult.Builder,
+     * CancellationSignal, RequestLimiter.Priority, RequestPipeline)}, {@link #readCachedResponse(
+     * ResponseCache.Entry, FetchResult.Builder, ResponseReader, CancellationSignal)}, and {@link
+     * #readNetworkResponse(HttpTransport.Exchange, String, ResponseCache, String,
+     * FetchResult.Builder, ResponseReader, CancellationSignal)}
+     *
+     * @param url      A {@link URL} object formatted for an API request.
+     * @param result   The {@link FetchResult.Builder} that records the status of the request.
+     * @param reader   The {@link ResponseReader} for the response body.
+     * @param signal   The {@link CancellationSignal} of the request, or null.
+     * @param priority The {@link RequestLimiter.Priority} of the request.
+     * @param pipeline The {@link RequestPipeline} of the request.
+     * @param <T>      The type of the result returned by the reader.
+     * @return The result returned by the reader, or null if the request failed.
+     */
+    @Nullable
+    private static <T> T requestResponse(@NonNull URL url, FetchResult.Builder result,
+        ResponseReader<T> reader, @Nullable CancellationSignal signal,
+        RequestLimiter.Priority priority, RequestPipeline pipeline) {
+      HttpTransport.Exchange exchange = null;
+      RequestLimiter limiter = pipeline.getRequestLimiter();
+      boolean hasSlot = false;
+      String cacheKey = canonicalizeUrl(url.toString());
+      ResponseCache cache = pipeline.getResponseCache();
+      ResponseCache.Entry cachedEntry = cache != null ? cache.get(cacheKey) : null;
+      boolean isNetworkRead = true;
+      long expectedBytes = -1;
+      try {
+        if (signal != null) {
+          signal.throwIfCanceled();
+        }
+        if (cachedEntry != null && cachedEntry.isFresh()) {
+          cache.recordHit();
+          result.setFromCache(true);
+          isNetworkRead = false;
+          return readCachedResponse(cachedEntry, result, reader, signal);
+        }
+        if (cachedEntry != null && cachedEntry.hasValidator()) {
+          cache.recordRevalidation();
+        }
+        hasSlot = limiter.acquire(priority, signal, getMaxWait(priority));
+        if (!hasSlot) {
+          Log.w(LOG_TAG, "No request slot became free; the request wasn't sent.");
+          result.setErrorKind(FetchResult.ErrorKind.THROTTLED);
+          return null;
+        }
+        exchange = openResponse(url, cachedEntry, result, signal, priority, pipeline);
+        if (exchange == null) {
+          return null;
+        }
+        int responseCode = exchange.getStatusCode();
+        if (responseCode == STATUS_NOT_MODIFIED && cachedEntry != null) {
+          cache.recordHit();
+          cache.refresh(cacheKey, cachedEntry, getExpiryTime(exchange));
+          result.setFromCache(true);
+          isNetworkRead = false;
+          return readCachedResponse(cachedEntry, result, reader, signal);
+        } else if (responseCode == STATUS_OK) {
+          expectedBytes = exchange.getContentLength();
+          return readNetworkResponse(exchange, getSection(url), cache, cacheKey, result, reader,
+              signal);
+        } else {
+          result.setErrorKind(FetchResult.ErrorKind.HTTP_ERROR);
+        }
+      } catch (OperationCanceledException e) {
+        recordCancellation(result, isNetworkRead ? expectedBytes : 0, result.getResponseBytes());
+      } catch (IOException e) {
+        if (signal != null && signal.isCanceled()) {
+          // Cancelling the exchange interrupted the connect or the response status
+          recordCancellation(result, isNetworkRead ? expectedBytes : 0,
+              result.getResponseBytes());
+        } else {
+          Log.e(LOG_TAG, "There was a problem connecting to the server.", e);
+          result.setErrorKind(FetchResult.ErrorKind.CONNECTION_ERROR);
+        }
+      } finally {
+        if (signal != null) {
+          signal.setOnCancelListener(null);
+        }
+        if (exchange != null) {
+          exchange.close();
+        }
+        if (hasSlot) {
+          limiter.release();
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Returns the longest time a request waits for the {@link RequestLimiter}; prefetch requests
+     * give up sooner, since nobody is waiting for them.
+     *
+     * @param priority The {@link RequestLimiter.Priority} of the request.
+     * @return A {@link Long} with the time in milliseconds.
+     */
+    private static long getMaxWait(RequestLimiter.Priority priority) {
+      return priority == RequestLimiter.Priority.USER ? MAX_USER_WAIT : MAX_PREFETCH_WAIT;
+    }
+
+    /**
+     * Sends a GET request until the API replies with a final status, and returns the exchange
+     * with the response. Connection failures and transient statuses, e.g. {@code 503 Service
+     * Unavailable}, are retried as the {@link RetryPolicy} allows, after a backoff or the delay in
+     * a {@code Retry-After} header. While the {@link CircuitBreaker} is open, the request isn't
+     * sent and fails with an error of {@link FetchResult.ErrorKind#UNAVAILABLE}. A request counts
+     * as at most one failure of the circuit, however many of its attempts fail, and errors that
+     * mean the device is offline are neither counted nor retried.
+     * <p>
+     * Every attempt takes a token from the {@link RequestLimiter}, and every response status
+     * adjusts its in-flight limit; an attempt that can't get a token in time fails with an error
+     * of {@link FetchResult.ErrorKind#THROTTLED}.
+     * <p>
+     * Calls: {@link #openExchange(URL, ResponseCache.Entry, CancellationSignal)}, {@link
+     * #isOfflineError(IOException)}, and {@link #awaitRetry(long, CancellationSignal)}
+     * <p>
+     * Called by: {@link #requestResponse(URL, FetchResult.Builder, ResponseReader,
+     * CancellationSignal, RequestLimiter.Priority, RequestPipeline)}
+     *
+     * @param url         A {@link URL} object formatted for an API request.
+     * @param cachedEntry The cached {@link ResponseCache.Entry} for the request, or null.
+     * @param result      The {@link FetchResult.Builder} that records the status of the request.
+     * @param signal      The {@link CancellationSignal} of the request, or null.
+     * @param priority    The {@link RequestLimiter.Priority} of the request.
+     * @param pipeline    The {@link RequestPipeline} of the request.
+     * @return An {@link HttpTransport.Exchange} with the response status, or null if the request
+     * wasn't sent.
+     * @throws IOException if the last attempt fails to connect, or the device is offline.
+     */
+    @Nullable
+    private static HttpTransport.Exchange openResponse(@NonNull URL url,
+        @Nullable ResponseCache.Entry cachedEntry, FetchResult.Builder result,
+        @Nullable CancellationSignal signal, RequestLimiter.Priority priority,
+        RequestPipeline pipeline) throws IOException {
+      CircuitBreaker circuitBreaker = pipeline.getCircuitBreaker();
+      RequestLimiter requestLimiter = pipeline.getRequestLimiter();
+      int maxAttempts = RETRY_POLICY.getMaxAttempts();
+      boolean isFailureRecorded = false;
+      for (int attempt = 1; ; attempt++) {
+        if (!circuitBreaker.allowRequest()) {
+          Log.w(LOG_TAG, "The API is unavailable; the request wasn't sent.");
+          result.setErrorKind(FetchResult.ErrorKind.UNAVAILABLE);
+          return null;
+        }
+        if (!requestLimiter.takeToken(priority, signal, getMaxWait(priority))) {
+          Log.w(LOG_TAG, "The request quota ran out; the request wasn't sent.");
+          result.setErrorKind(FetchResult.ErrorKind.THROTTLED);
+          return null;
+        }
+        result.setAttempts(attempt);
+        HttpTransport.Exchange exchange = null;
+        boolean isReturned = false;
+        long retryDelay;
         try {
-          connection = (HttpURLConnection) url.openConnection();
-          connection.setRequestMethod(requestGet);
-          connection.setConnectTimeout(connectionTimeoutLimit);
-          connection.setReadTimeout(readTimeoutLimit);
-          connection.connect();
-          if (connection.getResponseCode() == STATUS_OK) {
-            responseOk = true;
-            response = readInputStream(connection);
+          exchange = openExchange(url, cachedEntry, signal);
+          int responseCode = exchange.getStatusCode();
+          result.setStatus(responseCode, exchange.getStatusMessage());
+          requestLimiter.onResponse(responseCode);
+          if (responseCode >= 500) {
+            if (!isFailureRecorded) {
+              circuitBreaker.recordFailure();
+              isFailureRecorded = true;
+            }
           } else {
-            response = connection.getResponseCode() + " " + connection.getResponseMessage();
+            circuitBreaker.recordSuccess();
+          }
+          retryDelay = attempt < maxAttempts && RetryPolicy.isRetryable(responseCode)
+              ? RETRY_POLICY.getDelay(attempt, exchange.getHeader(HEADER_RETRY_AFTER))
+              : -1;
+          if (retryDelay < 0) {
+            isReturned = true;
+            return exchange;
           }
         } catch (IOException e) {
-          Log.e(LOG_TAG, "There was a problem connecting to the server." + response, e);
-          caughtConnectionError = true;
+          if (signal != null && signal.isCanceled()) {
+            throw e;
+          }
+          if (isOfflineError(e)) {
+            // The API can't be blamed, and a retry won't find a network either
+            throw e;
+          }
+          if (!isFailureRecorded) {
+            circuitBreaker.recordFailure();
+            isFailureRecorded = true;
+          }
+          if (attempt >= maxAttempts) {
+            throw e;
+          }
+          Log.w(LOG_TAG, "Attempt " + attempt + " failed to connect: " + e);
+          retryDelay = RETRY_POLICY.getDelay(attempt, null);
         } finally {
-          if (connection != null) {
-            connection.disconnect();
+          if (exchange != null && !isReturned) {
+            exchange.close();
           }
         }
+        pipeline.recordRetry();
+        if (BuildConfig.DEBUG) {
+          Log.d(LOG_TAG, "Retrying attempt " + attempt + " in " + retryDelay + "ms; "
+              + pipeline.getRetryCount() + " retries this session, circuit "
+              + circuitBreaker.getState());
+        }
+        awaitRetry(retryDelay, signal);
       }
-      return response;
     }
 
     /**
-     * A helper method that reads from the {@link java.io.InputStream InputStream} and converts it
-     * into a {@link String}.
+     * Returns a {@link Boolean} to indicate if a connection failed because the device is offline,
+     * i.e. the API's host name couldn't be resolved or there is no route to it.
+     *
+     * @param e The {@link IOException} thrown by the connection.
+     * @return A {@link Boolean} value of true if the device is offline, and false if not.
+     */
+    private static boolean isOfflineError(IOException e) {
+      return e instanceof UnknownHostException || e instanceof NoRouteToHostException;
+    }
+
+    /**
+     * Waits before a request is retried. The wait ends early once the {@link CancellationSignal}
+     * is cancelled.
+     *
+     * @param delay  The time to wait in milliseconds.
+     * @param signal The {@link CancellationSignal} of the request, or null.
+     * @throws OperationCanceledException if the request is cancelled or the thread is interrupted.
+     */
+    private static void awaitRetry(long delay, @Nullable CancellationSignal signal) {
+      CountDownLatch cancelled = new CountDownLatch(1);
+      if (signal != null) {
+        signal.setOnCancelListener(cancelled::countDown);
+      }
+      try {
+        if (cancelled.await(delay, TimeUnit.MILLISECONDS)) {
+          throw new OperationCanceledException();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new OperationCanceledException();
+      } finally {
+        if (signal != null) {
+          signal.setOnCancelListener(null);
+        }
+      }
+    }
+
+    /**
+     * Sends a GET request with the current {@link HttpTransport} and waits for the response
+     * status. The request asks for a gzip compressed body, and if a cached response is given, its
+     * validators are sent so the API can reply with {@code 304 Not Modified}. The connect time and
+     * the time to the first byte are recorded in {@link Metrics}.
      * <p>
-     * Called by: {@link #getHttpResponse(URL)}
+     * Setting {@code Accept-Encoding} means the transport leaves the body compressed, so the
+     * bytes that cross the network can be counted before it is decoded.
      *
-     * @param connection An {@link HttpURLConnection} instance configured for an API request.
-     * @return A {@link String} that contains the API response data.
+     * The exchange is cancelled as soon as the {@link CancellationSignal} is cancelled.
+     *
+     * @param url         A {@link URL} object formatted for an API request.
+     * @param cachedEntry The cached {@link ResponseCache.Entry} for the request, or null.
+     * @param signal      The {@link CancellationSignal} of the request, or null.
+     * @return An {@link HttpTransport.Exchange} with the response status.
+     * @throws IOException if the request fails.
      */
     @NonNull
-    private static String readInputStream(HttpURLConnection connection) {
-      StringBuilder out = new StringBuilder();
-      String lines;
-      if (connection != null) {
-        try (BufferedReader in = new BufferedReader(
-            new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-          while ((lines = in.readLine()) != null) {
-            out.append(lines);
+    private static HttpTransport.Exchange openExchange(@NonNull URL url,
+        @Nullable ResponseCache.Entry cachedEntry, @Nullable CancellationSignal signal)
+        throws IOException {
+      Map<String, String> headers = new HashMap<>();
+      headers.put(HEADER_ACCEPT_ENCODING, ENCODING_GZIP);
+      if (cachedEntry != null) {
+        if (cachedEntry.getETag() != null) {
+          headers.put(HEADER_IF_NONE_MATCH, cachedEntry.getETag());
+        }
+        if (cachedEntry.getLastModified() != null) {
+          headers.put(HEADER_IF_MODIFIED_SINCE, cachedEntry.getLastModified());
+        }
+      }
+      HttpTransport.Exchange exchange = transport.newExchange(url, headers);
+      try {
+        if (signal != null) {
+          signal.setOnCancelListener(exchange::cancel);
+          signal.throwIfCanceled();
+        }
+        long startTime = Metrics.startTimer();
+        exchange.execute();
+        long connectTime = exchange.getConnectTime();
+        String section = getSection(url);
+        Metrics metrics = Metrics.getInstance();
+        metrics.recordDuration(Metrics.STAGE_CONNECT, section, connectTime);
+        metrics.recordDuration(Metrics.STAGE_TTFB, section,
+            System.nanoTime() - startTime - connectTime);
+      } catch (IOException | RuntimeException e) {
+        // A failed exchange has no connection worth keeping
+        exchange.cancel();
+        throw e;
+      }
+      return exchange;
+    }
+
+    /**
+     * Reads a response body from the {@link ResponseCache}.
+     *
+     * @param cachedEntry The cached {@link ResponseCache.Entry} to read.
+     * @param result      The {@link FetchResult.Builder} of the request.
+     * @param reader      The {@link ResponseReader} for the response body.
+     * @param signal      The {@link CancellationSignal} of the request, or null.
+     * @param <T>         The type of the result returned by the reader.
+     * @return The result returned by the reader.
+     * @throws IOException if the cached body can't be opened.
+     */
+    @Nullable
+    private static <T> T readCachedResponse(ResponseCache.Entry cachedEntry,
+        FetchResult.Builder result, ResponseReader<T> reader, @Nullable CancellationSignal signal)
+        throws IOException {
+      try (InputStream inputStream = cachedEntry.openBody()) {
+        return reader.read(wrapCancellable(inputStream, signal), result);
+      }
+    }
+
+    /**
+     * Returns an {@link InputStream} that stops reading once the {@link CancellationSignal} is
+     * cancelled.
+     *
+     * @param inputStream The {@link InputStream} of a response body.
+     * @param signal      The {@link CancellationSignal} of the request, or null.
+     * @return A {@link CancellableInputStream}, or the same {@link InputStream} if there is no
+     * signal.
+     */
+    private static InputStream wrapCancellable(InputStream inputStream,
+        @Nullable CancellationSignal signal) {
+      return signal != null ? new CancellableInputStream(inputStream, signal) : inputStream;
+    }
+
+    /**
+     * Reads a response body from the exchange and writes it to the {@link ResponseCache} while
+     * it is read; the body is only cached if the reader returns a result, and a cancelled body is
+     * discarded. A gzip compressed body is decompressed while the reader parses it, and the
+     * decoded body is cached.
+     * <p>
+     * The bytes read from the network and the decoded bytes are both recorded in the {@link
+     * FetchResult.Builder}. For a body that is read completely, the time spent waiting for the
+     * network and the time spent decoding and parsing are recorded in {@link Metrics}.
+     *
+     * @param exchange An {@link HttpTransport.Exchange} with a valid response.
+     * @param section  A {@link String} with the section of the request for {@link Metrics}.
+     * @param cache    The {@link ResponseCache} of the request, or null if it isn't cached.
+     * @param cacheKey A {@link String} that contains the canonical request url.
+     * @param result   The {@link FetchResult.Builder} of the request.
+     * @param reader   The {@link ResponseReader} for the response body.
+     * @param signal   The {@link CancellationSignal} of the request, or null.
+     * @param <T>      The type of the result returned by the reader.
+     * @return The result returned by the reader.
+     * @throws IOException if the response can't be opened.
+     */
+    @Nullable
+    private static <T> T readNetworkResponse(HttpTransport.Exchange exchange,
+        @Nullable String section, @Nullable ResponseCache cache, String cacheKey,
+        FetchResult.Builder result, ResponseReader<T> reader, @Nullable CancellationSignal signal)
+        throws IOException {
+      long startTime = Metrics.startTimer();
+      TimedInputStream timedStream = new TimedInputStream(exchange.getBody());
+      CountingInputStream wireStream = new CountingInputStream(
+          wrapCancellable(timedStream, signal));
+      CountingInputStream inputStream = wireStream;
+      long expiresAt = getExpiryTime(exchange);
+      String eTag = exchange.getHeader(HEADER_ETAG);
+      String lastModified = exchange.getHeader(HEADER_LAST_MODIFIED);
+      // A response that is neither fresh nor has a validator could never be reused
+      boolean isReusable = expiresAt > System.currentTimeMillis() || eTag != null
+          || lastModified != null;
+      try {
+        if (isGzipEncoded(exchange)) {
+          inputStream = new CountingInputStream(
+              new GZIPInputStream(wireStream, GZIP_BUFFER_SIZE));
+        }
+        if (cache == null || expiresAt < 0 || !isReusable) {
+          return reader.read(inputStream, result);
+        }
+        cache.recordMiss();
+        ResponseCache.Editor editor = cache.edit(cacheKey, eTag, lastModified, expiresAt);
+        if (editor == null) {
+          return reader.read(inputStream, result);
+        }
+        T body;
+        try {
+          body = reader.read(editor.wrap(inputStream), result);
+        } catch (OperationCanceledException e) {
+          editor.abort();
+          throw e;
+        }
+        if (body != null) {
+          editor.commit();
+        } else {
+          editor.abort();
+        }
+        return body;
+      } finally {
+        result.setResponseBytes(wireStream.getCount());
+        result.setDecodedBytes(inputStream.getCount());
+        if (result.isSuccessful()) {
+          long downloadTime = timedStream.getReadTime();
+          Metrics metrics = Metrics.getInstance();
+          metrics.recordDuration(Metrics.STAGE_DOWNLOAD, section, downloadTime);
+          metrics.recordDuration(Metrics.STAGE_PARSE, section,
+              System.nanoTime() - startTime - downloadTime);
+        }
+      }
+    }
+
+    /**
+     * Returns a {@link Boolean} to indicate if a response body is gzip compressed.
+     *
+     * @param exchange An {@link HttpTransport.Exchange} with a response.
+     * @return A {@link Boolean} value of true if the body is compressed, and false if it isn't.
+     */
+    private static boolean isGzipEncoded(HttpTransport.Exchange exchange) {
+      String contentEncoding = exchange.getHeader(HEADER_CONTENT_ENCODING);
+      return contentEncoding != null && contentEncoding.trim().equalsIgnoreCase(ENCODING_GZIP);
+    }
+
+    /**
+     * Returns the time a response expires based on the {@code max-age} directive of its {@code
+     * Cache-Control} header; responses without the directive must be revalidated before reuse.
+     *
+     * @param exchange An {@link HttpTransport.Exchange} with a response.
+     * @return A {@link Long} with the expiry time in milliseconds since the epoch, or -1 if the
+     * response must not be stored.
+     */
+    private static long getExpiryTime(HttpTransport.Exchange exchange) {
+      final String noStore = "no-store";
+      final String maxAge = "max-age=";
+      long maxAgeSeconds = 0;
+      String cacheControl = exchange.getHeader(HEADER_CACHE_CONTROL);
+      if (cacheControl != null) {
+        for (String directive : cacheControl.split(",")) {
+          directive = directive.trim();
+          if (directive.equals(noStore)) {
+            return -1;
+          } else if (directive.startsWith(maxAge)) {
+            try {
+              maxAgeSeconds = Long.parseLong(directive.substring(maxAge.length()));
+            } catch (NumberFormatException e) {
+              Log.w(LOG_TAG, "Invalid max-age directive: " + directive);
+            }
           }
-        } catch (IOException e) {
-          Log.e(LOG_TAG, "Problem reading input stream.", e);
         }
       }
+      return System.currentTimeMillis() + maxAgeSeconds * 1000;
+    }
+
+    /**
+     * A helper method that reads from the {@link InputStream} and converts it into a {@link
+     * String}.
+     * <p>
+     * Called by: {@link #getHttpResponse(URL, FetchResult.Builder, CancellationSignal,
+     * RequestLimiter.Priority, RequestPipeline)}
+     *
+     * @param inputStream An {@link InputStream} that contains the response body.
+     * @param result      The {@link FetchResult.Builder} of the request.
+     * @return A {@link String} that contains the API response data, or null if it can't be read.
+     */
+    @Nullable
+    private static String readInputStream(InputStream inputStream, FetchResult.Builder result) {
+      StringBuilder out = new StringBuilder();
+      char[] buffer = new char[READ_BUFFER_SIZE];
+      int charsRead;
+      // Reading characters instead of lines keeps the line breaks of the response
+      try (Reader in = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+        while ((charsRead = in.read(buffer)) != -1) {
+          out.append(buffer, 0, charsRead);
+        }
+      } catch (IOException e) {
+        Log.e(LOG_TAG, "Problem reading input stream.", e);
+        result.setErrorKind(FetchResult.ErrorKind.CONNECTION_ERROR);
+        return null;
+      }
       return out.toString();
     }
 
@@ -453,5 +1417,24 @@ public final class QueryUtils {
         return new String(bytes, StandardCharsets.UTF_8);
       }
     }
+
+    /**
+     * Reads the body of an API response.
+     *
+     * @param <T> The type of the result.
+     */
+    private interface ResponseReader<T> {
+
+      /**
+       * Reads the response body from the given {@link InputStream} and records any errors in the
+       * given {@link FetchResult.Builder}.
+       *
+       * @param inputStream The {@link InputStream} of the response body.
+       * @param result      The {@link FetchResult.Builder} of the request.
+       * @return The result, or null if the body can't be read.
+       */
+      @Nullable
+      T read(InputStream inputStream, FetchResult.Builder result);
+    }
   }
 }
@@ -0,0 +1,105 @@
+package com.example.newsq;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.format.DateUtils;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single clock, shared by every {@link StoryAdapter}, that ticks at the start of each minute so
+ * relative times such as "5 minutes ago" stay correct. The ticker only runs while at least one
+ * listener is registered, and all of its methods must be called on the main thread.
+ */
+public final class RelativeTimeTicker {
+
+  private static final long TICK_INTERVAL = DateUtils.MINUTE_IN_MILLIS;
+  private static RelativeTimeTicker instance;
+
+  private final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+  private final List<OnTickListener> LISTENERS = new ArrayList<>();
+  private final Runnable TICK = this::tick;
+
+  /**
+   * Private constructor; use {@link #getInstance()}.
+   */
+  private RelativeTimeTicker() {
+  }
+
+  /**
+   * Returns the shared {@link RelativeTimeTicker}.
+   *
+   * @return The shared {@link RelativeTimeTicker} instance.
+   */
+  @MainThread
+  @NonNull
+  public static RelativeTimeTicker getInstance() {
+    if (instance == null) {
+      instance = new RelativeTimeTicker();
+    }
+    return instance;
+  }
+
+  /**
+   * Registers a listener and starts the ticker if it isn't running.
+   *
+   * @param listener The {@link OnTickListener} to notify every minute.
+   */
+  @MainThread
+  public void addListener(@NonNull OnTickListener listener) {
+    if (LISTENERS.contains(listener)) {
+      return;
+    }
+    LISTENERS.add(listener);
+    if (LISTENERS.size() == 1) {
+      scheduleNextTick();
+    }
+  }
+
+  /**
+   * Unregisters a listener and stops the ticker once no listeners remain.
+   *
+   * @param listener The {@link OnTickListener} to remove.
+   */
+  @MainThread
+  public void removeListener(@NonNull OnTickListener listener) {
+    if (LISTENERS.remove(listener) && LISTENERS.isEmpty()) {
+      MAIN_HANDLER.removeCallbacks(TICK);
+    }
+  }
+
+  /**
+   * Notifies every listener and schedules the next tick.
+   */
+  private void tick() {
+    // Copied so listeners can unregister while they are notified
+    for (OnTickListener listener : new ArrayList<>(LISTENERS)) {
+      listener.onTick();
+    }
+    if (!LISTENERS.isEmpty()) {
+      scheduleNextTick();
+    }
+  }
+
+  /**
+   * Schedules the next tick at the start of the next minute.
+   */
+  private void scheduleNextTick() {
+    MAIN_HANDLER.removeCallbacks(TICK);
+    long delay = TICK_INTERVAL - System.currentTimeMillis() % TICK_INTERVAL;
+    MAIN_HANDLER.postDelayed(TICK, delay);
+  }
+
+  /**
+   * A listener that is notified each time the {@link RelativeTimeTicker} ticks.
+   */
+  public interface OnTickListener {
+
+    /**
+     * Called on the main thread at the start of each minute.
+     */
+    void onTick();
+  }
+}
@@ -0,0 +1,275 @@
+package com.example.newsq;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Keeps API requests within the quota of the API key. A token bucket limits the rate at which
+ * requests are sent, and an adaptive limit caps the number of requests in flight: it grows by one
+ * request per limit's worth of successful responses, and it is halved whenever the API replies
+ * with {@code 429 Too Many Requests}, which also empties the bucket.
+ * <p>
+ * Requests the user is waiting for come first: while one is waiting, {@link Priority#PREFETCH}
+ * requests don't take tokens or slots, and they always leave {@code reservedTokens} tokens and one
+ * slot for the user.
+ */
+public final class RequestLimiter {
+
+  private static final double DEFAULT_TOKENS_PER_SECOND = 1;
+  private static final int DEFAULT_BURST = 5;
+  private static final int DEFAULT_RESERVED_TOKENS = 2;
+  private static final int DEFAULT_INITIAL_LIMIT = 4;
+  private static final int DEFAULT_MAX_LIMIT = 8;
+  private static final int MIN_LIMIT = 1;
+  private static final int STATUS_TOO_MANY_REQUESTS = 429;
+
+  /**
+   * The priorities of API requests.
+   */
+  public enum Priority {
+    /**
+     * A request for stories the user is waiting for.
+     */
+    USER,
+    /**
+     * A request for stories the user may want later, e.g. a prefetched section.
+     */
+    PREFETCH
+  }
+
+  private final double TOKENS_PER_NANO;
+  private final int BURST;
+  private final int RESERVED_TOKENS;
+  private final int MAX_LIMIT;
+  private double tokens;
+  private long refilledAt = System.nanoTime();
+  private double limit;
+  private int inFlight;
+  private int waitingUsers;
+  private long throttledCount;
+  private long deferredCount;
+
+  /**
+   * Creates a new {@link RequestLimiter} with the default rate and limits, which fit the quota of
+   * a developer key of the Guardian API.
+   */
+  public RequestLimiter() {
+    this(DEFAULT_TOKENS_PER_SECOND, DEFAULT_BURST, DEFAULT_RESERVED_TOKENS, DEFAULT_INITIAL_LIMIT,
+        DEFAULT_MAX_LIMIT);
+  }
+
+  /**
+   * Creates a new {@link RequestLimiter}.
+   *
+   * @param tokensPerSecond The number of requests that may be sent per second on average.
+   * @param burst           The number of requests that may be sent at once after a quiet period.
+   * @param reservedTokens  The number of tokens that prefetch requests leave for the user.
+   * @param initialLimit    The number of requests that may be in flight at first.
+   * @param maxLimit        The largest number of requests that may ever be in flight.
+   */
+  public RequestLimiter(double tokensPerSecond, int burst, int reservedTokens, int initialLimit,
+      int maxLimit) {
+    this.TOKENS_PER_NANO = tokensPerSecond / 1e9;
+    this.BURST = burst;
+    this.RESERVED_TOKENS = reservedTokens;
+    this.MAX_LIMIT = maxLimit;
+    this.tokens = burst;
+    this.limit = Math.max(MIN_LIMIT, Math.min(initialLimit, maxLimit));
+  }
+
+  /**
+   * Waits for a slot to send a request in; every acquired slot must be given back with {@link
+   * #release()}.
+   *
+   * @param priority The {@link Priority} of the request.
+   * @param signal   The {@link CancellationSignal} of the request, or null.
+   * @param maxWait  The longest time to wait in milliseconds.
+   * @return A {@link Boolean} value of true if a slot was acquired, and false if the wait timed
+   * out.
+   * @throws OperationCanceledException if the request is cancelled while it waits.
+   */
+  public boolean acquire(@NonNull Priority priority, @Nullable CancellationSignal signal,
+      long maxWait) {
+    return await(priority, signal, maxWait, false);
+  }
+
+  /**
+   * Gives back a slot acquired with {@link #acquire(Priority, CancellationSignal, long)}.
+   */
+  public synchronized void release() {
+    inFlight--;
+    notifyAll();
+  }
+
+  /**
+   * Waits for a token to send a request; a token is needed for every request sent to the API,
+   * including retries.
+   *
+   * @param priority The {@link Priority} of the request.
+   * @param signal   The {@link CancellationSignal} of the request, or null.
+   * @param maxWait  The longest time to wait in milliseconds.
+   * @return A {@link Boolean} value of true if a token was taken, and false if the wait timed out.
+   * @throws OperationCanceledException if the request is cancelled while it waits.
+   */
+  public boolean takeToken(@NonNull Priority priority, @Nullable CancellationSignal signal,
+      long maxWait) {
+    return await(priority, signal, maxWait, true);
+  }
+
+  /**
+   * Adjusts the in-flight limit to a response status of the API.
+   *
+   * @param statusCode An {@link Integer} with the HTTP status code.
+   */
+  public synchronized void onResponse(int statusCode) {
+    if (statusCode == STATUS_TOO_MANY_REQUESTS) {
+      limit = Math.max(MIN_LIMIT, limit / 2);
+      tokens = 0;
+      throttledCount++;
+    } else {
+      limit = Math.min(MAX_LIMIT, limit + 1 / limit);
+    }
+    notifyAll();
+  }
+
+  /**
+   * Returns the number of requests that may currently be in flight.
+   *
+   * @return An {@link Integer} with the limit.
+   */
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  /**
+   * Returns the number of requests in flight.
+   *
+   * @return An {@link Integer} with the number of requests.
+   */
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Returns the number of times the API replied with {@code 429 Too Many Requests}.
+   *
+   * @return A {@link Long} with the number of responses.
+   */
+  public synchronized long getThrottledCount() {
+    return throttledCount;
+  }
+
+  /**
+   * Returns the number of requests that gave up waiting for a token or a slot.
+   *
+   * @return A {@link Long} with the number of requests.
+   */
+  public synchronized long getDeferredCount() {
+    return deferredCount;
+  }
+
+  /**
+   * Waits for a token or a slot. The {@link CancellationSignal} wakes the waiting thread, and its
+   * listener is set outside the lock, since a cancel in progress holds up {@link
+   * CancellationSignal#setOnCancelListener(CancellationSignal.OnCancelListener)}.
+   */
+  private boolean await(Priority priority, @Nullable CancellationSignal signal, long maxWait,
+      boolean isToken) {
+    if (signal != null) {
+      signal.setOnCancelListener(this::wakeUp);
+    }
+    try {
+      return awaitLocked(priority, signal, maxWait, isToken);
+    } finally {
+      if (signal != null) {
+        signal.setOnCancelListener(null);
+      }
+    }
+  }
+
+  /**
+   * Waits for a token or a slot while holding the lock.
+   */
+  private synchronized boolean awaitLocked(Priority priority, @Nullable CancellationSignal signal,
+      long maxWait, boolean isToken) {
+    boolean isUser = priority == Priority.USER;
+    long deadline = System.nanoTime() + maxWait * 1000000;
+    if (isUser) {
+      waitingUsers++;
+    }
+    try {
+      while (true) {
+        if (signal != null) {
+          signal.throwIfCanceled();
+        }
+        refill();
+        if (isToken ? tryTakeToken(isUser) : tryAcquire(isUser)) {
+          return true;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          deferredCount++;
+          return false;
+        }
+        if (isToken) {
+          // Wake up when the next token is due
+          remaining = Math.min(remaining, (long) ((1 - tokens % 1) / TOKENS_PER_NANO) + 1);
+        }
+        wait(Math.max(1, remaining / 1000000));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OperationCanceledException();
+    } finally {
+      if (isUser) {
+        waitingUsers--;
+        // A waiting user may have held back prefetch requests
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Takes a token if the priority allows it.
+   */
+  private boolean tryTakeToken(boolean isUser) {
+    double needed = isUser ? 1 : 1 + RESERVED_TOKENS;
+    if ((!isUser && waitingUsers > 0) || tokens < needed) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+
+  /**
+   * Acquires a slot if the priority allows it; a prefetch request may still run alone when the
+   * limit has dropped to a single request, so prefetching doesn't stop altogether.
+   */
+  private boolean tryAcquire(boolean isUser) {
+    int slots = (int) limit;
+    boolean isAllowed = isUser ? inFlight < slots
+        : waitingUsers == 0 && (inFlight == 0 || inFlight < slots - 1);
+    if (isAllowed) {
+      inFlight++;
+    }
+    return isAllowed;
+  }
+
+  /**
+   * Adds the tokens earned since the last refill, up to the burst size.
+   */
+  private void refill() {
+    long now = System.nanoTime();
+    tokens = Math.min(BURST, tokens + (now - refilledAt) * TOKENS_PER_NANO);
+    refilledAt = now;
+  }
+
+  /**
+   * Wakes the threads that wait for a token or a slot, e.g. when a request is cancelled.
+   */
+  private synchronized void wakeUp() {
+    notifyAll();
+  }
+}
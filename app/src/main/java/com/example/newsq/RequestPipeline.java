@@ -0,0 +1,198 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The state that API requests share with the other requests of their pipeline: the {@link
+ * RequestLimiter} of the quota, the {@link CircuitBreaker} of the API, the {@link ResponseCache},
+ * and the running requests that identical requests are coalesced with.
+ * <p>
+ * The screens send their requests through the pipeline of {@link QueryUtils}. A tool that sends
+ * requests of its own, e.g. the load harness of debug builds, builds a separate pipeline, so its
+ * requests neither use up the quota of the screens nor trip their circuit.
+ */
+public final class RequestPipeline {
+
+  private final CircuitBreaker CIRCUIT_BREAKER;
+  private final boolean IS_INDEXED;
+  private final SingleFlight<FetchResult> FETCH_FLIGHTS = new SingleFlight<>();
+  private final AtomicLong RETRY_COUNT = new AtomicLong();
+  private volatile RequestLimiter requestLimiter;
+  private volatile ResponseCache responseCache;
+
+  /**
+   * Private constructor; use {@link Builder}.
+   *
+   * @param builder The {@link Builder} with the state of the pipeline.
+   */
+  private RequestPipeline(Builder builder) {
+    this.CIRCUIT_BREAKER = builder.circuitBreaker;
+    this.IS_INDEXED = builder.isIndexed;
+    this.requestLimiter = builder.requestLimiter;
+    this.responseCache = builder.responseCache;
+  }
+
+  /**
+   * Returns the {@link RequestLimiter} that keeps the requests within their quota.
+   *
+   * @return The {@link RequestLimiter} of the pipeline.
+   */
+  @NonNull
+  public RequestLimiter getRequestLimiter() {
+    return requestLimiter;
+  }
+
+  /**
+   * Sets the {@link RequestLimiter} that keeps the requests within their quota; requests that
+   * already hold a slot give it back to the previous limiter.
+   *
+   * @param limiter A {@link RequestLimiter} instance.
+   */
+  public void setRequestLimiter(@NonNull RequestLimiter limiter) {
+    requestLimiter = limiter;
+  }
+
+  /**
+   * Returns the {@link CircuitBreaker} that stops the requests while the API is down.
+   *
+   * @return The {@link CircuitBreaker} of the pipeline.
+   */
+  @NonNull
+  public CircuitBreaker getCircuitBreaker() {
+    return CIRCUIT_BREAKER;
+  }
+
+  /**
+   * Returns the {@link ResponseCache} of the requests.
+   *
+   * @return The {@link ResponseCache} instance, or null if responses aren't cached.
+   */
+  @Nullable
+  public ResponseCache getResponseCache() {
+    return responseCache;
+  }
+
+  /**
+   * Sets the {@link ResponseCache} of the requests.
+   *
+   * @param cache A {@link ResponseCache} instance, or null to disable caching.
+   */
+  public void setResponseCache(@Nullable ResponseCache cache) {
+    responseCache = cache;
+  }
+
+  /**
+   * Returns a {@link Boolean} to indicate if the stories of successful requests are added to the
+   * {@link StoryIndex}.
+   *
+   * @return A {@link Boolean} value of true if stories are indexed, and false if they aren't.
+   */
+  public boolean isIndexed() {
+    return IS_INDEXED;
+  }
+
+  /**
+   * Returns the {@link SingleFlight} that coalesces identical requests of the pipeline.
+   *
+   * @return The {@link SingleFlight} of the pipeline.
+   */
+  @NonNull
+  SingleFlight<FetchResult> getFetchFlights() {
+    return FETCH_FLIGHTS;
+  }
+
+  /**
+   * Records a request that is sent again after a transient failure.
+   */
+  void recordRetry() {
+    RETRY_COUNT.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of times a request of the pipeline was sent again after a transient
+   * failure.
+   *
+   * @return A {@link Long} with the number of retries.
+   */
+  public long getRetryCount() {
+    return RETRY_COUNT.get();
+  }
+
+  /**
+   * Builds a {@link RequestPipeline}. By default the pipeline has the {@link RequestLimiter} and
+   * {@link CircuitBreaker} defaults, no {@link ResponseCache}, and doesn't index its stories.
+   */
+  public static final class Builder {
+
+    private RequestLimiter requestLimiter;
+    private CircuitBreaker circuitBreaker;
+    private ResponseCache responseCache;
+    private boolean isIndexed;
+
+    /**
+     * Sets the {@link RequestLimiter} of the pipeline.
+     *
+     * @param limiter A {@link RequestLimiter} instance.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder setRequestLimiter(@NonNull RequestLimiter limiter) {
+      this.requestLimiter = limiter;
+      return this;
+    }
+
+    /**
+     * Sets the {@link CircuitBreaker} of the pipeline.
+     *
+     * @param breaker A {@link CircuitBreaker} instance.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder setCircuitBreaker(@NonNull CircuitBreaker breaker) {
+      this.circuitBreaker = breaker;
+      return this;
+    }
+
+    /**
+     * Sets the {@link ResponseCache} of the pipeline.
+     *
+     * @param cache A {@link ResponseCache} instance, or null to disable caching.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder setResponseCache(@Nullable ResponseCache cache) {
+      this.responseCache = cache;
+      return this;
+    }
+
+    /**
+     * Sets whether the stories of successful requests are added to the {@link StoryIndex}.
+     *
+     * @param indexed A {@link Boolean} value of true to index the stories.
+     * @return This {@link Builder}.
+     */
+    @NonNull
+    public Builder setIndexed(boolean indexed) {
+      this.isIndexed = indexed;
+      return this;
+    }
+
+    /**
+     * Returns a new {@link RequestPipeline} with the state of this builder.
+     *
+     * @return A {@link RequestPipeline} instance.
+     */
+    @NonNull
+    public RequestPipeline build() {
+      if (requestLimiter == null) {
+        requestLimiter = new RequestLimiter();
+      }
+      if (circuitBreaker == null) {
+        circuitBreaker = new CircuitBreaker();
+      }
+      return new RequestPipeline(this);
+    }
+  }
+}
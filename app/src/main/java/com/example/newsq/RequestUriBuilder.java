@@ -0,0 +1,192 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Builds the url of an API request with the same calls and the same encoding as {@code
+ * android.net.Uri.Builder}, but without the Android framework and without creating a {@code Uri}
+ * that is only converted back into a {@link String}.
+ * <p>
+ * Path segments, query parameter names and values are percent-encoded as UTF-8 bytes, and only
+ * letters, digits and {@code _-!.~'()*} are left as they are. The authority also keeps {@code @}
+ * and {@code :}, so a host with a port can be used.
+ */
+public final class RequestUriBuilder {
+
+  static final String PARAM_API_KEY = "api-key";
+
+  private static final String KEY_SCHEME = "scheme";
+  private static final String KEY_AUTHORITY = "authority";
+  private static final String KEY_PATH = "path";
+  private static final String UNRESERVED_CHARACTERS = "_-!.~'()*";
+  private static final String AUTHORITY_CHARACTERS = "@:";
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  private final StringBuilder PATH = new StringBuilder();
+  private final StringBuilder QUERY = new StringBuilder();
+  private String scheme;
+  private String authority;
+
+  /**
+   * Returns the url of an API request built from a {@link Map} of url segments and query
+   * parameters, with the API key appended as the last parameter.
+   * <p>
+   * Called by: {@link QueryUtils#createUri(Map)}
+   *
+   * @param uriSegments A {@link Map} with a {@code scheme}, {@code authority} and {@code path}
+   *                    and any number of query parameters.
+   * @param apiKey      A {@link String} that contains the API key.
+   * @return A {@link String} that contains the url.
+   */
+  @NonNull
+  public static String createUri(@NonNull Map<String, String> uriSegments,
+      @NonNull String apiKey) {
+    RequestUriBuilder builder = new RequestUriBuilder();
+    for (Map.Entry<String, String> parametersEntry : uriSegments.entrySet()) {
+      String key = parametersEntry.getKey();
+      switch (key) {
+        case KEY_SCHEME:
+          builder.scheme(parametersEntry.getValue());
+          break;
+        case KEY_AUTHORITY:
+          builder.authority(parametersEntry.getValue());
+          break;
+        case KEY_PATH:
+          builder.appendPath(parametersEntry.getValue());
+          break;
+        default:
+          builder.appendQueryParameter(key, parametersEntry.getValue());
+          break;
+      }
+    }
+    builder.appendQueryParameter(PARAM_API_KEY, apiKey);
+    return builder.build();
+  }
+
+  /**
+   * Sets the scheme, e.g. {@code https}.
+   *
+   * @param scheme A {@link String} that contains the scheme.
+   * @return This {@link RequestUriBuilder}.
+   */
+  @NonNull
+  public RequestUriBuilder scheme(String scheme) {
+    this.scheme = scheme;
+    return this;
+  }
+
+  /**
+   * Sets the authority, e.g. a host name.
+   *
+   * @param authority A {@link String} that contains the authority.
+   * @return This {@link RequestUriBuilder}.
+   */
+  @NonNull
+  public RequestUriBuilder authority(String authority) {
+    this.authority = authority;
+    return this;
+  }
+
+  /**
+   * Encodes a path segment and appends it to the path.
+   *
+   * @param segment A {@link String} that contains the segment.
+   * @return This {@link RequestUriBuilder}.
+   */
+  @NonNull
+  public RequestUriBuilder appendPath(@NonNull String segment) {
+    PATH.append('/');
+    encode(segment, "", PATH);
+    return this;
+  }
+
+  /**
+   * Encodes a query parameter and appends it to the query.
+   *
+   * @param key   A {@link String} that contains the name of the parameter.
+   * @param value A {@link String} that contains the value of the parameter.
+   * @return This {@link RequestUriBuilder}.
+   */
+  @NonNull
+  public RequestUriBuilder appendQueryParameter(@NonNull String key, @NonNull String value) {
+    if (QUERY.length() > 0) {
+      QUERY.append('&');
+    }
+    encode(key, "", QUERY);
+    QUERY.append('=');
+    encode(value, "", QUERY);
+    return this;
+  }
+
+  /**
+   * Returns the url that was built.
+   *
+   * @return A {@link String} that contains the url.
+   */
+  @NonNull
+  public String build() {
+    StringBuilder builder = new StringBuilder();
+    if (scheme != null) {
+      builder.append(scheme).append(':');
+    }
+    if (authority != null) {
+      builder.append("//");
+      encode(authority, AUTHORITY_CHARACTERS, builder);
+    }
+    builder.append(PATH);
+    if (QUERY.length() > 0) {
+      builder.append('?').append(QUERY);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Appends a percent-encoded copy of a {@link String} to a {@link StringBuilder}.
+   *
+   * @param value   A {@link String} to encode.
+   * @param allowed A {@link String} of additional characters that aren't encoded.
+   * @param builder The {@link StringBuilder} that receives the encoded value.
+   */
+  private static void encode(String value, String allowed, StringBuilder builder) {
+    int length = value.length();
+    int start = 0;
+    while (start < length) {
+      int end = start;
+      while (end < length && isAllowed(value.charAt(end), allowed)) {
+        end++;
+      }
+      builder.append(value, start, end);
+      if (end == length) {
+        return;
+      }
+      // Encodes the run of characters that aren't allowed in a single conversion
+      start = end;
+      while (end < length && !isAllowed(value.charAt(end), allowed)) {
+        end++;
+      }
+      for (byte character : value.substring(start, end).getBytes(StandardCharsets.UTF_8)) {
+        builder.append('%')
+            .append(HEX_DIGITS[(character & 0xf0) >> 4])
+            .append(HEX_DIGITS[character & 0x0f]);
+      }
+      start = end;
+    }
+  }
+
+  /**
+   * Returns a {@link Boolean} to indicate if a character is left as it is.
+   *
+   * @param character The character to check.
+   * @param allowed   A {@link String} of additional characters that aren't encoded.
+   * @return A {@link Boolean} value of true if the character isn't encoded, and false otherwise.
+   */
+  private static boolean isAllowed(char character, String allowed) {
+    return character >= 'a' && character <= 'z'
+        || character >= 'A' && character <= 'Z'
+        || character >= '0' && character <= '9'
+        || UNRESERVED_CHARACTERS.indexOf(character) != -1
+        || allowed.indexOf(character) != -1;
+  }
+}
@@ -0,0 +1,527 @@
+package com.example.newsq;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded, disk-backed cache for API responses. Each entry holds the response body and the
+ * validators ({@code ETag} and {@code Last-Modified}) needed for conditional requests. Entries are
+ * keyed by the canonical request url (see {@link QueryUtils#canonicalizeUrl(String)}) and the least
+ * recently used entries are evicted once the cache grows past its maximum size.
+ */
+public class ResponseCache {
+
+  private static final String LOG_TAG = ResponseCache.class.getSimpleName();
+  private static final String BODY_SUFFIX = ".body";
+  private static final String META_SUFFIX = ".meta";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final String META_KEY = "key";
+  private static final String META_ETAG = "etag";
+  private static final String META_LAST_MODIFIED = "lastModified";
+  private static final String META_EXPIRES = "expires";
+
+  private final File DIRECTORY;
+  private final long MAX_SIZE;
+  private final LinkedHashMap<String, Long> ENTRY_SIZES = new LinkedHashMap<>(16, 0.75f, true);
+  private final AtomicInteger HIT_COUNT = new AtomicInteger();
+  private final AtomicInteger MISS_COUNT = new AtomicInteger();
+  private final AtomicInteger REVALIDATION_COUNT = new AtomicInteger();
+  private long size;
+  private boolean loaded;
+
+  /**
+   * Creates a new {@link ResponseCache} that stores its entries in the given directory. The
+   * existing entries are read on first use, so the cache can be created on the main thread.
+   *
+   * @param directory The {@link File} directory for cached responses.
+   * @param maxSize   The maximum size of all cached response bodies, in bytes.
+   */
+  public ResponseCache(@NonNull File directory, long maxSize) {
+    this.DIRECTORY = directory;
+    this.MAX_SIZE = maxSize;
+  }
+
+  /**
+   * Reads the existing entries from the cache directory if they haven't been read yet.
+   * <p>
+   * Calls: {@link #loadEntries()}
+   */
+  private synchronized void ensureLoaded() {
+    if (!loaded) {
+      loaded = true;
+      loadEntries();
+    }
+  }
+
+  /**
+   * Reads the existing entries from the cache directory in order of last use.
+   */
+  private void loadEntries() {
+    if (!DIRECTORY.isDirectory() && !DIRECTORY.mkdirs()) {
+      Log.e(LOG_TAG, "Unable to create the response cache directory.");
+      return;
+    }
+    File[] files = DIRECTORY.listFiles();
+    if (files == null) {
+      return;
+    }
+    Arrays.sort(files, (first, second) -> Long.compare(first.lastModified(),
+        second.lastModified()));
+    for (File file : files) {
+      String name = file.getName();
+      if (name.endsWith(BODY_SUFFIX)) {
+        String entryName = name.substring(0, name.length() - BODY_SUFFIX.length());
+        ENTRY_SIZES.put(entryName, file.length());
+        size += file.length();
+      } else if (name.endsWith(TEMP_SUFFIX)) {
+        deleteFile(file);
+      }
+    }
+    trimToSize();
+  }
+
+  /**
+   * Returns the cached {@link Entry} for the given key, or null if the response isn't cached.
+   *
+   * @param key A {@link String} that contains a canonical request url.
+   * @return The cached {@link Entry}, or null if there isn't one.
+   */
+  @Nullable
+  public synchronized Entry get(@NonNull String key) {
+    ensureLoaded();
+    String entryName = getEntryName(key);
+    // Unlike containsKey, get moves the entry to the end of the access order
+    if (ENTRY_SIZES.get(entryName) == null) {
+      return null;
+    }
+    Properties metadata = readMetadata(entryName);
+    if (metadata == null || !key.equals(metadata.getProperty(META_KEY))) {
+      // The entry can't be used, so it shouldn't keep taking up space either
+      removeEntry(entryName);
+      return null;
+    }
+    File body = new File(DIRECTORY, entryName + BODY_SUFFIX);
+    if (!body.setLastModified(System.currentTimeMillis())) {
+      Log.w(LOG_TAG, "Unable to update the last use of a cached response.");
+    }
+    long expiresAt = parseLong(metadata.getProperty(META_EXPIRES));
+    return new Entry(body, metadata.getProperty(META_ETAG),
+        metadata.getProperty(META_LAST_MODIFIED), expiresAt);
+  }
+
+  /**
+   * Starts writing a new response body to the cache.
+   *
+   * @param key          A {@link String} that contains a canonical request url.
+   * @param eTag         The {@code ETag} header of the response, or null.
+   * @param lastModified The {@code Last-Modified} header of the response, or null.
+   * @param expiresAt    The time the response expires, in milliseconds since the epoch.
+   * @return An {@link Editor} for the new entry, or null if the entry can't be created.
+   */
+  @Nullable
+  public Editor edit(@NonNull String key, @Nullable String eTag, @Nullable String lastModified,
+      long expiresAt) {
+    ensureLoaded();
+    try {
+      File tempFile = File.createTempFile(getEntryName(key), TEMP_SUFFIX, DIRECTORY);
+      return new Editor(key, eTag, lastModified, expiresAt, tempFile);
+    } catch (IOException e) {
+      Log.e(LOG_TAG, "Unable to create a cache entry.", e);
+      return null;
+    }
+  }
+
+  /**
+   * Updates the expiry time of a cached response after it was revalidated by the server.
+   *
+   * @param key       A {@link String} that contains a canonical request url.
+   * @param entry     The revalidated {@link Entry}.
+   * @param expiresAt The new time the response expires, in milliseconds since the epoch.
+   */
+  public synchronized void refresh(@NonNull String key, @NonNull Entry entry, long expiresAt) {
+    writeMetadata(getEntryName(key), key, entry.getETag(), entry.getLastModified(), expiresAt);
+  }
+
+  /**
+   * Records a response served from the cache.
+   */
+  public void recordHit() {
+    HIT_COUNT.incrementAndGet();
+  }
+
+  /**
+   * Records a response that was downloaded in full.
+   */
+  public void recordMiss() {
+    MISS_COUNT.incrementAndGet();
+  }
+
+  /**
+   * Records a conditional request sent to revalidate a cached response.
+   */
+  public void recordRevalidation() {
+    REVALIDATION_COUNT.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of responses served from the cache, including responses that were
+   * revalidated with the server.
+   *
+   * @return An {@link Integer} with the number of cache hits.
+   */
+  public int getHitCount() {
+    return HIT_COUNT.get();
+  }
+
+  /**
+   * Returns the number of responses that were downloaded in full.
+   *
+   * @return An {@link Integer} with the number of cache misses.
+   */
+  public int getMissCount() {
+    return MISS_COUNT.get();
+  }
+
+  /**
+   * Returns the number of conditional requests sent to revalidate cached responses.
+   *
+   * @return An {@link Integer} with the number of revalidations.
+   */
+  public int getRevalidationCount() {
+    return REVALIDATION_COUNT.get();
+  }
+
+  /**
+   * Returns the current size of all cached response bodies.
+   *
+   * @return A {@link Long} with the size of the cache, in bytes.
+   */
+  public synchronized long getSize() {
+    ensureLoaded();
+    return size;
+  }
+
+  /**
+   * Moves a completed response body into the cache and evicts the least recently used entries if
+   * the cache is over its maximum size.
+   */
+  private synchronized void commitEntry(String key, String eTag, String lastModified,
+      long expiresAt, File tempFile) {
+    ensureLoaded();
+    String entryName = getEntryName(key);
+    File body = new File(DIRECTORY, entryName + BODY_SUFFIX);
+    Long previousSize = ENTRY_SIZES.remove(entryName);
+    if (previousSize != null) {
+      size -= previousSize;
+    }
+    if (!tempFile.renameTo(body)) {
+      Log.e(LOG_TAG, "Unable to store a cached response.");
+      deleteFile(tempFile);
+      deleteFile(new File(DIRECTORY, entryName + META_SUFFIX));
+      return;
+    }
+    writeMetadata(entryName, key, eTag, lastModified, expiresAt);
+    ENTRY_SIZES.put(entryName, body.length());
+    size += body.length();
+    trimToSize();
+  }
+
+  /**
+   * Evicts the least recently used entries until the cache is within its maximum size.
+   */
+  private void trimToSize() {
+    Iterator<Map.Entry<String, Long>> iterator = ENTRY_SIZES.entrySet().iterator();
+    while (size > MAX_SIZE && iterator.hasNext()) {
+      Map.Entry<String, Long> eldest = iterator.next();
+      deleteFile(new File(DIRECTORY, eldest.getKey() + BODY_SUFFIX));
+      deleteFile(new File(DIRECTORY, eldest.getKey() + META_SUFFIX));
+      size -= eldest.getValue();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Removes an entry from the cache and deletes its files.
+   *
+   * @param entryName A {@link String} with the file name of the entry.
+   */
+  private void removeEntry(String entryName) {
+    Long entrySize = ENTRY_SIZES.remove(entryName);
+    if (entrySize != null) {
+      size -= entrySize;
+    }
+    deleteFile(new File(DIRECTORY, entryName + BODY_SUFFIX));
+    deleteFile(new File(DIRECTORY, entryName + META_SUFFIX));
+  }
+
+  /**
+   * Reads the metadata of a cached response.
+   *
+   * @param entryName A {@link String} with the file name of the entry.
+   * @return The {@link Properties} of the entry, or null if they can't be read.
+   */
+  @Nullable
+  private Properties readMetadata(String entryName) {
+    Properties metadata = new Properties();
+    try (InputStream in = new FileInputStream(new File(DIRECTORY, entryName + META_SUFFIX))) {
+      metadata.load(in);
+    } catch (IOException e) {
+      Log.e(LOG_TAG, "Unable to read a cached response.", e);
+      return null;
+    }
+    return metadata;
+  }
+
+  /**
+   * Writes the metadata of a cached response.
+   */
+  private void writeMetadata(String entryName, String key, String eTag, String lastModified,
+      long expiresAt) {
+    Properties metadata = new Properties();
+    metadata.setProperty(META_KEY, key);
+    metadata.setProperty(META_EXPIRES, String.valueOf(expiresAt));
+    if (eTag != null) {
+      metadata.setProperty(META_ETAG, eTag);
+    }
+    if (lastModified != null) {
+      metadata.setProperty(META_LAST_MODIFIED, lastModified);
+    }
+    try (OutputStream out = new FileOutputStream(new File(DIRECTORY, entryName + META_SUFFIX))) {
+      metadata.store(out, null);
+    } catch (IOException e) {
+      Log.e(LOG_TAG, "Unable to write a cached response.", e);
+    }
+  }
+
+  /**
+   * Returns the file name used for the given key.
+   *
+   * @param key A {@link String} that contains a canonical request url.
+   * @return A {@link String} with the hexadecimal SHA-1 hash of the key.
+   */
+  private static String getEntryName(String key) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-1")
+          .digest(key.getBytes(StandardCharsets.UTF_8));
+      StringBuilder builder = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        builder.append(String.format("%02x", b));
+      }
+      return builder.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Parses a {@link Long} value, or returns zero if the value can't be parsed.
+   */
+  private static long parseLong(String value) {
+    try {
+      return value != null ? Long.parseLong(value) : 0;
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Deletes the given file and logs a warning if it can't be deleted.
+   */
+  private static void deleteFile(File file) {
+    if (file.exists() && !file.delete()) {
+      Log.w(LOG_TAG, "Unable to delete " + file.getName());
+    }
+  }
+
+  /**
+   * A cached response body and its validators.
+   */
+  public static final class Entry {
+
+    private final File BODY;
+    private final String ETAG;
+    private final String LAST_MODIFIED;
+    private final long EXPIRES_AT;
+
+    private Entry(File body, String eTag, String lastModified, long expiresAt) {
+      this.BODY = body;
+      this.ETAG = eTag;
+      this.LAST_MODIFIED = lastModified;
+      this.EXPIRES_AT = expiresAt;
+    }
+
+    /**
+     * Opens the cached response body.
+     *
+     * @return An {@link InputStream} that reads the response body.
+     * @throws IOException if the body can't be opened.
+     */
+    @NonNull
+    public InputStream openBody() throws IOException {
+      return new FileInputStream(BODY);
+    }
+
+    /**
+     * Returns the {@code ETag} header of the cached response.
+     *
+     * @return A {@link String} with the entity tag, or null if the response had none.
+     */
+    @Nullable
+    public String getETag() {
+      return ETAG;
+    }
+
+    /**
+     * Returns the {@code Last-Modified} header of the cached response.
+     *
+     * @return A {@link String} with the date, or null if the response had none.
+     */
+    @Nullable
+    public String getLastModified() {
+      return LAST_MODIFIED;
+    }
+
+    /**
+     * Returns a {@link Boolean} to indicate if the response can be used without revalidation.
+     *
+     * @return A {@link Boolean} value of true if the response is fresh, and false if it isn't.
+     */
+    public boolean isFresh() {
+      return System.currentTimeMillis() < EXPIRES_AT;
+    }
+
+    /**
+     * Returns a {@link Boolean} to indicate if the response can be revalidated with the server.
+     *
+     * @return A {@link Boolean} value of true if the response has a validator, and false if it
+     * doesn't.
+     */
+    public boolean hasValidator() {
+      return ETAG != null || LAST_MODIFIED != null;
+    }
+  }
+
+  /**
+   * Writes a response body to the cache while it is read. The body is only added to the cache if
+   * {@link #commit()} is called after the response was read successfully.
+   */
+  public final class Editor {
+
+    private final String KEY;
+    private final String ETAG;
+    private final String LAST_MODIFIED;
+    private final long EXPIRES_AT;
+    private final File TEMP_FILE;
+    private InputStream source;
+    private OutputStream out;
+
+    private Editor(String key, String eTag, String lastModified, long expiresAt, File tempFile)
+        throws IOException {
+      this.KEY = key;
+      this.ETAG = eTag;
+      this.LAST_MODIFIED = lastModified;
+      this.EXPIRES_AT = expiresAt;
+      this.TEMP_FILE = tempFile;
+      this.out = new FileOutputStream(tempFile);
+    }
+
+    /**
+     * Returns an {@link InputStream} that copies everything read from the given stream into the
+     * cache. Closing the returned stream doesn't close the source; the source is closed by {@link
+     * #commit()} or {@link #abort()}.
+     *
+     * @param inputStream The {@link InputStream} of the response body.
+     * @return An {@link InputStream} that reads the response body.
+     */
+    @NonNull
+    public InputStream wrap(@NonNull InputStream inputStream) {
+      source = inputStream;
+      return new FilterInputStream(inputStream) {
+        @Override
+        public int read() throws IOException {
+          int b = super.read();
+          if (b != -1) {
+            out.write(b);
+          }
+          return b;
+        }
+
+        @Override
+        public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+          int count = super.read(buffer, offset, length);
+          if (count > 0) {
+            out.write(buffer, offset, count);
+          }
+          return count;
+        }
+
+        @Override
+        public void close() {
+          // The source is closed by commit or abort
+        }
+      };
+    }
+
+    /**
+     * Reads the rest of the response body and adds it to the cache.
+     */
+    public void commit() {
+      try {
+        if (source != null) {
+          byte[] buffer = new byte[8192];
+          int count;
+          while ((count = source.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+          }
+        }
+        close();
+        commitEntry(KEY, ETAG, LAST_MODIFIED, EXPIRES_AT, TEMP_FILE);
+      } catch (IOException e) {
+        Log.e(LOG_TAG, "Unable to finish a cached response.", e);
+        abort();
+      }
+    }
+
+    /**
+     * Discards the response body.
+     */
+    public void abort() {
+      try {
+        close();
+      } catch (IOException e) {
+        Log.w(LOG_TAG, "Unable to close a cached response.", e);
+      }
+      deleteFile(TEMP_FILE);
+    }
+
+    /**
+     * Closes the source and the cache file.
+     */
+    private void close() throws IOException {
+      try {
+        if (source != null) {
+          source.close();
+        }
+      } finally {
+        out.close();
+      }
+    }
+  }
+}
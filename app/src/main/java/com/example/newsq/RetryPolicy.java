@@ -0,0 +1,126 @@
+package com.example.newsq;
+
+import androidx.annotation.Nullable;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a failed API request is attempted again. Only idempotent GET requests
+ * are retried; the delay grows exponentially with each attempt and is jittered so clients that
+ * failed together don't retry together. A {@code Retry-After} header from the API is honored, and
+ * a request isn't retried if the API asks to wait longer than {@code maxRetryAfter}.
+ */
+public final class RetryPolicy {
+
+  private static final int DEFAULT_MAX_ATTEMPTS = 3;
+  private static final long DEFAULT_BASE_DELAY = 500;       // in milliseconds
+  private static final long DEFAULT_MAX_DELAY = 8000;       // in milliseconds
+  private static final long DEFAULT_MAX_RETRY_AFTER = 30000; // in milliseconds
+  private static final String HTTP_DATE_PATTERN = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+  private final int MAX_ATTEMPTS;
+  private final long BASE_DELAY;
+  private final long MAX_DELAY;
+  private final long MAX_RETRY_AFTER;
+
+  /**
+   * Creates a new {@link RetryPolicy} with the default attempts and delays.
+   */
+  public RetryPolicy() {
+    this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, DEFAULT_MAX_RETRY_AFTER);
+  }
+
+  /**
+   * Creates a new {@link RetryPolicy}.
+   *
+   * @param maxAttempts   The maximum number of attempts of a request, including the first one.
+   * @param baseDelay     The delay before the first retry in milliseconds, before jitter.
+   * @param maxDelay      The maximum delay between attempts in milliseconds, before jitter.
+   * @param maxRetryAfter The longest {@code Retry-After} delay in milliseconds that is waited for.
+   */
+  public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay, long maxRetryAfter) {
+    this.MAX_ATTEMPTS = maxAttempts;
+    this.BASE_DELAY = baseDelay;
+    this.MAX_DELAY = maxDelay;
+    this.MAX_RETRY_AFTER = maxRetryAfter;
+  }
+
+  /**
+   * Returns the maximum number of attempts of a request, including the first one.
+   *
+   * @return An {@link Integer} with the number of attempts.
+   */
+  public int getMaxAttempts() {
+    return MAX_ATTEMPTS;
+  }
+
+  /**
+   * Returns a {@link Boolean} to indicate if a response status is transient, i.e. the same request
+   * may succeed if it is sent again.
+   *
+   * @param statusCode An {@link Integer} with the HTTP status code.
+   * @return A {@link Boolean} value of true if the request should be retried, and false if not.
+   */
+  public static boolean isRetryable(int statusCode) {
+    switch (statusCode) {
+      case 408: // Request Timeout
+      case 429: // Too Many Requests
+      case 500: // Internal Server Error
+      case 502: // Bad Gateway
+      case 503: // Service Unavailable
+      case 504: // Gateway Timeout
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns the delay before the next attempt of a request. The exponential backoff is jittered
+   * between half and all of its value, and it is extended to the {@code Retry-After} delay if the
+   * API sent a longer one.
+   *
+   * @param attempt    An {@link Integer} with the number of the attempt that failed, from 1.
+   * @param retryAfter A {@link String} with the {@code Retry-After} header, or null.
+   * @return A {@link Long} with the delay in milliseconds, or -1 if the request shouldn't be
+   * retried because the API asked to wait too long.
+   */
+  public long getDelay(int attempt, @Nullable String retryAfter) {
+    long retryAfterDelay = parseRetryAfter(retryAfter, System.currentTimeMillis());
+    if (retryAfterDelay > MAX_RETRY_AFTER) {
+      return -1;
+    }
+    long backoff = Math.min(MAX_DELAY, BASE_DELAY << Math.min(attempt - 1, 30));
+    long jitteredBackoff = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    return Math.max(retryAfterDelay, jitteredBackoff);
+  }
+
+  /**
+   * Parses a {@code Retry-After} header, which is either a number of seconds or an HTTP date.
+   *
+   * @param retryAfter A {@link String} with the header value, or null.
+   * @param now        The current time in milliseconds since the epoch.
+   * @return A {@link Long} with the delay in milliseconds, or 0 if there is no valid header.
+   */
+  static long parseRetryAfter(@Nullable String retryAfter, long now) {
+    if (retryAfter == null || retryAfter.trim().isEmpty()) {
+      return 0;
+    }
+    retryAfter = retryAfter.trim();
+    try {
+      return Math.max(0, Long.parseLong(retryAfter) * 1000);
+    } catch (NumberFormatException e) {
+      // Not a number of seconds, so it should be a date
+    }
+    SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_PATTERN, Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    try {
+      return Math.max(0, format.parse(retryAfter).getTime() - now);
+    } catch (ParseException e) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A least recently used cache of search results keyed by normalized queries. Besides exact
+ * matches, it can return the results of a shorter query that the current query starts with,
+ * filtered to the stories that contain every term of the current query, so a refined query can
+ * be answered immediately while its own results load.
+ */
+public class SearchResultCache {
+
+  private static final int DEFAULT_MAX_ENTRIES = 20;
+  private static final long DEFAULT_TIME_TO_LIVE = 5 * 60 * 1000; // in milliseconds
+  private static SearchResultCache instance;
+
+  private final long TIME_TO_LIVE;
+  private final LinkedHashMap<String, CachedResults> ENTRIES;
+
+  /**
+   * Creates a new {@link SearchResultCache}.
+   *
+   * @param maxEntries The maximum number of queries kept in the cache.
+   * @param timeToLive The time cached results stay valid, in milliseconds.
+   */
+  public SearchResultCache(final int maxEntries, long timeToLive) {
+    this.TIME_TO_LIVE = timeToLive;
+    this.ENTRIES = new LinkedHashMap<String, CachedResults>(maxEntries, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedResults> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Returns the shared {@link SearchResultCache} with the default size and time to live.
+   *
+   * @return The shared {@link SearchResultCache} instance.
+   */
+  @NonNull
+  public static synchronized SearchResultCache getInstance() {
+    if (instance == null) {
+      instance = new SearchResultCache(DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE);
+    }
+    return instance;
+  }
+
+  /**
+   * Returns the normalized form of a query: trimmed, lower case, and with single spaces between
+   * terms.
+   *
+   * @param query A {@link String} that contains the user input.
+   * @return A {@link String} with the normalized query, or an empty string if the query is null.
+   */
+  @NonNull
+  public static String normalize(@Nullable String query) {
+    if (query == null) {
+      return "";
+    }
+    return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Returns the cached results of a query.
+   *
+   * @param query A {@link String} that contains a normalized query.
+   * @return A {@link List} of {@link StoryItem} objects, or null if the query isn't cached.
+   */
+  @Nullable
+  public synchronized List<StoryItem> get(@NonNull String query) {
+    CachedResults cachedResults = ENTRIES.get(query);
+    if (cachedResults == null) {
+      return null;
+    } else if (isExpired(cachedResults)) {
+      ENTRIES.remove(query);
+      return null;
+    }
+    return cachedResults.STORIES;
+  }
+
+  /**
+   * Returns the results of the longest cached query that the given query starts with, keeping
+   * only the stories that contain every term of the given query.
+   *
+   * @param query A {@link String} that contains a normalized query.
+   * @return A {@link List} of {@link StoryItem} objects, or null if no cached results match.
+   */
+  @Nullable
+  public synchronized List<StoryItem> getPrefixMatches(@NonNull String query) {
+    CachedResults prefixResults = null;
+    int prefixLength = 0;
+    for (Map.Entry<String, CachedResults> entry : ENTRIES.entrySet()) {
+      String cachedQuery = entry.getKey();
+      if (cachedQuery.length() > prefixLength && cachedQuery.length() < query.length()
+          && query.startsWith(cachedQuery) && !isExpired(entry.getValue())) {
+        prefixResults = entry.getValue();
+        prefixLength = cachedQuery.length();
+      }
+    }
+    if (prefixResults == null) {
+      return null;
+    }
+    String[] terms = query.split(" ");
+    List<StoryItem> matches = new ArrayList<>();
+    for (StoryItem story : prefixResults.STORIES) {
+      if (containsAllTerms(story, terms)) {
+        matches.add(story);
+      }
+    }
+    return matches.isEmpty() ? null : matches;
+  }
+
+  /**
+   * Adds the results of a query to the cache.
+   *
+   * @param query   A {@link String} that contains a normalized query.
+   * @param stories A {@link List} of {@link StoryItem} objects returned for the query.
+   */
+  public synchronized void put(@NonNull String query, @NonNull List<StoryItem> stories) {
+    ENTRIES.put(query, new CachedResults(new ArrayList<>(stories), System.currentTimeMillis()));
+  }
+
+  /**
+   * Returns a {@link Boolean} to indicate if cached results have outlived the time to live.
+   */
+  private boolean isExpired(CachedResults cachedResults) {
+    return System.currentTimeMillis() - cachedResults.CACHED_AT > TIME_TO_LIVE;
+  }
+
+  /**
+   * Returns a {@link Boolean} to indicate if the headline, trail text, or byline of a story
+   * contain every term.
+   */
+  private static boolean containsAllTerms(StoryItem story, String[] terms) {
+    String text = (story.getHeadline() + " " + story.getTrailText() + " " + story.getByline())
+        .toLowerCase(Locale.ROOT);
+    for (String term : terms) {
+      if (!text.contains(term)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The cached results of a query and the time they were cached.
+   */
+  private static final class CachedResults {
+
+    private final List<StoryItem> STORIES;
+    private final long CACHED_AT;
+
+    private CachedResults(List<StoryItem> stories, long cachedAt) {
+      this.STORIES = stories;
+      this.CACHED_AT = cachedAt;
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package com.example.newsq;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches news sections in the background before they are selected, so the {@link
+ * com.example.newsq.ui.browse.BrowseFragment BrowseFragment} can display them without waiting for
+ * the API. At most {@code maxConcurrency} sections are fetched at the same time, and successful
+ * results are kept in memory until they are older than their time to live. Sections that were
+ * saved in the {@link StoryStore} recently aren't fetched again.
+ */
+public class SectionPrefetcher {
+
+  private static final String LOG_TAG = SectionPrefetcher.class.getSimpleName();
+  private static final int DEFAULT_MAX_CONCURRENCY = 4;
+  private static final long DEFAULT_TIME_TO_LIVE = 5 * 60 * 1000; // in milliseconds
+  private static final long THREAD_KEEP_ALIVE = 30;                // in seconds
+  private static SectionPrefetcher instance;
+
+  private final long TIME_TO_LIVE;
+  private final ThreadPoolExecutor EXECUTOR;
+  private final Map<String, FetchResult> CACHE = new ConcurrentHashMap<>();
+  private final Map<String, CancellationSignal> IN_FLIGHT = new ConcurrentHashMap<>();
+  private final Map<String, Long> SECTION_TIMES = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new {@link SectionPrefetcher}.
+   *
+   * @param maxConcurrency The maximum number of sections fetched at the same time.
+   * @param timeToLive     The age in milliseconds until which a prefetched result stays valid.
+   */
+  public SectionPrefetcher(int maxConcurrency, long timeToLive) {
+    this.TIME_TO_LIVE = timeToLive;
+    this.EXECUTOR = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, THREAD_KEEP_ALIVE,
+        TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    this.EXECUTOR.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Returns the shared {@link SectionPrefetcher} with the default concurrency and time to live.
+   *
+   * @return The shared {@link SectionPrefetcher} instance.
+   */
+  @NonNull
+  public static synchronized SectionPrefetcher getInstance() {
+    if (instance == null) {
+      instance = new SectionPrefetcher(DEFAULT_MAX_CONCURRENCY, DEFAULT_TIME_TO_LIVE);
+    }
+    return instance;
+  }
+
+  /**
+   * Starts fetching the given sections; sections that are already cached or being fetched are
+   * skipped, and so are sections whose stored stories aren't older than {@code staleAfter}.
+   *
+   * @param context     Any {@link Context}; the application context is used to read the {@link
+   *                    StoryStore}.
+   * @param sectionUrls A {@link Map} of section names and the urls used to request them.
+   * @param staleAfter  The age in milliseconds after which stored stories are fetched again.
+   */
+  public void prefetch(@NonNull Context context, @NonNull Map<String, String> sectionUrls,
+      long staleAfter) {
+    Context applicationContext = context.getApplicationContext();
+    for (Map.Entry<String, String> sectionUrl : sectionUrls.entrySet()) {
+      String section = sectionUrl.getKey();
+      String url = sectionUrl.getValue();
+      if (url == null || getCachedResult(url) != null) {
+        continue;
+      }
+      CancellationSignal signal = new CancellationSignal();
+      if (IN_FLIGHT.putIfAbsent(url, signal) == null) {
+        EXECUTOR.execute(() -> fetchSection(applicationContext, section, url, staleAfter,
+            signal));
+      }
+    }
+  }
+
+  /**
+   * Fetches a single section unless its stored stories are fresh, and caches the result if it is
+   * successful.
+   *
+   * @param context    The application {@link Context}.
+   * @param section    A {@link String} with the name of the section.
+   * @param url        A {@link String} that contains the url of the section.
+   * @param staleAfter The age in milliseconds after which stored stories are fetched again.
+   * @param signal     The {@link CancellationSignal} of the section.
+   */
+  private void fetchSection(Context context, String section, String url, long staleAfter,
+      CancellationSignal signal) {
+    try {
+      if (signal.isCanceled()) {
+        return;
+      }
+      long updatedAt = StoryStore.getInstance(context)
+          .getFeedUpdateTime(QueryUtils.canonicalizeUrl(url));
+      if (updatedAt >= 0 && System.currentTimeMillis() - updatedAt <= staleAfter) {
+        // The repository displays the stored stories without contacting the API
+        return;
+      }
+      FetchResult result = QueryUtils.fetchNews(url, signal, RequestLimiter.Priority.PREFETCH);
+      if (result.isSuccessful()) {
+        SECTION_TIMES.put(section, result.getTotalTime());
+        put(url, result);
+      } else if (result.getErrorKind() != FetchResult.ErrorKind.CANCELLED) {
+        SECTION_TIMES.put(section, result.getTotalTime());
+        Log.w(LOG_TAG, "Unable to prefetch " + section + ": " + result);
+      }
+    } finally {
+      IN_FLIGHT.remove(url, signal);
+    }
+  }
+
+  /**
+   * Returns the prefetched result for the given url if it is still valid.
+   *
+   * @param url A {@link String} that contains a url for an API request.
+   * @return The prefetched {@link FetchResult}, or null if there isn't a valid one.
+   */
+  @Nullable
+  public FetchResult getCachedResult(@Nullable String url) {
+    if (url == null) {
+      return null;
+    }
+    FetchResult result = CACHE.get(url);
+    if (result == null) {
+      return null;
+    } else if (result.getAge() > TIME_TO_LIVE) {
+      CACHE.remove(url, result);
+      return null;
+    }
+    return result;
+  }
+
+  /**
+   * Adds a successful result from the API to the cache; this lets results loaded on demand be
+   * reused as well. The result expires by the time it was fetched, not the time it was added.
+   * Results read from the {@link StoryStore} are ignored, since they may be older than the time to
+   * live and the store keeps them anyway.
+   *
+   * @param url    A {@link String} that contains the url of the request.
+   * @param result The {@link FetchResult} of the request.
+   */
+  public void put(@NonNull String url, @NonNull FetchResult result) {
+    if (result.isSuccessful() && !result.isFromStore() && result.getAge() <= TIME_TO_LIVE) {
+      CACHE.put(url, result);
+    }
+  }
+
+  /**
+   * Cancels every section that is waiting or being fetched, closing the connections of the
+   * sections being fetched; cached results are kept.
+   */
+  public void cancel() {
+    for (CancellationSignal signal : IN_FLIGHT.values()) {
+      signal.cancel();
+    }
+    IN_FLIGHT.clear();
+    EXECUTOR.getQueue().clear();
+  }
+
+  /**
+   * Returns the time each section took to fetch during its most recent prefetch.
+   *
+   * @return A {@link Map} of section names and fetch times in milliseconds.
+   */
+  @NonNull
+  public Map<String, Long> getSectionTimes() {
+    return new HashMap<>(SECTION_TIMES);
+  }
+}
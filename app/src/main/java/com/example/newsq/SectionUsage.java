@@ -0,0 +1,78 @@
+package com.example.newsq;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts how often each news section is selected in the {@link
+ * com.example.newsq.ui.browse.BrowseFragment BrowseFragment}, so the {@link WarmUpWorker} can
+ * download the sections the user reads most before they are opened.
+ */
+public class SectionUsage {
+
+  private static final String PREFERENCES_NAME = "section_usage";
+  private static SectionUsage instance;
+
+  private final SharedPreferences PREFERENCES;
+
+  /**
+   * Private constructor; use {@link #getInstance(Context)}.
+   *
+   * @param context The application {@link Context}.
+   */
+  private SectionUsage(Context context) {
+    this.PREFERENCES = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+  }
+
+  /**
+   * Returns the shared {@link SectionUsage}.
+   *
+   * @param context Any {@link Context}; the application context is retained.
+   * @return The shared {@link SectionUsage} instance.
+   */
+  @NonNull
+  public static synchronized SectionUsage getInstance(@NonNull Context context) {
+    if (instance == null) {
+      instance = new SectionUsage(context.getApplicationContext());
+    }
+    return instance;
+  }
+
+  /**
+   * Records a selection of a news section.
+   *
+   * @param section A {@link String} that contains an API section.
+   */
+  public synchronized void recordUse(@NonNull String section) {
+    PREFERENCES.edit().putInt(section, PREFERENCES.getInt(section, 0) + 1).apply();
+  }
+
+  /**
+   * Returns the most selected news sections.
+   *
+   * @param limit The maximum number of sections to return.
+   * @return A {@link List} of API sections, most selected first.
+   */
+  @NonNull
+  public List<String> getMostUsed(int limit) {
+    List<Map.Entry<String, ?>> counts = new ArrayList<>(PREFERENCES.getAll().entrySet());
+    Collections.sort(counts, (first, second) -> Integer.compare(getCount(second), getCount(first)));
+    List<String> sections = new ArrayList<>(Math.min(limit, counts.size()));
+    for (int i = 0; i < counts.size() && i < limit; i++) {
+      sections.add(counts.get(i).getKey());
+    }
+    return sections;
+  }
+
+  /**
+   * Returns the number of selections stored in a preference entry.
+   */
+  private static int getCount(Map.Entry<String, ?> entry) {
+    return entry.getValue() instanceof Integer ? (Integer) entry.getValue() : 0;
+  }
+}
@@ -0,0 +1,204 @@
+package com.example.newsq;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller starts the call, and callers that
+ * arrive while it is running wait for it and receive the same result instead of repeating the
+ * work. Calls that start after the result is returned run again.
+ * <p>
+ * A shared call receives its own {@link CancellationSignal}, which is only cancelled once every
+ * caller waiting for it has been cancelled. A caller that is cancelled returns at once, while the
+ * call keeps running for the others; calls run on a thread of their own so this holds for the
+ * caller that started the call as well.
+ *
+ * @param <T> The type of the result.
+ */
+public final class SingleFlight<T> {
+
+  /**
+   * Runs the calls of every {@link SingleFlight}; idle threads are stopped after a minute.
+   */
+  private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool();
+
+  private final ConcurrentHashMap<String, Flight<T>> IN_FLIGHT = new ConcurrentHashMap<>();
+  private final AtomicLong CALL_COUNT = new AtomicLong();
+  private final AtomicLong COALESCED_COUNT = new AtomicLong();
+
+  /**
+   * Runs the call, or waits for the call that is already running for the same key.
+   *
+   * @param key    A {@link String} that identifies identical calls, e.g. a canonical request url.
+   * @param signal The {@link CancellationSignal} of the caller, or null if it can't be cancelled.
+   * @param call   The {@link Call} to run if no identical call is running.
+   * @return The result of the call.
+   * @throws OperationCanceledException if the caller is cancelled before the call returns.
+   * @throws InterruptedException       if the thread is interrupted while waiting for the call.
+   */
+  public T execute(@NonNull String key, @Nullable CancellationSignal signal,
+      @NonNull Call<T> call) throws InterruptedException {
+    CALL_COUNT.incrementAndGet();
+    CountDownLatch released = new CountDownLatch(1);
+    Flight<T> flight = new Flight<>(call);
+    Flight<T> runningFlight;
+    // A flight that returned or that every caller already left is replaced by a new flight
+    while ((runningFlight = IN_FLIGHT.putIfAbsent(key, flight)) != null
+        && !runningFlight.join(released)) {
+      IN_FLIGHT.remove(key, runningFlight);
+    }
+    if (runningFlight == null) {
+      flight.join(released);
+      runningFlight = flight;
+      EXECUTOR.execute(() -> {
+        try {
+          flight.TASK.run();
+        } finally {
+          IN_FLIGHT.remove(key, flight);
+        }
+      });
+    } else {
+      COALESCED_COUNT.incrementAndGet();
+    }
+    Flight<T> joinedFlight = runningFlight;
+    if (signal != null) {
+      signal.setOnCancelListener(() -> joinedFlight.leave(released));
+    }
+    try {
+      released.await();
+      // A caller that left may be released just as the call returns, but still gets no result
+      if (signal != null) {
+        signal.throwIfCanceled();
+      }
+      if (!joinedFlight.TASK.isDone()) {
+        throw new OperationCanceledException();
+      }
+      return joinedFlight.TASK.get();
+    } catch (InterruptedException e) {
+      joinedFlight.leave(released);
+      throw e;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      if (signal != null) {
+        signal.setOnCancelListener(null);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of calls made to {@link #execute(String, CancellationSignal, Call)}.
+   *
+   * @return A {@link Long} with the number of calls.
+   */
+  public long getCallCount() {
+    return CALL_COUNT.get();
+  }
+
+  /**
+   * Returns the number of calls that received the result of a call that was already running.
+   *
+   * @return A {@link Long} with the number of coalesced calls.
+   */
+  public long getCoalescedCount() {
+    return COALESCED_COUNT.get();
+  }
+
+  /**
+   * A call that can be shared by several callers.
+   *
+   * @param <T> The type of the result.
+   */
+  public interface Call<T> {
+
+    /**
+     * Runs the call.
+     *
+     * @param signal The {@link CancellationSignal} that is cancelled once every caller waiting for
+     *               the call has been cancelled.
+     * @return The result of the call.
+     * @throws Exception if the call fails.
+     */
+    T call(@NonNull CancellationSignal signal) throws Exception;
+  }
+
+  /**
+   * A running call, its shared {@link CancellationSignal}, and the callers waiting for it. Each
+   * caller waits on a latch of its own, which is released when the call returns or when the
+   * caller leaves.
+   */
+  private static final class Flight<T> {
+
+    private final CancellationSignal SIGNAL = new CancellationSignal();
+    private final List<CountDownLatch> WAITERS = new ArrayList<>();
+    private final FutureTask<T> TASK;
+    private boolean isDone;
+
+    private Flight(Call<T> call) {
+      this.TASK = new FutureTask<T>(() -> call.call(SIGNAL)) {
+        @Override
+        protected void done() {
+          release();
+        }
+      };
+    }
+
+    /**
+     * Adds a caller to the flight.
+     *
+     * @param waiter The {@link CountDownLatch} the caller waits on.
+     * @return A {@link Boolean} value of true if the caller joined, and false if the flight was
+     * already cancelled or has returned.
+     */
+    private synchronized boolean join(CountDownLatch waiter) {
+      if (SIGNAL.isCanceled() || isDone) {
+        return false;
+      }
+      WAITERS.add(waiter);
+      return true;
+    }
+
+    /**
+     * Removes a cancelled caller from the flight and releases it, and cancels the flight if it
+     * was the last caller. A caller that already left or was released is ignored.
+     *
+     * @param waiter The {@link CountDownLatch} the caller waits on.
+     */
+    private synchronized void leave(CountDownLatch waiter) {
+      if (WAITERS.remove(waiter)) {
+        waiter.countDown();
+        if (WAITERS.isEmpty()) {
+          SIGNAL.cancel();
+        }
+      }
+    }
+
+    /**
+     * Releases every caller once the call has returned.
+     */
+    private synchronized void release() {
+      isDone = true;
+      for (CountDownLatch waiter : WAITERS) {
+        waiter.countDown();
+      }
+      WAITERS.clear();
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package com.example.newsq;
 
+import java.util.Objects;
+
 /**
  * A custom object class for news stories.
  */
@@ -11,6 +13,7 @@ public class Story {
   private final String headline;
   private final String byline;
   private final String trailText;
+  private final long publishedAt;
 
   /**
    * ArrayList constructor
@@ -31,6 +34,8 @@ public class Story {
     this.sectionName = sectionName;
     this.webPublicationDate = webPublicationDate;
     this.webUrl = webUrl;
+    // Parsed once while the story is ingested instead of every time it is displayed
+    this.publishedAt = IsoDateParser.parseEpochMillis(webPublicationDate);
   }
 
   /**
@@ -51,6 +56,16 @@ public class Story {
     return webPublicationDate;
   }
 
+  /**
+   * Returns the story's publication time.
+   *
+   * @return A {@link Long} with the time in milliseconds since the epoch, or {@link
+   * IsoDateParser#INVALID_TIME} if the publication date couldn't be parsed.
+   */
+  public long getPublishedAt() {
+    return publishedAt;
+  }
+
   /**
    * Returns a {@link String} with the story's web url.
    *
@@ -86,5 +101,33 @@ public class Story {
   public String getTrailText() {
     return trailText;
   }
+
+  /**
+   * Returns a {@link Boolean} to indicate if another object is a {@link Story} with the same
+   * content; stories with the same web url but different content aren't equal.
+   *
+   * @param object The {@link Object} to compare.
+   * @return A {@link Boolean} value of true if every attribute is equal, and false otherwise.
+   */
+  @Override
+  public boolean equals(Object object) {
+    if (this == object) {
+      return true;
+    } else if (!(object instanceof Story)) {
+      return false;
+    }
+    Story story = (Story) object;
+    return Objects.equals(webUrl, story.webUrl)
+        && Objects.equals(headline, story.headline)
+        && Objects.equals(byline, story.byline)
+        && Objects.equals(trailText, story.trailText)
+        && Objects.equals(sectionName, story.sectionName)
+        && Objects.equals(webPublicationDate, story.webPublicationDate);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(webUrl, headline, byline, trailText, sectionName, webPublicationDate);
+  }
 }
 
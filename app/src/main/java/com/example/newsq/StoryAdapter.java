@@ -5,136 +5,220 @@ import static com.example.newsq.R.layout.story_item;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
-import android.text.Html;
-import android.text.format.DateUtils;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.cardview.widget.CardView;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Locale;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
-import java.util.TimeZone;
 
 /**
- * A {@link RecyclerView.Adapter} subclass that formats and displays {@link Story} objects.
+ * A {@link RecyclerView.Adapter} subclass that displays {@link StoryItem} objects; the items are
+ * formatted before they reach the adapter, so binding only assigns their fields to the views.
+ * <p>
+ * The list is updated with an {@link AsyncListDiffer}: the differences between the old and new
+ * stories are computed on a background thread, and only the stories that were inserted, removed,
+ * or changed are rebound.
+ * <p>
+ * While the adapter is attached to a {@link RecyclerView}, the {@link RelativeTimeTicker} updates
+ * the publication dates of the visible stories each minute with a partial bind, so the rest of
+ * each card isn't rebound.
  */
 public class StoryAdapter extends RecyclerView.Adapter<StoryAdapter.StoryViewHolder> {
 
+  /**
+   * Identifies stories by their web url and compares their content with {@link
+   * StoryItem#equals}.
+   */
+  private static final DiffUtil.ItemCallback<StoryItem> DIFF_CALLBACK =
+      new DiffUtil.ItemCallback<StoryItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull StoryItem oldStory, @NonNull StoryItem newStory) {
+          return Objects.equals(oldStory.getWebUrl(), newStory.getWebUrl());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull StoryItem oldStory,
+            @NonNull StoryItem newStory) {
+          return oldStory.equals(newStory);
+        }
+      };
+
+  /**
+   * The payload of a partial bind that only updates the publication date.
+   */
+  private static final Object PAYLOAD_PUBLICATION_DATE = new Object();
+
   private final Context CONTEXT;
-  private final ArrayList<Story> STORIES;
+  private final RelativeTimeTicker.OnTickListener TICK_LISTENER = this::updateVisibleDates;
+  private RecyclerView recyclerView;
+  private final AsyncListDiffer<StoryItem> DIFFER = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+  private List<StoryItem> latestStories = Collections.emptyList();
+  private String screenName;
 
   /**
-   * {@link ArrayList} constructor.
+   * Creates an empty {@link StoryAdapter}; stories are added with {@link #submitStories(List)}.
    *
    * @param context The {@link Context} from the current {@link android.app.Activity}.
-   * @param stories An {@link ArrayList} of {@link Story} objects.
    */
-  public StoryAdapter(Context context, ArrayList<Story> stories) {
+  public StoryAdapter(Context context) {
     this.CONTEXT = context;
-    this.STORIES = stories;
+  }
+
+  /**
+   * {@link List} constructor.
+   *
+   * @param context The {@link Context} from the current {@link android.app.Activity}.
+   * @param stories A {@link List} of {@link StoryItem} objects.
+   */
+  public StoryAdapter(Context context, List<StoryItem> stories) {
+    this(context);
+    submitStories(stories);
+  }
+
+  /**
+   * Sets the name of the screen that displays the stories; bind times are recorded in {@link
+   * Metrics} for that screen.
+   *
+   * @param screenName A {@link String} with the name of the screen, or null.
+   */
+  public void setScreenName(@Nullable String screenName) {
+    this.screenName = screenName;
   }
 
   @NonNull
   @Override
   public StoryViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
     View view = LayoutInflater.from(parent.getContext()).inflate(story_item, parent, false);
-    return new StoryViewHolder(view);
+    StoryViewHolder holder = new StoryViewHolder(view);
+    holder.storyCard.setOnClickListener(card -> {
+      int position = holder.getBindingAdapterPosition();
+      if (position != RecyclerView.NO_POSITION) {
+        String webUrl = DIFFER.getCurrentList().get(position).getWebUrl();
+        CONTEXT.startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(webUrl)));
+      }
+    });
+    return holder;
   }
 
   @Override
   public void onBindViewHolder(@NonNull final StoryViewHolder holder, int position) {
-    Story story = STORIES.get(position);
-    holder.headline.setText(formatText(story.getHeadline()));
-    holder.trailText.setText(formatText(story.getTrailText()));
-    holder.sectionName.setText(formatTitleCase(story.getSectionName()));
-    holder.webPublicationDate.setText(formatDate(story.getWebPublicationDate()));
+    long startTime = Metrics.startTimer();
+    StoryItem story = DIFFER.getCurrentList().get(position);
+    holder.headline.setText(story.getHeadline());
+    holder.trailText.setText(story.getTrailText());
+    holder.sectionName.setText(story.getSectionName());
+    holder.webPublicationDate.setText(formatDate(story.getPublishedAt()));
     holder.contributors.setText(story.getByline());
-    holder.storyCard.setOnClickListener(view -> CONTEXT
-        .startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(story.getWebUrl()))));
+    Metrics.getInstance().record(Metrics.STAGE_BIND, screenName, startTime);
+  }
+
+  @Override
+  public void onBindViewHolder(@NonNull StoryViewHolder holder, int position,
+      @NonNull List<Object> payloads) {
+    if (payloads.contains(PAYLOAD_PUBLICATION_DATE) && payloads.size() == 1) {
+      StoryItem story = DIFFER.getCurrentList().get(position);
+      holder.webPublicationDate.setText(formatDate(story.getPublishedAt()));
+    } else {
+      onBindViewHolder(holder, position);
+    }
+  }
+
+  @Override
+  public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+    this.recyclerView = recyclerView;
+    RelativeTimeTicker.getInstance().addListener(TICK_LISTENER);
+  }
+
+  @Override
+  public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+    RelativeTimeTicker.getInstance().removeListener(TICK_LISTENER);
+    this.recyclerView = null;
   }
 
   /**
-   * Returns styled text if HTML tags are present in the attribute.
+   * Rebinds the publication dates of the visible stories; called by the {@link
+   * RelativeTimeTicker}.
+   */
+  private void updateVisibleDates() {
+    if (recyclerView == null
+        || !(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) {
+      return;
+    }
+    LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+    int first = layoutManager.findFirstVisibleItemPosition();
+    int last = layoutManager.findLastVisibleItemPosition();
+    if (first != RecyclerView.NO_POSITION && last >= first) {
+      notifyItemRangeChanged(first, last - first + 1, PAYLOAD_PUBLICATION_DATE);
+    }
+  }
+
+  /**
+   * Returns the publication time of a story in the relative time format.
    *
-   * @param storyAttribute A {@link String} that contains a {@link Story} attribute.
-   * @return A {@link String} of the formatted attribute.
+   * @param publishedAt The publication time in milliseconds since the epoch.
+   * @return A {@link CharSequence} that contains the relative time, or an empty string if the time
+   * is unknown.
    */
-  private String formatText(String storyAttribute) {
-    final String breakTag = "<br>";
-    // Prevents interference with spacing in the user interface.
-    String cleanText = storyAttribute.replace(breakTag, "");
-    return Html.fromHtml(cleanText).toString();
+  private static CharSequence formatDate(long publishedAt) {
+    return AndroidFormatterPlatform.FORMATTER.formatDate(publishedAt, System.currentTimeMillis());
+  }
+
+  @Override
+  public int getItemCount() {
+    return DIFFER.getCurrentList().size();
   }
 
   /**
-   * Returns a {@link String} formatted to title case.
+   * Replaces the displayed stories; the list is diffed on a background thread and the changes are
+   * dispatched when it finishes. Must be called on the main thread.
    *
-   * @param storyAttribute A {@link String} that contains a story attribute.
-   * @return A {@link String} that contains a story attribute formatted to title case.
+   * @param stories A {@link List} of {@link StoryItem} objects, or null to clear the list.
    */
-  private String formatTitleCase(String storyAttribute) {
-    StringBuilder builder = new StringBuilder(storyAttribute.length());
-    char[] attributeChars = storyAttribute.toLowerCase().toCharArray();
-    boolean toTitleCase = true;
-    for (char character : attributeChars) {
-      if (toTitleCase) {
-        character = Character.toTitleCase(character);
-        toTitleCase = false;
-      } else if (Character.isSpaceChar(character)) {
-        toTitleCase = true;
-      }
-      builder.append(character);
-    }
-    return builder.toString();
+  public void submitStories(List<StoryItem> stories) {
+    submitStories(stories, null);
   }
 
   /**
-   * Returns a {@link String} with the web publication date for the news story in the relative time
-   * format.
+   * Replaces the displayed stories and runs a callback once the changes are dispatched.
    *
-   * @param publicationDateTime A {@link String} that contains a publication date.
-   * @return A {@link String} that contains a formatted date.
+   * @param stories        A {@link List} of {@link StoryItem} objects, or null to clear the list.
+   * @param commitCallback A {@link Runnable} that is run after the list is updated, or null.
    */
-  private String formatDate(String publicationDateTime) {
-    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'hh:mm:ss'Z'", Locale.getDefault());
-    format.setTimeZone(TimeZone.getTimeZone(String.valueOf(TimeZone.getDefault())));
-    CharSequence timeAgo = "";
-    try {
-      long postedTime = Objects.requireNonNull(format.parse(publicationDateTime)).getTime();
-      long currentTime = System.currentTimeMillis();
-      timeAgo = DateUtils
-          .getRelativeTimeSpanString(postedTime, currentTime, DateUtils.MINUTE_IN_MILLIS);
-    } catch (ParseException e) {
-      Log.e(StoryAdapter.class.getSimpleName(), "There was a problem parsing the date.", e);
-    }
-    return timeAgo.toString();
+  public void submitStories(List<StoryItem> stories, @Nullable Runnable commitCallback) {
+    latestStories = stories != null ? new ArrayList<>(stories) : Collections.emptyList();
+    DIFFER.submitList(latestStories, commitCallback);
   }
 
-  @Override
-  public int getItemCount() {
-    if (STORIES != null) {
-      return STORIES.size();
-    } else {
-      return 0;
-    }
+  /**
+   * Returns the most recently submitted stories.
+   *
+   * @return An unmodifiable {@link List} of {@link StoryItem} objects.
+   */
+  public List<StoryItem> getStories() {
+    return Collections.unmodifiableList(latestStories);
   }
 
   /**
-   * Updates the {@link Story} {@link ArrayList}.
+   * Adds stories to the end of the list; they are appended to the most recently submitted stories,
+   * so pages aren't lost while an earlier diff is still running.
    *
-   * @param stories An {@link ArrayList} of {@link Story} objects.
+   * @param stories A {@link List} of {@link StoryItem} objects.
    */
-  public void updateStories(ArrayList<Story> stories) {
+  public void updateStories(List<StoryItem> stories) {
     if (stories != null && !stories.isEmpty()) {
-      STORIES.addAll(stories);
-      notifyDataSetChanged();
+      ArrayList<StoryItem> allStories = new ArrayList<>(latestStories);
+      allStories.addAll(stories);
+      submitStories(allStories);
     }
   }
 
@@ -0,0 +1,71 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The optional story fields the API returns through its {@code show-fields} parameter. Requests
+ * only ask for the fields that are displayed, so responses only contain what is rendered; the
+ * selection is made in the request url, and {@link StoryParser} reads the fields it knows.
+ */
+public enum StoryField {
+  /**
+   * The headline of the story.
+   */
+  HEADLINE("headline"),
+  /**
+   * The contributors of the story.
+   */
+  BYLINE("byline"),
+  /**
+   * The short summary of the story.
+   */
+  TRAIL_TEXT("trailText");
+
+  /**
+   * The fields displayed on a story card, which every screen and background request asks for, so
+   * their requests create the same urls.
+   */
+  public static final Set<StoryField> DISPLAYED_FIELDS =
+      Collections.unmodifiableSet(EnumSet.of(HEADLINE, BYLINE, TRAIL_TEXT));
+
+  private final String API_NAME;
+
+  StoryField(String apiName) {
+    this.API_NAME = apiName;
+  }
+
+  /**
+   * Returns the name of the field used by the API.
+   *
+   * @return A {@link String} that contains the name of the field.
+   */
+  @NonNull
+  public String getApiName() {
+    return API_NAME;
+  }
+
+  /**
+   * Returns the value of the {@code show-fields} parameter for the given fields, e.g. {@code
+   * headline,byline,trailText}. Fields are listed in declaration order, so the same set always
+   * creates the same url.
+   *
+   * @param fields A {@link Set} of the fields to request.
+   * @return A {@link String} with the comma-separated names of the fields.
+   */
+  @NonNull
+  public static String toParameterValue(@NonNull Set<StoryField> fields) {
+    StringBuilder builder = new StringBuilder();
+    for (StoryField field : values()) {
+      if (fields.contains(field)) {
+        if (builder.length() > 0) {
+          builder.append(',');
+        }
+        builder.append(field.API_NAME);
+      }
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,100 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Formats story attributes for display. HTML conversion and relative times are delegated to a
+ * {@link Platform}, so the formatting can be run on a plain JVM with a stand-in platform.
+ */
+public final class StoryFormatter {
+
+  private static final String BREAK_TAG = "<br>";
+
+  private final Platform PLATFORM;
+
+  /**
+   * Creates a {@link StoryFormatter} that uses a {@link Platform} for HTML and times.
+   *
+   * @param platform The {@link Platform} to use.
+   */
+  public StoryFormatter(@NonNull Platform platform) {
+    this.PLATFORM = platform;
+  }
+
+  /**
+   * Returns styled text if HTML tags are present in the attribute.
+   *
+   * @param storyAttribute A {@link String} that contains a {@link Story} attribute.
+   * @return A {@link String} of the formatted attribute.
+   */
+  @NonNull
+  public String formatText(@NonNull String storyAttribute) {
+    // Prevents interference with spacing in the user interface.
+    String cleanText = storyAttribute.replace(BREAK_TAG, "");
+    return PLATFORM.fromHtml(cleanText);
+  }
+
+  /**
+   * Returns the publication time of a story in the relative time format.
+   *
+   * @param publishedAt The publication time in milliseconds since the epoch.
+   * @param now         The current time in milliseconds since the epoch.
+   * @return A {@link CharSequence} that contains the relative time, or an empty string if the time
+   * is unknown.
+   */
+  @NonNull
+  public CharSequence formatDate(long publishedAt, long now) {
+    if (publishedAt == IsoDateParser.INVALID_TIME) {
+      return "";
+    }
+    return PLATFORM.getRelativeTime(publishedAt, now);
+  }
+
+  /**
+   * Returns a {@link String} formatted to title case.
+   *
+   * @param storyAttribute A {@link String} that contains a story attribute.
+   * @return A {@link String} that contains a story attribute formatted to title case.
+   */
+  @NonNull
+  public static String formatTitleCase(@NonNull String storyAttribute) {
+    StringBuilder builder = new StringBuilder(storyAttribute.length());
+    char[] attributeChars = storyAttribute.toLowerCase().toCharArray();
+    boolean toTitleCase = true;
+    for (char character : attributeChars) {
+      if (toTitleCase) {
+        character = Character.toTitleCase(character);
+        toTitleCase = false;
+      } else if (Character.isSpaceChar(character)) {
+        toTitleCase = true;
+      }
+      builder.append(character);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * The platform calls a {@link StoryFormatter} depends on.
+   */
+  public interface Platform {
+
+    /**
+     * Converts HTML to plain text.
+     *
+     * @param html A {@link String} that contains HTML.
+     * @return A {@link String} that contains the text of the HTML.
+     */
+    @NonNull
+    String fromHtml(@NonNull String html);
+
+    /**
+     * Returns a time relative to the current time, e.g. "5 minutes ago".
+     *
+     * @param time The time in milliseconds since the epoch.
+     * @param now  The current time in milliseconds since the epoch.
+     * @return A {@link CharSequence} that contains the relative time.
+     */
+    @NonNull
+    CharSequence getRelativeTime(long time, long now);
+  }
+}
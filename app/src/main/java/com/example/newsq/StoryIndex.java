@@ -0,0 +1,261 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * An in-memory inverted index over the headline, trail text, and byline of every story the app
+ * has loaded, so stories can be searched without the API. Stories are added as they arrive and
+ * identified by their web url; adding a story again replaces its previous terms.
+ * <p>
+ * Every term of a query must match a term of a story, either exactly or as a prefix. Results are
+ * ranked by where the terms were found (headline, then trail text, then byline), with exact
+ * matches ranked above prefix matches, and newer stories first when scores are equal.
+ */
+public class StoryIndex {
+
+  private static final int DEFAULT_MAX_STORIES = 2000;
+  private static final int MIN_TERM_LENGTH = 2;
+  private static final int HEADLINE_WEIGHT = 3;
+  private static final int TRAIL_TEXT_WEIGHT = 2;
+  private static final int BYLINE_WEIGHT = 1;
+  private static final int EXACT_MATCH_FACTOR = 2;
+  private static StoryIndex instance;
+
+  private final int MAX_STORIES;
+  private final Map<String, Integer> STORY_IDS = new HashMap<>();
+  private final LinkedHashMap<Integer, IndexedStory> STORIES = new LinkedHashMap<>();
+  private final TreeMap<String, Map<Integer, Integer>> POSTINGS = new TreeMap<>();
+  private int nextStoryId;
+
+  /**
+   * Creates a new {@link StoryIndex}.
+   *
+   * @param maxStories The maximum number of stories kept in the index; the stories that were
+   *                   added first are removed when it is full.
+   */
+  public StoryIndex(int maxStories) {
+    this.MAX_STORIES = maxStories;
+  }
+
+  /**
+   * Returns the shared {@link StoryIndex}.
+   *
+   * @return The shared {@link StoryIndex} instance.
+   */
+  @NonNull
+  public static synchronized StoryIndex getInstance() {
+    if (instance == null) {
+      instance = new StoryIndex(DEFAULT_MAX_STORIES);
+    }
+    return instance;
+  }
+
+  /**
+   * Adds stories to the index, replacing stories with the same web url.
+   *
+   * @param stories A {@link List} of {@link StoryItem} objects.
+   */
+  public synchronized void addAll(@NonNull List<StoryItem> stories) {
+    for (StoryItem story : stories) {
+      add(story);
+    }
+  }
+
+  /**
+   * Adds a single story to the index.
+   *
+   * @param story The {@link StoryItem} to index.
+   */
+  private void add(StoryItem story) {
+    Integer storyId = STORY_IDS.get(story.getWebUrl());
+    if (storyId != null) {
+      IndexedStory indexedStory = STORIES.get(storyId);
+      if (indexedStory != null && indexedStory.STORY.equals(story)) {
+        return;
+      }
+      remove(storyId);
+    }
+    storyId = nextStoryId++;
+    Map<String, Integer> termWeights = new HashMap<>();
+    addTerms(termWeights, story.getHeadline(), HEADLINE_WEIGHT);
+    addTerms(termWeights, story.getTrailText(), TRAIL_TEXT_WEIGHT);
+    addTerms(termWeights, story.getByline(), BYLINE_WEIGHT);
+    for (Map.Entry<String, Integer> termWeight : termWeights.entrySet()) {
+      Map<Integer, Integer> postings = POSTINGS.get(termWeight.getKey());
+      if (postings == null) {
+        postings = new HashMap<>();
+        POSTINGS.put(termWeight.getKey(), postings);
+      }
+      postings.put(storyId, termWeight.getValue());
+    }
+    STORY_IDS.put(story.getWebUrl(), storyId);
+    STORIES.put(storyId, new IndexedStory(story, termWeights.keySet()));
+    // Removes the stories that were added first
+    while (STORIES.size() > MAX_STORIES) {
+      remove(STORIES.keySet().iterator().next());
+    }
+  }
+
+  /**
+   * Removes a story and its terms from the index.
+   */
+  private void remove(int storyId) {
+    IndexedStory indexedStory = STORIES.remove(storyId);
+    if (indexedStory != null) {
+      STORY_IDS.remove(indexedStory.STORY.getWebUrl());
+      removePostings(storyId, indexedStory);
+    }
+  }
+
+  /**
+   * Removes the terms of an indexed story.
+   */
+  private void removePostings(int storyId, IndexedStory indexedStory) {
+    for (String term : indexedStory.TERMS) {
+      Map<Integer, Integer> postings = POSTINGS.get(term);
+      if (postings != null && postings.remove(storyId) != null && postings.isEmpty()) {
+        POSTINGS.remove(term);
+      }
+    }
+  }
+
+  /**
+   * Returns the stories that match every term of a query, in ranked order.
+   *
+   * @param query      A {@link String} that contains the user input.
+   * @param maxResults The maximum number of stories to return.
+   * @return A {@link List} of {@link StoryItem} objects that is empty if no stories match.
+   */
+  @NonNull
+  public synchronized List<StoryItem> search(@NonNull String query, int maxResults) {
+    List<String> queryTerms = tokenize(query);
+    if (queryTerms.isEmpty()) {
+      return Collections.emptyList();
+    }
+    Map<Integer, Integer> scores = null;
+    for (String queryTerm : queryTerms) {
+      Map<Integer, Integer> termScores = scoreTerm(queryTerm);
+      if (scores == null) {
+        scores = termScores;
+      } else {
+        // Keeps the stories that match every term
+        scores.keySet().retainAll(termScores.keySet());
+        for (Map.Entry<Integer, Integer> score : scores.entrySet()) {
+          score.setValue(score.getValue() + termScores.get(score.getKey()));
+        }
+      }
+      if (scores.isEmpty()) {
+        return Collections.emptyList();
+      }
+    }
+    List<Map.Entry<Integer, Integer>> rankedScores = new ArrayList<>(scores.entrySet());
+    Collections.sort(rankedScores, (first, second) -> {
+      int comparison = Integer.compare(second.getValue(), first.getValue());
+      if (comparison != 0) {
+        return comparison;
+      }
+      return Long.compare(STORIES.get(second.getKey()).STORY.getPublishedAt(),
+          STORIES.get(first.getKey()).STORY.getPublishedAt());
+    });
+    List<StoryItem> results = new ArrayList<>(Math.min(maxResults, rankedScores.size()));
+    for (int i = 0; i < rankedScores.size() && i < maxResults; i++) {
+      results.add(STORIES.get(rankedScores.get(i).getKey()).STORY);
+    }
+    return results;
+  }
+
+  /**
+   * Returns the score of every story with a term that equals or starts with the query term.
+   */
+  private Map<Integer, Integer> scoreTerm(String queryTerm) {
+    Map<Integer, Integer> termScores = new HashMap<>();
+    // Every term that starts with the query term; \uffff sorts after any other character
+    SortedMap<String, Map<Integer, Integer>> matches =
+        POSTINGS.subMap(queryTerm, queryTerm + '\uffff');
+    for (Map.Entry<String, Map<Integer, Integer>> match : matches.entrySet()) {
+      int factor = match.getKey().equals(queryTerm) ? EXACT_MATCH_FACTOR : 1;
+      for (Map.Entry<Integer, Integer> posting : match.getValue().entrySet()) {
+        int score = posting.getValue() * factor;
+        Integer bestScore = termScores.get(posting.getKey());
+        if (bestScore == null || score > bestScore) {
+          termScores.put(posting.getKey(), score);
+        }
+      }
+    }
+    return termScores;
+  }
+
+  /**
+   * Returns the number of stories in the index.
+   *
+   * @return An {@link Integer} with the number of stories.
+   */
+  public synchronized int size() {
+    return STORIES.size();
+  }
+
+  /**
+   * Adds the weight of each term in the text to the weights of the story.
+   */
+  private static void addTerms(Map<String, Integer> termWeights, String text, int weight) {
+    for (String term : tokenize(text)) {
+      Integer termWeight = termWeights.get(term);
+      termWeights.put(term, termWeight == null ? weight : termWeight + weight);
+    }
+  }
+
+  /**
+   * Splits text into lower case terms of letters and digits; terms shorter than {@link
+   * #MIN_TERM_LENGTH} are ignored.
+   *
+   * @param text A {@link String} that contains the text to split.
+   * @return A {@link List} of terms in the order they appear.
+   */
+  @NonNull
+  static List<String> tokenize(String text) {
+    List<String> terms = new ArrayList<>();
+    if (text == null) {
+      return terms;
+    }
+    String lowerCaseText = text.toLowerCase(Locale.ROOT);
+    int start = -1;
+    for (int i = 0; i <= lowerCaseText.length(); i++) {
+      boolean isTermCharacter = i < lowerCaseText.length()
+          && Character.isLetterOrDigit(lowerCaseText.charAt(i));
+      if (isTermCharacter && start < 0) {
+        start = i;
+      } else if (!isTermCharacter && start >= 0) {
+        if (i - start >= MIN_TERM_LENGTH) {
+          terms.add(lowerCaseText.substring(start, i));
+        }
+        start = -1;
+      }
+    }
+    return terms;
+  }
+
+  /**
+   * An indexed story and the terms it was indexed with.
+   */
+  private static final class IndexedStory {
+
+    private final StoryItem STORY;
+    private final Set<String> TERMS;
+
+    private IndexedStory(StoryItem story, Set<String> terms) {
+      this.STORY = story;
+      this.TERMS = new HashSet<>(terms);
+    }
+  }
+}
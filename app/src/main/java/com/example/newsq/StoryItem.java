@@ -0,0 +1,113 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A display-ready version of a {@link Story} that is created once, off the main thread, after the
+ * story is parsed. HTML is converted to plain text and the section name is converted to title
+ * case, so {@link StoryAdapter} only assigns fields while binding.
+ */
+public final class StoryItem {
+
+  private final Story STORY;
+  private final String HEADLINE;
+  private final String TRAIL_TEXT;
+  private final String SECTION_NAME;
+
+  /**
+   * Creates a {@link StoryItem} and formats the attributes of the {@link Story}; this constructor
+   * should be called on a background thread.
+   *
+   * @param story The {@link Story} to display.
+   */
+  public StoryItem(@NonNull Story story) {
+    this.STORY = story;
+    StoryFormatter formatter = AndroidFormatterPlatform.FORMATTER;
+    this.HEADLINE = formatter.formatText(story.getHeadline());
+    this.TRAIL_TEXT = formatter.formatText(story.getTrailText());
+    this.SECTION_NAME = StoryFormatter.formatTitleCase(story.getSectionName());
+  }
+
+  /**
+   * Returns the {@link Story} the item was created from.
+   *
+   * @return The original {@link Story}.
+   */
+  @NonNull
+  public Story getStory() {
+    return STORY;
+  }
+
+  /**
+   * Returns a {@link String} with the story's web url.
+   *
+   * @return A {@link String} that contains the web url.
+   */
+  public String getWebUrl() {
+    return STORY.getWebUrl();
+  }
+
+  /**
+   * Returns a {@link String} with the story's headline as plain text.
+   *
+   * @return A {@link String} that contains the headline.
+   */
+  public String getHeadline() {
+    return HEADLINE;
+  }
+
+  /**
+   * Returns a {@link String} with the story's trail text as plain text.
+   *
+   * @return A {@link String} that contains the trail text.
+   */
+  public String getTrailText() {
+    return TRAIL_TEXT;
+  }
+
+  /**
+   * Returns a {@link String} with the story's section name in title case.
+   *
+   * @return A {@link String} that contains the section name.
+   */
+  public String getSectionName() {
+    return SECTION_NAME;
+  }
+
+  /**
+   * Returns a {@link String} with the story's byline.
+   *
+   * @return A {@link String} that contains the byline.
+   */
+  public String getByline() {
+    return STORY.getByline();
+  }
+
+  /**
+   * Returns the story's publication time.
+   *
+   * @return A {@link Long} with the time in milliseconds since the epoch, or {@link
+   * IsoDateParser#INVALID_TIME} if the publication date couldn't be parsed.
+   */
+  public long getPublishedAt() {
+    return STORY.getPublishedAt();
+  }
+
+  /**
+   * Returns a {@link Boolean} to indicate if another object is a {@link StoryItem} for an equal
+   * {@link Story}.
+   *
+   * @param object The {@link Object} to compare.
+   * @return A {@link Boolean} value of true if the stories are equal, and false otherwise.
+   */
+  @Override
+  public boolean equals(Object object) {
+    return this == object
+        || object instanceof StoryItem && STORY.equals(((StoryItem) object).STORY);
+  }
+
+  @Override
+  public int hashCode() {
+    return STORY.hashCode();
+  }
+}
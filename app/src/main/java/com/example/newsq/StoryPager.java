@@ -0,0 +1,234 @@
+package com.example.newsq;
+
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the following pages of a news request as the user scrolls a {@link RecyclerView}. The next
+ * page is requested once the last visible story is within {@code prefetchDistance} stories of the
+ * end of the list, so it is usually displayed before the user reaches it.
+ * <p>
+ * Stories are identified by their web url; because newer stories push older ones onto the next
+ * page, stories that are already displayed are removed from each page. Paging stops once {@code
+ * maxItems} stories are displayed or the API has no more stories.
+ */
+public class StoryPager extends RecyclerView.OnScrollListener {
+
+  private static final String LOG_TAG = StoryPager.class.getSimpleName();
+  private static final int DEFAULT_PREFETCH_DISTANCE = 10;
+  private static final int DEFAULT_MAX_ITEMS = 300;
+  private static final int FIRST_PAGE = 1;
+
+  private final int PREFETCH_DISTANCE;
+  private final int MAX_ITEMS;
+  private final String PAGE_PARAMETER;
+  private final Set<String> WEB_URLS = new HashSet<>();
+  private final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+  private final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+  private String url;
+  private StoryAdapter storyAdapter;
+  private CancellationSignal pageSignal;
+  private int itemCount;
+  private int currentPage;
+  private int generation;
+  private boolean isLoading;
+  private boolean isLastPage;
+
+  /**
+   * Creates a new {@link StoryPager} with the default prefetch distance and item limit.
+   *
+   * @param recyclerView The {@link RecyclerView} that displays the stories.
+   */
+  public StoryPager(@NonNull RecyclerView recyclerView) {
+    this(recyclerView, DEFAULT_PREFETCH_DISTANCE, DEFAULT_MAX_ITEMS);
+  }
+
+  /**
+   * Creates a new {@link StoryPager}.
+   *
+   * @param recyclerView     The {@link RecyclerView} that displays the stories.
+   * @param prefetchDistance The number of stories from the end of the list at which the next page
+   *                         is requested.
+   * @param maxItems         The maximum number of stories kept in the list.
+   */
+  public StoryPager(@NonNull RecyclerView recyclerView, int prefetchDistance, int maxItems) {
+    this.PREFETCH_DISTANCE = prefetchDistance;
+    this.MAX_ITEMS = maxItems;
+    this.PAGE_PARAMETER = recyclerView.getContext().getString(R.string.param_key_page);
+    recyclerView.addOnScrollListener(this);
+  }
+
+  /**
+   * Starts paging a new request; pages of the previous request that are still loading are
+   * cancelled.
+   *
+   * @param url          A {@link String} that contains the url of the first page.
+   * @param storyAdapter The {@link StoryAdapter} that displays the first page.
+   * @param firstPage    A {@link List} of the {@link StoryItem} objects on the first page.
+   */
+  public void setFeed(@NonNull String url, @NonNull StoryAdapter storyAdapter,
+      @NonNull List<StoryItem> firstPage) {
+    this.url = url;
+    this.storyAdapter = storyAdapter;
+    cancelPage();
+    generation++;
+    currentPage = FIRST_PAGE;
+    isLoading = false;
+    isLastPage = firstPage.isEmpty();
+    WEB_URLS.clear();
+    for (StoryItem story : firstPage) {
+      WEB_URLS.add(story.getWebUrl());
+    }
+    itemCount = firstPage.size();
+  }
+
+  /**
+   * Applies a refreshed first page of the current request as an incremental update: the new first
+   * page replaces the old one, and the stories loaded from later pages are kept after it.
+   *
+   * @param url       A {@link String} that contains the url of the first page.
+   * @param firstPage A {@link List} of the {@link StoryItem} objects on the refreshed first page.
+   * @return A {@link Boolean} value of true if the stories were applied, and false if the url
+   * isn't the current request.
+   */
+  public boolean refreshFeed(@NonNull String url, @NonNull List<StoryItem> firstPage) {
+    if (storyAdapter == null || !url.equals(this.url)) {
+      return false;
+    }
+    ArrayList<StoryItem> stories = new ArrayList<>(firstPage);
+    WEB_URLS.clear();
+    for (StoryItem story : firstPage) {
+      WEB_URLS.add(story.getWebUrl());
+    }
+    for (StoryItem story : storyAdapter.getStories()) {
+      if (stories.size() >= MAX_ITEMS) {
+        break;
+      }
+      if (WEB_URLS.add(story.getWebUrl())) {
+        stories.add(story);
+      }
+    }
+    itemCount = stories.size();
+    storyAdapter.submitStories(stories);
+    return true;
+  }
+
+  /**
+   * Stops paging until the next call to {@link #setFeed(String, StoryAdapter, List)}; used while
+   * the list shows stories that aren't the first page of a request.
+   */
+  public void clearFeed() {
+    cancelPage();
+    generation++;
+    storyAdapter = null;
+    isLoading = false;
+  }
+
+  @Override
+  public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+    if (dy <= 0 || isLoading || isLastPage || storyAdapter == null || itemCount >= MAX_ITEMS) {
+      return;
+    }
+    RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+    if (!(layoutManager instanceof LinearLayoutManager)) {
+      return;
+    }
+    int lastVisible = ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+    if (lastVisible >= itemCount - PREFETCH_DISTANCE) {
+      loadPage(currentPage + 1);
+    }
+  }
+
+  /**
+   * Requests a page in the background and adds its new stories to the {@link StoryAdapter}.
+   *
+   * @param page An {@link Integer} with the number of the page.
+   */
+  private void loadPage(int page) {
+    isLoading = true;
+    final int requestGeneration = generation;
+    final String pageUrl = Uri.parse(url).buildUpon()
+        .appendQueryParameter(PAGE_PARAMETER, String.valueOf(page)).build().toString();
+    final CancellationSignal signal = new CancellationSignal();
+    pageSignal = signal;
+    EXECUTOR.execute(() -> {
+      FetchResult result = QueryUtils.fetchNews(pageUrl, signal);
+      MAIN_HANDLER.post(() -> {
+        if (requestGeneration == generation) {
+          onPageLoaded(page, result);
+        }
+      });
+    });
+  }
+
+  /**
+   * Cancels the page that is loading, if any, which closes its connection.
+   */
+  private void cancelPage() {
+    if (pageSignal != null) {
+      pageSignal.cancel();
+      pageSignal = null;
+    }
+  }
+
+  /**
+   * Adds the stories of a page that aren't already displayed; a failed page is requested again on
+   * the next scroll.
+   *
+   * @param page   An {@link Integer} with the number of the page.
+   * @param result The {@link FetchResult} of the page.
+   */
+  private void onPageLoaded(int page, FetchResult result) {
+    isLoading = false;
+    pageSignal = null;
+    if (!result.isSuccessful()) {
+      Log.w(LOG_TAG, "Unable to load page " + page + ": " + result);
+      // The API replies with a bad request for pages after the last one
+      isLastPage = result.getStatusCode() == HttpURLConnection.HTTP_BAD_REQUEST;
+      return;
+    }
+    currentPage = page;
+    List<StoryItem> stories = result.getItems();
+    if (stories.isEmpty()) {
+      isLastPage = true;
+      return;
+    }
+    ArrayList<StoryItem> newStories = new ArrayList<>();
+    for (StoryItem story : stories) {
+      if (itemCount + newStories.size() >= MAX_ITEMS) {
+        break;
+      }
+      if (WEB_URLS.add(story.getWebUrl())) {
+        newStories.add(story);
+      }
+    }
+    itemCount += newStories.size();
+    storyAdapter.updateStories(newStories);
+  }
+
+  /**
+   * Stops paging; a page that is still loading is cancelled.
+   *
+   * @param recyclerView The {@link RecyclerView} the pager was created with.
+   */
+  public void cancel(@NonNull RecyclerView recyclerView) {
+    recyclerView.removeOnScrollListener(this);
+    cancelPage();
+    generation++;
+    storyAdapter = null;
+    EXECUTOR.shutdownNow();
+  }
+}
@@ -0,0 +1,175 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Extracts news stories from an API response as it is read, without holding the complete response
+ * or a document tree in memory. Only the {@code response.results} array is read; every other value
+ * is skipped.
+ * <p>
+ * The parser only depends on {@link JsonTokenReader}, so it runs the same way in the app and in
+ * the JVM benchmarks.
+ */
+public final class StoryParser {
+
+  static final String JSON_RESPONSE = "response";
+  static final String JSON_RESULTS = "results";
+  static final String JSON_FIELDS = "fields";
+  static final String SECTION_NAME = "sectionName";
+  static final String WEB_PUBLICATION_DATE = "webPublicationDate";
+  static final String WEB_URL = "webUrl";
+  static final String HEADLINE = "headline";
+  static final String BYLINE = "byline";
+  static final String TRAIL_TEXT = "trailText";
+
+  /**
+   * Private constructor; this class only has static methods.
+   */
+  private StoryParser() {
+  }
+
+  /**
+   * Reads an API response and returns its stories.
+   * <p>
+   * Calls: {@link #readResponseObject(JsonTokenReader, ArrayList)}
+   * <p>
+   * Called by: {@link QueryUtils}
+   *
+   * @param reader A {@link JsonTokenReader} positioned at the start of the response.
+   * @return An {@link ArrayList} of the stories in the response, or null if the response is empty.
+   * @throws IOException           if the response can't be read or is malformed.
+   * @throws IllegalStateException if the response doesn't have a results array.
+   */
+  @Nullable
+  public static ArrayList<Story> parse(@NonNull JsonTokenReader reader) throws IOException {
+    if (!reader.hasContent()) {
+      return null;
+    }
+    ArrayList<Story> stories = new ArrayList<>();
+    boolean hasResults = false;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if (JSON_RESPONSE.equals(reader.nextName())) {
+        hasResults = readResponseObject(reader, stories);
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    if (!hasResults) {
+      // Matches the document parser, which requires the results array
+      throw new IllegalStateException("No results array in the response");
+    }
+    return stories;
+  }
+
+  /**
+   * Reads the {@code response} object and adds a {@link Story} for each item in its {@code
+   * results} array as soon as the item is read.
+   * <p>
+   * Calls: {@link #readStory(JsonTokenReader)}
+   * <p>
+   * Called by: {@link #parse(JsonTokenReader)}
+   *
+   * @param reader  A {@link JsonTokenReader} positioned at the {@code response} object.
+   * @param stories An {@link ArrayList} that receives the stories.
+   * @return A {@link Boolean} value of true if the results array was read, and false if it wasn't.
+   * @throws IOException if the response can't be read or is malformed.
+   */
+  private static boolean readResponseObject(JsonTokenReader reader, ArrayList<Story> stories)
+      throws IOException {
+    boolean hasResults = false;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if (JSON_RESULTS.equals(reader.nextName())) {
+        hasResults = true;
+        reader.beginArray();
+        while (reader.hasNext()) {
+          stories.add(readStory(reader));
+        }
+        reader.endArray();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return hasResults;
+  }
+
+  /**
+   * Reads a single item of the {@code results} array and returns it as a {@link Story}.
+   * <p>
+   * Called by: {@link #readResponseObject(JsonTokenReader, ArrayList)}
+   *
+   * @param reader A {@link JsonTokenReader} positioned at a result object.
+   * @return A {@link Story} with the attributes of the result.
+   * @throws IOException if the response can't be read or is malformed.
+   */
+  private static Story readStory(JsonTokenReader reader) throws IOException {
+    String sectionName = "";
+    String publicationDate = "";
+    String webUrl = "";
+    String headline = "";
+    String byline = "";
+    String trailText = "";
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case SECTION_NAME:
+          sectionName = nextStringOrEmpty(reader);
+          break;
+        case WEB_PUBLICATION_DATE:
+          publicationDate = nextStringOrEmpty(reader);
+          break;
+        case WEB_URL:
+          webUrl = nextStringOrEmpty(reader);
+          break;
+        case JSON_FIELDS:
+          // Extract relevant fields
+          reader.beginObject();
+          while (reader.hasNext()) {
+            switch (reader.nextName()) {
+              case HEADLINE:
+                headline = nextStringOrEmpty(reader);
+                break;
+              case BYLINE:
+                byline = nextStringOrEmpty(reader);
+                break;
+              case TRAIL_TEXT:
+                trailText = nextStringOrEmpty(reader);
+                break;
+              default:
+                reader.skipValue();
+                break;
+            }
+          }
+          reader.endObject();
+          break;
+        default:
+          reader.skipValue();
+          break;
+      }
+    }
+    reader.endObject();
+    return new Story(headline, byline, trailText, sectionName, publicationDate, webUrl);
+  }
+
+  /**
+   * Returns the next value of the {@link JsonTokenReader} as a {@link String} that is empty if the
+   * value is null.
+   *
+   * @param reader A {@link JsonTokenReader} positioned at a value.
+   * @return A {@link String} that's empty if the value is null, or the original value if it's not.
+   * @throws IOException if the response can't be read or is malformed.
+   */
+  private static String nextStringOrEmpty(JsonTokenReader reader) throws IOException {
+    if (reader.isNextNull()) {
+      reader.nextNull();
+      return "";
+    }
+    return reader.nextString();
+  }
+}
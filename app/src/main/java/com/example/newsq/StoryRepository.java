@@ -0,0 +1,321 @@
+package com.example.newsq;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A repository shared by the {@link com.example.newsq.ui.world.WorldFragment WorldFragment},
+ * {@link com.example.newsq.ui.browse.BrowseFragment BrowseFragment}, and {@link
+ * com.example.newsq.ui.search.SearchFragment SearchFragment} that loads stories on an {@link
+ * Executor} and publishes them through a {@link LiveData} for each request url.
+ * <p>
+ * The repository outlives the fragments, so results are reused after configuration changes and
+ * tab switches. Results are served stale-while-revalidate: the last known result of a url is
+ * published immediately, and if it is older than the staleness threshold of the screen, the url
+ * is loaded again in the background while the result stays on the screen. Without a result in
+ * memory, stories saved in the {@link StoryStore} are published first, and the API is only
+ * contacted if they are stale; the store is then updated with the new stories. If the API can't
+ * be reached, the last known result stays published.
+ * <p>
+ * A load that no screen observes anymore is cancelled through a {@link CancellationSignal}, which
+ * closes its connection and skips parsing its response. Results are published on the main thread,
+ * and only if their load is still the current load of the url, so a load that is cancelled or
+ * replaced while its result is on the way never overwrites a newer result.
+ * <p>
+ * At most {@link #MAX_FEEDS} urls are kept in memory; the least recently used url that no screen
+ * observes is dropped first, and its load is cancelled.
+ */
+public class StoryRepository {
+
+  private static final int DEFAULT_THREAD_COUNT = 3;
+  private static final long THREAD_KEEP_ALIVE = 30; // in seconds
+  private static final int MAX_FEEDS = 16;
+  private static StoryRepository instance;
+
+  private final Context CONTEXT;
+  private final Executor EXECUTOR;
+  private final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+  private final LinkedHashMap<String, Feed> FEEDS = new LinkedHashMap<>(MAX_FEEDS, 0.75f, true);
+
+  /**
+   * Creates a new {@link StoryRepository}.
+   *
+   * @param context  Any {@link Context}; the application context is retained.
+   * @param executor The {@link Executor} that loads stories.
+   */
+  public StoryRepository(@NonNull Context context, @NonNull Executor executor) {
+    this.CONTEXT = context.getApplicationContext();
+    this.EXECUTOR = executor;
+  }
+
+  /**
+   * Returns the shared {@link StoryRepository}, which loads at most {@link #DEFAULT_THREAD_COUNT}
+   * urls at the same time.
+   *
+   * @param context Any {@link Context}; the application context is retained.
+   * @return The shared {@link StoryRepository} instance.
+   */
+  @NonNull
+  public static synchronized StoryRepository getInstance(@NonNull Context context) {
+    if (instance == null) {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_THREAD_COUNT,
+          DEFAULT_THREAD_COUNT, THREAD_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+      executor.allowCoreThreadTimeOut(true);
+      instance = new StoryRepository(context, executor);
+    }
+    return instance;
+  }
+
+  /**
+   * Returns the {@link LiveData} for a url, and loads the url in the background if it has no
+   * result, its last result was unsuccessful, or its last result is older than the given
+   * threshold, unless it is already loading.
+   *
+   * @param url        A {@link String} that contains a url for an API request.
+   * @param staleAfter The age in milliseconds after which a result is loaded again.
+   * @return A {@link LiveData} that publishes each {@link FetchResult} for the url.
+   */
+  @MainThread
+  @NonNull
+  public LiveData<FetchResult> getStories(@NonNull String url, long staleAfter) {
+    Feed feed = getFeed(url);
+    FetchResult result = feed.LIVE_DATA.getValue();
+    if (!feed.isLoading()
+        && (result == null || !result.isSuccessful() || result.getAge() > staleAfter)) {
+      load(feed, staleAfter);
+    }
+    return feed.LIVE_DATA;
+  }
+
+  /**
+   * Loads a url from the API again even if its result is fresh; the current result stays
+   * published until the new one arrives.
+   *
+   * @param url A {@link String} that contains a url for an API request.
+   */
+  @MainThread
+  public void refresh(@NonNull String url) {
+    Feed feed = getFeed(url);
+    if (!feed.isLoading()) {
+      load(feed, 0);
+    }
+  }
+
+  /**
+   * Returns the last successful result of a url that is in memory.
+   *
+   * @param url A {@link String} that contains a url for an API request.
+   * @return The {@link FetchResult} of the url, or null if it has no successful result.
+   */
+  @MainThread
+  @Nullable
+  public FetchResult getCachedResult(@NonNull String url) {
+    Feed feed = FEEDS.get(url);
+    FetchResult result = feed != null ? feed.LIVE_DATA.getValue() : null;
+    return result != null && result.isSuccessful() ? result : null;
+  }
+
+  /**
+   * Publishes a result that was obtained elsewhere, e.g. by the {@link SectionPrefetcher}, if the
+   * url doesn't have a successful result yet or the result is newer.
+   *
+   * @param url    A {@link String} that contains the url of the request.
+   * @param result The {@link FetchResult} of the request.
+   */
+  @MainThread
+  public void offer(@NonNull String url, @NonNull FetchResult result) {
+    Feed feed = getFeed(url);
+    FetchResult currentResult = feed.LIVE_DATA.getValue();
+    if (result.isSuccessful() && (currentResult == null || !currentResult.isSuccessful()
+        || result.getFetchedAt() > currentResult.getFetchedAt())) {
+      feed.cancel();
+      feed.LIVE_DATA.setValue(result);
+    }
+  }
+
+  /**
+   * Cancels the load of a url if no screen observes it anymore, e.g. after the user moved on to
+   * another section or query.
+   *
+   * @param url A {@link String} that contains a url for an API request.
+   */
+  @MainThread
+  public void release(@NonNull String url) {
+    Feed feed = FEEDS.get(url);
+    if (feed != null && !feed.LIVE_DATA.hasObservers()) {
+      feed.cancel();
+    }
+  }
+
+  /**
+   * Returns the {@link Feed} for a url, creating it if necessary.
+   */
+  private Feed getFeed(String url) {
+    Feed feed = FEEDS.get(url);
+    if (feed == null) {
+      feed = new Feed(url);
+      FEEDS.put(url, feed);
+      trimFeeds();
+    }
+    return feed;
+  }
+
+  /**
+   * Drops the least recently used feeds that no screen observes until at most {@link #MAX_FEEDS}
+   * feeds are left, and cancels their loads. Feeds that are displayed are kept.
+   */
+  private void trimFeeds() {
+    Iterator<Map.Entry<String, Feed>> iterator = FEEDS.entrySet().iterator();
+    while (FEEDS.size() > MAX_FEEDS && iterator.hasNext()) {
+      Feed feed = iterator.next().getValue();
+      if (!feed.LIVE_DATA.hasObservers()) {
+        feed.cancel();
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Starts loading a feed on the {@link Executor}.
+   */
+  private void load(Feed feed, long staleAfter) {
+    CancellationSignal signal = new CancellationSignal();
+    FetchResult currentResult = feed.LIVE_DATA.getValue();
+    FutureTask<Void> task = new FutureTask<>(
+        () -> loadFeed(feed, currentResult, staleAfter, signal), null);
+    feed.task = task;
+    feed.signal = signal;
+    EXECUTOR.execute(task);
+  }
+
+  /**
+   * Publishes the stored stories of a feed if it has no result in memory, then requests the feed
+   * from the API unless the stored stories are fresh, and stores the new stories. A failed request
+   * isn't published over a successful result. Nothing is published once the load is cancelled.
+   *
+   * @param feed          The {@link Feed} to load.
+   * @param currentResult The {@link FetchResult} that was published when the load started, or
+   *                      null.
+   * @param staleAfter    The age in milliseconds after which stored stories are requested again.
+   * @param signal        The {@link CancellationSignal} of the load.
+   */
+  @WorkerThread
+  private void loadFeed(Feed feed, @Nullable FetchResult currentResult, long staleAfter,
+      CancellationSignal signal) {
+    if (QueryUtils.isNullOrEmpty(feed.URL)) {
+      publish(feed, signal, QueryUtils.fetchNews(feed.URL));
+      return;
+    }
+    String feedKey = QueryUtils.canonicalizeUrl(feed.URL);
+    StoryStore store = StoryStore.getInstance(CONTEXT);
+    boolean hasResult = currentResult != null && currentResult.isSuccessful();
+    if (!hasResult) {
+      FetchResult storedResult = createStoredResult(store.getFeed(feedKey),
+          store.getFeedUpdateTime(feedKey));
+      if (storedResult != null) {
+        // Display the stored stories while the API is contacted
+        publish(feed, signal, storedResult);
+        if (storedResult.getAge() <= staleAfter) {
+          // e.g. stories saved by the WarmUpWorker
+          return;
+        }
+        hasResult = true;
+      }
+    }
+    if (!QueryUtils.isDeviceConnected(CONTEXT) && hasResult) {
+      return;
+    }
+    FetchResult result = QueryUtils.fetchNews(feed.URL, signal);
+    if (result.isSuccessful()) {
+      store.saveFeed(feedKey, result.getStories());
+    } else if (hasResult) {
+      return;
+    }
+    publish(feed, signal, result);
+  }
+
+  /**
+   * Publishes a result of a load on the main thread, unless the load was cancelled or replaced by
+   * then. The check runs on the main thread, where loads are started and cancelled, so it can't
+   * be overtaken by a cancellation.
+   *
+   * @param feed   The {@link Feed} that was loaded.
+   * @param signal The {@link CancellationSignal} of the load.
+   * @param result The {@link FetchResult} to publish.
+   */
+  @WorkerThread
+  private void publish(Feed feed, CancellationSignal signal, FetchResult result) {
+    MAIN_HANDLER.post(() -> {
+      if (feed.signal == signal && !signal.isCanceled()) {
+        feed.LIVE_DATA.setValue(result);
+      }
+    });
+  }
+
+  /**
+   * Returns a {@link FetchResult} for stories read from the {@link StoryStore}.
+   *
+   * @param stories   An {@link ArrayList} of stored {@link Story} objects.
+   * @param updatedAt The time the stories were saved in milliseconds since the epoch.
+   * @return A {@link FetchResult} with the stories, or null if there are no stored stories.
+   */
+  @Nullable
+  private static FetchResult createStoredResult(ArrayList<Story> stories, long updatedAt) {
+    if (QueryUtils.isNullOrEmpty(stories)) {
+      return null;
+    }
+    FetchResult result = new FetchResult.Builder().setStories(stories).setFromStore(true)
+        .setFetchedAt(Math.max(0, updatedAt)).build();
+    StoryIndex.getInstance().addAll(result.getItems());
+    return result;
+  }
+
+  /**
+   * The {@link LiveData} of a url and the load that is running for it.
+   */
+  private static final class Feed {
+
+    private final String URL;
+    private final MutableLiveData<FetchResult> LIVE_DATA = new MutableLiveData<>();
+    private FutureTask<Void> task;
+    private CancellationSignal signal;
+
+    private Feed(String url) {
+      this.URL = url;
+    }
+
+    /**
+     * Returns a {@link Boolean} to indicate if a load is waiting or running.
+     */
+    private boolean isLoading() {
+      return task != null && !task.isDone();
+    }
+
+    /**
+     * Cancels the load that is waiting or running; a running request is stopped as well.
+     */
+    private void cancel() {
+      if (task != null) {
+        task.cancel(true);
+        signal.cancel();
+      }
+    }
+  }
+}
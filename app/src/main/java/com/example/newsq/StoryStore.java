@@ -0,0 +1,263 @@
+package com.example.newsq;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A persistent store for {@link Story} objects backed by SQLite. Stories are identified by their
+ * web url, and each request url (a feed) keeps the order of the stories it returned, so a screen
+ * can be rendered from the store before the API responds or while the device is offline.
+ * <p>
+ * Stories are written in a single transaction per feed, and the store is trimmed to {@link
+ * #MAX_STORIES} stories that were updated within {@link #MAX_AGE}.
+ */
+public class StoryStore {
+
+  private static final String DATABASE_NAME = "stories.db";
+  private static final int DATABASE_VERSION = 1;
+  private static final int MAX_STORIES = 1000;
+  private static final long MAX_AGE = 7 * 24 * 60 * 60 * 1000L; // in milliseconds
+
+  private static final String TABLE_STORIES = "stories";
+  private static final String TABLE_FEEDS = "feeds";
+  private static final String TABLE_FEED_STORIES = "feed_stories";
+  private static final String COLUMN_WEB_URL = "web_url";
+  private static final String COLUMN_HEADLINE = "headline";
+  private static final String COLUMN_BYLINE = "byline";
+  private static final String COLUMN_TRAIL_TEXT = "trail_text";
+  private static final String COLUMN_SECTION_NAME = "section_name";
+  private static final String COLUMN_PUBLICATION_DATE = "web_publication_date";
+  private static final String COLUMN_UPDATED_AT = "updated_at";
+  private static final String COLUMN_FEED_KEY = "feed_key";
+  private static final String COLUMN_POSITION = "position";
+
+  private static StoryStore instance;
+
+  private final SQLiteOpenHelper HELPER;
+
+  /**
+   * Private constructor; use {@link #getInstance(Context)}.
+   *
+   * @param context      The application {@link Context}.
+   * @param databaseName A {@link String} with the file name of the database.
+   */
+  private StoryStore(Context context, String databaseName) {
+    this.HELPER = new StoryDatabaseHelper(context, databaseName);
+  }
+
+  /**
+   * Returns the shared {@link StoryStore}.
+   *
+   * @param context Any {@link Context}; the application context is retained.
+   * @return The shared {@link StoryStore} instance.
+   */
+  @NonNull
+  public static synchronized StoryStore getInstance(@NonNull Context context) {
+    if (instance == null) {
+      instance = new StoryStore(context.getApplicationContext(), DATABASE_NAME);
+    }
+    return instance;
+  }
+
+  /**
+   * Returns a new {@link StoryStore} in a database of its own, e.g. to measure the store without
+   * changing the stories of the shared store. The store should be closed with {@link #close()}
+   * once it is no longer used.
+   *
+   * @param context      Any {@link Context}; the application context is retained.
+   * @param databaseName A {@link String} with the file name of the database, which must not be
+   *                     the name of the shared store.
+   * @return A new {@link StoryStore} instance.
+   */
+  @NonNull
+  public static StoryStore newInstance(@NonNull Context context, @NonNull String databaseName) {
+    if (DATABASE_NAME.equals(databaseName)) {
+      throw new IllegalArgumentException("The database of the shared store can't be reused.");
+    }
+    return new StoryStore(context.getApplicationContext(), databaseName);
+  }
+
+  /**
+   * Replaces the stories of a feed and inserts or updates each story by its web url. All writes,
+   * including the retention cleanup, are made in a single transaction.
+   *
+   * @param feedKey A {@link String} that identifies the feed, e.g. a canonical request url.
+   * @param stories A {@link List} of {@link Story} objects in the order they are displayed.
+   */
+  public void saveFeed(@NonNull String feedKey, @NonNull List<Story> stories) {
+    SQLiteDatabase database = HELPER.getWritableDatabase();
+    long now = System.currentTimeMillis();
+    database.beginTransaction();
+    try (SQLiteStatement upsertStory = database.compileStatement("INSERT OR REPLACE INTO "
+        + TABLE_STORIES + " (" + COLUMN_WEB_URL + ", " + COLUMN_HEADLINE + ", " + COLUMN_BYLINE
+        + ", " + COLUMN_TRAIL_TEXT + ", " + COLUMN_SECTION_NAME + ", " + COLUMN_PUBLICATION_DATE
+        + ", " + COLUMN_UPDATED_AT + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+        SQLiteStatement insertFeedStory = database.compileStatement("INSERT OR REPLACE INTO "
+            + TABLE_FEED_STORIES + " (" + COLUMN_FEED_KEY + ", " + COLUMN_WEB_URL + ", "
+            + COLUMN_POSITION + ") VALUES (?, ?, ?)")) {
+      database.delete(TABLE_FEED_STORIES, COLUMN_FEED_KEY + " = ?", new String[]{feedKey});
+      for (int position = 0; position < stories.size(); position++) {
+        Story story = stories.get(position);
+        upsertStory.bindString(1, story.getWebUrl());
+        upsertStory.bindString(2, story.getHeadline());
+        upsertStory.bindString(3, story.getByline());
+        upsertStory.bindString(4, story.getTrailText());
+        upsertStory.bindString(5, story.getSectionName());
+        upsertStory.bindString(6, story.getWebPublicationDate());
+        upsertStory.bindLong(7, now);
+        upsertStory.executeInsert();
+        insertFeedStory.bindString(1, feedKey);
+        insertFeedStory.bindString(2, story.getWebUrl());
+        insertFeedStory.bindLong(3, position);
+        insertFeedStory.executeInsert();
+      }
+      ContentValues feed = new ContentValues();
+      feed.put(COLUMN_FEED_KEY, feedKey);
+      feed.put(COLUMN_UPDATED_AT, now);
+      database.insertWithOnConflict(TABLE_FEEDS, null, feed, SQLiteDatabase.CONFLICT_REPLACE);
+      applyRetention(database, now);
+      database.setTransactionSuccessful();
+    } finally {
+      database.endTransaction();
+    }
+  }
+
+  /**
+   * Returns the stored stories of a feed in the order they were saved.
+   *
+   * @param feedKey A {@link String} that identifies the feed.
+   * @return An {@link ArrayList} of {@link Story} objects that is empty if the feed isn't stored.
+   */
+  @NonNull
+  public ArrayList<Story> getFeed(@NonNull String feedKey) {
+    ArrayList<Story> stories = new ArrayList<>();
+    SQLiteDatabase database = HELPER.getReadableDatabase();
+    try (Cursor cursor = database.rawQuery("SELECT s." + COLUMN_HEADLINE + ", s." + COLUMN_BYLINE
+        + ", s." + COLUMN_TRAIL_TEXT + ", s." + COLUMN_SECTION_NAME + ", s."
+        + COLUMN_PUBLICATION_DATE + ", s." + COLUMN_WEB_URL + " FROM " + TABLE_FEED_STORIES
+        + " f JOIN " + TABLE_STORIES + " s ON s." + COLUMN_WEB_URL + " = f." + COLUMN_WEB_URL
+        + " WHERE f." + COLUMN_FEED_KEY + " = ? ORDER BY f." + COLUMN_POSITION,
+        new String[]{feedKey})) {
+      while (cursor.moveToNext()) {
+        stories.add(new Story(cursor.getString(0), cursor.getString(1), cursor.getString(2),
+            cursor.getString(3), cursor.getString(4), cursor.getString(5)));
+      }
+    }
+    return stories;
+  }
+
+  /**
+   * Returns the most recently published stories of every feed.
+   *
+   * @param limit The maximum number of stories to return.
+   * @return An {@link ArrayList} of {@link Story} objects, newest first.
+   */
+  @NonNull
+  public ArrayList<Story> getRecentStories(int limit) {
+    ArrayList<Story> stories = new ArrayList<>();
+    SQLiteDatabase database = HELPER.getReadableDatabase();
+    try (Cursor cursor = database.query(TABLE_STORIES, new String[]{COLUMN_HEADLINE,
+            COLUMN_BYLINE, COLUMN_TRAIL_TEXT, COLUMN_SECTION_NAME, COLUMN_PUBLICATION_DATE,
+            COLUMN_WEB_URL}, null, null, null, null, COLUMN_PUBLICATION_DATE + " DESC",
+        String.valueOf(limit))) {
+      while (cursor.moveToNext()) {
+        stories.add(new Story(cursor.getString(0), cursor.getString(1), cursor.getString(2),
+            cursor.getString(3), cursor.getString(4), cursor.getString(5)));
+      }
+    }
+    return stories;
+  }
+
+  /**
+   * Returns the time a feed was last saved.
+   *
+   * @param feedKey A {@link String} that identifies the feed.
+   * @return A {@link Long} with the time in milliseconds since the epoch, or -1 if the feed isn't
+   * stored.
+   */
+  public long getFeedUpdateTime(@NonNull String feedKey) {
+    SQLiteDatabase database = HELPER.getReadableDatabase();
+    try (Cursor cursor = database.query(TABLE_FEEDS, new String[]{COLUMN_UPDATED_AT},
+        COLUMN_FEED_KEY + " = ?", new String[]{feedKey}, null, null, null)) {
+      return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+    }
+  }
+
+  /**
+   * Closes the database of a store returned by {@link #newInstance(Context, String)}.
+   */
+  public void close() {
+    HELPER.close();
+  }
+
+  /**
+   * Deletes stories older than {@link #MAX_AGE}, keeps the newest {@link #MAX_STORIES} stories by
+   * publication date, and removes feed entries for deleted stories.
+   *
+   * @param database The {@link SQLiteDatabase} in the current transaction.
+   * @param now      The current time in milliseconds since the epoch.
+   */
+  private static void applyRetention(SQLiteDatabase database, long now) {
+    database.delete(TABLE_STORIES, COLUMN_UPDATED_AT + " < ?",
+        new String[]{String.valueOf(now - MAX_AGE)});
+    database.execSQL("DELETE FROM " + TABLE_STORIES + " WHERE " + COLUMN_WEB_URL + " NOT IN "
+        + "(SELECT " + COLUMN_WEB_URL + " FROM " + TABLE_STORIES + " ORDER BY "
+        + COLUMN_PUBLICATION_DATE + " DESC LIMIT " + MAX_STORIES + ")");
+    database.execSQL("DELETE FROM " + TABLE_FEED_STORIES + " WHERE " + COLUMN_WEB_URL
+        + " NOT IN (SELECT " + COLUMN_WEB_URL + " FROM " + TABLE_STORIES + ")");
+    database.execSQL("DELETE FROM " + TABLE_FEEDS + " WHERE " + COLUMN_FEED_KEY + " NOT IN "
+        + "(SELECT DISTINCT " + COLUMN_FEED_KEY + " FROM " + TABLE_FEED_STORIES + ")");
+  }
+
+  /**
+   * A {@link SQLiteOpenHelper} subclass that creates the story tables and their indexes.
+   */
+  private static final class StoryDatabaseHelper extends SQLiteOpenHelper {
+
+    private StoryDatabaseHelper(Context context, String databaseName) {
+      super(context, databaseName, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase database) {
+      database.execSQL("CREATE TABLE " + TABLE_STORIES + " ("
+          + COLUMN_WEB_URL + " TEXT PRIMARY KEY, "
+          + COLUMN_HEADLINE + " TEXT NOT NULL, "
+          + COLUMN_BYLINE + " TEXT NOT NULL, "
+          + COLUMN_TRAIL_TEXT + " TEXT NOT NULL, "
+          + COLUMN_SECTION_NAME + " TEXT NOT NULL, "
+          + COLUMN_PUBLICATION_DATE + " TEXT NOT NULL, "
+          + COLUMN_UPDATED_AT + " INTEGER NOT NULL)");
+      database.execSQL("CREATE INDEX index_stories_section ON " + TABLE_STORIES + " ("
+          + COLUMN_SECTION_NAME + ")");
+      database.execSQL("CREATE INDEX index_stories_publication ON " + TABLE_STORIES + " ("
+          + COLUMN_PUBLICATION_DATE + ")");
+      database.execSQL("CREATE TABLE " + TABLE_FEEDS + " ("
+          + COLUMN_FEED_KEY + " TEXT PRIMARY KEY, "
+          + COLUMN_UPDATED_AT + " INTEGER NOT NULL)");
+      database.execSQL("CREATE TABLE " + TABLE_FEED_STORIES + " ("
+          + COLUMN_FEED_KEY + " TEXT NOT NULL, "
+          + COLUMN_WEB_URL + " TEXT NOT NULL, "
+          + COLUMN_POSITION + " INTEGER NOT NULL, "
+          + "PRIMARY KEY (" + COLUMN_FEED_KEY + ", " + COLUMN_WEB_URL + "))");
+      database.execSQL("CREATE INDEX index_feed_stories_url ON " + TABLE_FEED_STORIES + " ("
+          + COLUMN_WEB_URL + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase database, int oldVersion, int newVersion) {
+      // The store only holds data that can be downloaded again
+      database.execSQL("DROP TABLE IF EXISTS " + TABLE_FEED_STORIES);
+      database.execSQL("DROP TABLE IF EXISTS " + TABLE_FEEDS);
+      database.execSQL("DROP TABLE IF EXISTS " + TABLE_STORIES);
+      onCreate(database);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.newsq;
+
+import android.app.Application;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import java.util.Objects;
+
+/**
+ * An {@link AndroidViewModel} subclass that holds the request url of a screen and publishes the
+ * results of that url from the {@link StoryRepository}; the url survives configuration changes,
+ * so the screen observes the same results afterwards.
+ * <p>
+ * Each screen sets its own staleness threshold: a result older than the threshold stays on the
+ * screen while it is loaded again in the background.
+ */
+public class StoryViewModel extends AndroidViewModel {
+
+  private static final long DEFAULT_STALE_AFTER = 5 * 60 * 1000; // in milliseconds
+
+  private final StoryRepository REPOSITORY;
+  private final MutableLiveData<String> URL = new MutableLiveData<>();
+  private final LiveData<FetchResult> RESULT;
+  private long staleAfter = DEFAULT_STALE_AFTER;
+
+  /**
+   * Creates a new {@link StoryViewModel}; instances are created by {@link
+   * androidx.lifecycle.ViewModelProvider ViewModelProvider}.
+   *
+   * @param application The {@link Application} of the app.
+   */
+  public StoryViewModel(@NonNull Application application) {
+    super(application);
+    this.REPOSITORY = StoryRepository.getInstance(application);
+    this.RESULT = Transformations.switchMap(URL,
+        url -> url != null ? REPOSITORY.getStories(url, staleAfter) : new MutableLiveData<>());
+  }
+
+  /**
+   * Returns the results of the current url.
+   *
+   * @return A {@link LiveData} that publishes each {@link FetchResult} for the current url.
+   */
+  @NonNull
+  public LiveData<FetchResult> getResult() {
+    return RESULT;
+  }
+
+  /**
+   * Sets the age after which a result of this screen is loaded again.
+   *
+   * @param staleAfter The age in milliseconds.
+   */
+  public void setStaleAfter(long staleAfter) {
+    this.staleAfter = staleAfter;
+  }
+
+  /**
+   * Returns a {@link Boolean} to indicate if a url has a successful result in memory, which is
+   * published as soon as the url is set.
+   *
+   * @param url A {@link String} that contains a url for an API request.
+   * @return A {@link Boolean} value of true if the url has a result, and false if it doesn't.
+   */
+  @MainThread
+  public boolean hasResult(@NonNull String url) {
+    return REPOSITORY.getCachedResult(url) != null;
+  }
+
+  /**
+   * Returns the current url.
+   *
+   * @return A {@link String} that contains the url, or null if no url is set.
+   */
+  @Nullable
+  public String getUrl() {
+    return URL.getValue();
+  }
+
+  /**
+   * Sets the url whose results are published; the load of the previous url is cancelled if no
+   * other screen observes it. Setting the same url again loads it again only if its last result
+   * was unsuccessful or is stale.
+   *
+   * @param url A {@link String} that contains a url for an API request, or null to stop
+   *            publishing results.
+   */
+  @MainThread
+  public void setUrl(@Nullable String url) {
+    String previousUrl = URL.getValue();
+    if (Objects.equals(previousUrl, url)) {
+      if (url != null) {
+        REPOSITORY.getStories(url, staleAfter);
+      }
+      return;
+    }
+    URL.setValue(url);
+    if (previousUrl != null) {
+      REPOSITORY.release(previousUrl);
+    }
+  }
+
+  @Override
+  protected void onCleared() {
+    String url = URL.getValue();
+    URL.setValue(null);
+    if (url != null) {
+      REPOSITORY.release(url);
+    }
+  }
+}
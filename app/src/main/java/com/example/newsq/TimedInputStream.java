@@ -0,0 +1,63 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} that measures the time spent waiting for the stream it wraps, e.g. the
+ * time a parser waits for the network rather than parsing.
+ */
+public final class TimedInputStream extends FilterInputStream {
+
+  private long readTime;
+
+  /**
+   * Creates a new {@link TimedInputStream}.
+   *
+   * @param inputStream The {@link InputStream} to time.
+   */
+  public TimedInputStream(@NonNull InputStream inputStream) {
+    super(inputStream);
+  }
+
+  /**
+   * Returns the time spent in reads and skips so far.
+   *
+   * @return A {@link Long} with the time in nanoseconds.
+   */
+  public long getReadTime() {
+    return readTime;
+  }
+
+  @Override
+  public int read() throws IOException {
+    long start = System.nanoTime();
+    try {
+      return super.read();
+    } finally {
+      readTime += System.nanoTime() - start;
+    }
+  }
+
+  @Override
+  public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return super.read(buffer, offset, length);
+    } finally {
+      readTime += System.nanoTime() - start;
+    }
+  }
+
+  @Override
+  public long skip(long byteCount) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return super.skip(byteCount);
+    } finally {
+      readTime += System.nanoTime() - start;
+    }
+  }
+}
@@ -0,0 +1,255 @@
+package com.example.newsq;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * An {@link HttpTransport} built on {@link HttpURLConnection}. Responses are released by closing
+ * their body instead of disconnecting, so the platform can keep the connection alive for the next
+ * request to the same host.
+ * <p>
+ * The platform doesn't report connection reuse, so new TLS sockets are counted instead; the
+ * connection and reuse counts only cover https requests.
+ */
+public final class UrlConnectionTransport implements HttpTransport {
+
+  private static final String NAME = "HttpURLConnection";
+  private static final String REQUEST_GET = "GET";
+  private static final String SCHEME_HTTPS = "https";
+  private static final int DEFAULT_CONNECT_TIMEOUT = 10000; // in milliseconds
+  private static final int DEFAULT_READ_TIMEOUT = 15000;    // in milliseconds
+
+  private final int CONNECT_TIMEOUT;
+  private final int READ_TIMEOUT;
+  private final AtomicLong REQUEST_COUNT = new AtomicLong();
+  private final AtomicLong SECURE_REQUEST_COUNT = new AtomicLong();
+  private final CountingSocketFactory SOCKET_FACTORY =
+      new CountingSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory());
+
+  /**
+   * Creates a new {@link UrlConnectionTransport} with the default timeouts.
+   */
+  public UrlConnectionTransport() {
+    this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+  }
+
+  /**
+   * Creates a new {@link UrlConnectionTransport}.
+   *
+   * @param connectTimeout The connect timeout in milliseconds.
+   * @param readTimeout    The read timeout in milliseconds.
+   */
+  public UrlConnectionTransport(int connectTimeout, int readTimeout) {
+    this.CONNECT_TIMEOUT = connectTimeout;
+    this.READ_TIMEOUT = readTimeout;
+  }
+
+  @NonNull
+  @Override
+  public Exchange newExchange(@NonNull URL url, @NonNull Map<String, String> headers)
+      throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    if (connection instanceof HttpsURLConnection) {
+      // One shared factory keeps the platform's connection pool usable
+      ((HttpsURLConnection) connection).setSSLSocketFactory(SOCKET_FACTORY);
+    }
+    connection.setRequestMethod(REQUEST_GET);
+    connection.setConnectTimeout(CONNECT_TIMEOUT);
+    connection.setReadTimeout(READ_TIMEOUT);
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      connection.setRequestProperty(header.getKey(), header.getValue());
+    }
+    return new UrlConnectionExchange(connection);
+  }
+
+  @NonNull
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public long getRequestCount() {
+    return REQUEST_COUNT.get();
+  }
+
+  @Override
+  public long getConnectionCount() {
+    return SOCKET_FACTORY.getSocketCount();
+  }
+
+  @Override
+  public long getReusedCount() {
+    return Math.max(0, SECURE_REQUEST_COUNT.get() - SOCKET_FACTORY.getSocketCount());
+  }
+
+  @Override
+  public long getHandshakeCount() {
+    return SOCKET_FACTORY.getSocketCount();
+  }
+
+  /**
+   * An {@link Exchange} over a single {@link HttpURLConnection}.
+   */
+  private final class UrlConnectionExchange implements Exchange {
+
+    private final HttpURLConnection CONNECTION;
+    private volatile boolean isCancelled;
+    private long connectTime;
+    private int statusCode;
+    private String statusMessage;
+    private InputStream body;
+
+    private UrlConnectionExchange(HttpURLConnection connection) {
+      this.CONNECTION = connection;
+    }
+
+    @Override
+    public void execute() throws IOException {
+      REQUEST_COUNT.incrementAndGet();
+      if (SCHEME_HTTPS.equals(CONNECTION.getURL().getProtocol())) {
+        SECURE_REQUEST_COUNT.incrementAndGet();
+      }
+      long connectStart = System.nanoTime();
+      CONNECTION.connect();
+      connectTime = System.nanoTime() - connectStart;
+      statusCode = CONNECTION.getResponseCode();
+      statusMessage = CONNECTION.getResponseMessage();
+    }
+
+    @Override
+    public long getConnectTime() {
+      return connectTime;
+    }
+
+    @Override
+    public int getStatusCode() {
+      return statusCode;
+    }
+
+    @Nullable
+    @Override
+    public String getStatusMessage() {
+      return statusMessage;
+    }
+
+    @Nullable
+    @Override
+    public String getHeader(@NonNull String name) {
+      return CONNECTION.getHeaderField(name);
+    }
+
+    @Override
+    public long getContentLength() {
+      return CONNECTION.getContentLength();
+    }
+
+    @NonNull
+    @Override
+    public InputStream getBody() throws IOException {
+      if (body == null) {
+        body = CONNECTION.getInputStream();
+      }
+      return body;
+    }
+
+    @Override
+    public void cancel() {
+      isCancelled = true;
+      CONNECTION.disconnect();
+    }
+
+    @Override
+    public void close() {
+      if (isCancelled) {
+        return;
+      }
+      try {
+        // Closing the body instead of disconnecting keeps the connection alive
+        InputStream inputStream = body != null ? body : statusCode >= 400
+            ? CONNECTION.getErrorStream() : CONNECTION.getInputStream();
+        if (inputStream != null) {
+          inputStream.close();
+        }
+      } catch (IOException e) {
+        CONNECTION.disconnect();
+      }
+    }
+  }
+
+  /**
+   * An {@link SSLSocketFactory} that counts the TLS sockets it creates; each new socket performs a
+   * handshake, while a reused connection doesn't create one.
+   */
+  private static final class CountingSocketFactory extends SSLSocketFactory {
+
+    private final SSLSocketFactory DELEGATE;
+    private final AtomicLong SOCKET_COUNT = new AtomicLong();
+
+    private CountingSocketFactory(SSLSocketFactory delegate) {
+      this.DELEGATE = delegate;
+    }
+
+    private long getSocketCount() {
+      return SOCKET_COUNT.get();
+    }
+
+    private Socket count(Socket socket) {
+      SOCKET_COUNT.incrementAndGet();
+      return socket;
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+      return DELEGATE.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+      return DELEGATE.getSupportedCipherSuites();
+    }
+
+    @Override
+    public Socket createSocket(Socket socket, String host, int port, boolean autoClose)
+        throws IOException {
+      return count(DELEGATE.createSocket(socket, host, port, autoClose));
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+      return count(DELEGATE.createSocket());
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+      return count(DELEGATE.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort)
+        throws IOException {
+      return count(DELEGATE.createSocket(host, port, localHost, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+      return count(DELEGATE.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress,
+        int localPort) throws IOException {
+      return count(DELEGATE.createSocket(address, port, localAddress, localPort));
+    }
+  }
+}
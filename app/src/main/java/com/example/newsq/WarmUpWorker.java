@@ -0,0 +1,130 @@
+package com.example.newsq;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Worker} subclass that periodically downloads the World News and the user's most used
+ * news sections into the {@link StoryStore}, so the {@link com.example.newsq.ui.world.WorldFragment
+ * WorldFragment} and {@link com.example.newsq.ui.browse.BrowseFragment BrowseFragment} can display
+ * them as soon as they are opened.
+ * <p>
+ * The work only runs while the device is connected and the battery isn't low, and every feed is
+ * requested at the same time so a single wake-up of the radio serves the whole batch. Requests are
+ * cancelled if the constraints stop being met.
+ */
+public class WarmUpWorker extends Worker {
+
+  private static final String LOG_TAG = WarmUpWorker.class.getSimpleName();
+  private static final String WORK_NAME = "warm-up";
+  private static final long REPEAT_INTERVAL = 2;  // in hours
+  private static final int MAX_SECTIONS = 3;
+
+  private final List<CancellationSignal> SIGNALS = new ArrayList<>();
+
+  /**
+   * Creates a new {@link WarmUpWorker}; instances are created by {@link WorkManager}.
+   *
+   * @param context    The application {@link Context}.
+   * @param parameters The {@link WorkerParameters} of the work.
+   */
+  public WarmUpWorker(@NonNull Context context, @NonNull WorkerParameters parameters) {
+    super(context, parameters);
+  }
+
+  /**
+   * Schedules the periodic warm-up; work that is already scheduled is kept.
+   *
+   * @param context Any {@link Context}.
+   */
+  public static void schedule(@NonNull Context context) {
+    Constraints constraints = new Constraints.Builder()
+        .setRequiredNetworkType(NetworkType.CONNECTED)
+        .setRequiresBatteryNotLow(true)
+        .build();
+    PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(WarmUpWorker.class,
+        REPEAT_INTERVAL, TimeUnit.HOURS)
+        .setConstraints(constraints)
+        .build();
+    WorkManager.getInstance(context)
+        .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+  }
+
+  @NonNull
+  @Override
+  public Result doWork() {
+    List<String> urls = getWarmUpUrls();
+    ExecutorService executor = Executors.newFixedThreadPool(urls.size());
+    List<Future<FetchResult>> results = new ArrayList<>(urls.size());
+    synchronized (SIGNALS) {
+      for (String url : urls) {
+        CancellationSignal signal = new CancellationSignal();
+        SIGNALS.add(signal);
+        results.add(executor.submit(() -> QueryUtils.fetchNews(url, signal,
+            RequestLimiter.Priority.PREFETCH)));
+      }
+    }
+    StoryStore store = StoryStore.getInstance(getApplicationContext());
+    int warmedFeeds = 0;
+    try {
+      for (int i = 0; i < urls.size() && !isStopped(); i++) {
+        FetchResult result = results.get(i).get();
+        if (result.isSuccessful()) {
+          store.saveFeed(QueryUtils.canonicalizeUrl(urls.get(i)), result.getStories());
+          warmedFeeds++;
+        }
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      Log.e(LOG_TAG, "Unable to finish the warm-up.", e);
+    } finally {
+      executor.shutdownNow();
+    }
+    if (BuildConfig.DEBUG) {
+      Log.d(LOG_TAG, "Warmed " + warmedFeeds + " of " + urls.size() + " feeds");
+    }
+    return warmedFeeds > 0 || isStopped() ? Result.success() : Result.retry();
+  }
+
+  @Override
+  public void onStopped() {
+    synchronized (SIGNALS) {
+      for (CancellationSignal signal : SIGNALS) {
+        signal.cancel();
+      }
+    }
+  }
+
+  /**
+   * Returns the urls of the World News and the most used news sections.
+   *
+   * @return A {@link List} of urls for API requests.
+   */
+  private List<String> getWarmUpUrls() {
+    Context context = getApplicationContext();
+    String worldSection = context.getString(R.string.section_world);
+    List<String> urls = new ArrayList<>();
+    urls.add(QueryUtils.createSectionUrl(context, worldSection));
+    for (String section : SectionUsage.getInstance(context).getMostUsed(MAX_SECTIONS)) {
+      if (!section.equals(worldSection)) {
+        urls.add(QueryUtils.createSectionUrl(context, section));
+      }
+    }
+    return urls;
+  }
+}
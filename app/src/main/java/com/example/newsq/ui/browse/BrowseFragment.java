@@ -17,35 +17,47 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
-import androidx.loader.app.LoaderManager;
-import androidx.loader.app.LoaderManager.LoaderCallbacks;
-import androidx.loader.content.Loader;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import com.example.newsq.FetchResult;
+import com.example.newsq.Metrics;
+import com.example.newsq.ProgressPolicy;
 import com.example.newsq.QueryUtils;
 import com.example.newsq.R;
-import com.example.newsq.Story;
+import com.example.newsq.SectionPrefetcher;
+import com.example.newsq.SectionUsage;
 import com.example.newsq.StoryAdapter;
-import com.example.newsq.StoryLoader;
+import com.example.newsq.StoryItem;
+import com.example.newsq.StoryPager;
+import com.example.newsq.StoryRepository;
+import com.example.newsq.StoryViewModel;
 import com.example.newsq.databinding.FragmentBrowseBinding;
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
- * A {@link Fragment} subclass that implements {@link LoaderCallbacks} and is responsible for
+ * A {@link Fragment} subclass that observes a {@link StoryViewModel} and is responsible for
  * displaying the selected news category provided by the API.
  */
-public class BrowseFragment extends Fragment implements AdapterView.OnItemSelectedListener,
-    LoaderCallbacks<ArrayList<Story>> {
+public class BrowseFragment extends Fragment implements AdapterView.OnItemSelectedListener {
 
+  private static final long STALE_AFTER = 10 * 60 * 1000; // in milliseconds
+  private static final String SCREEN_NAME = "Browse"; // for Metrics
+  private final SectionPrefetcher PREFETCHER = SectionPrefetcher.getInstance();
   private String url;
-  private boolean hasLoaderInit = false;
+  private String displayedUrl;
   private FragmentBrowseBinding binding;
   private RecyclerView recyclerView;
   private StoryAdapter storyAdapter;
+  private StoryPager storyPager;
   private ProgressBar progressBar;
+  private ProgressPolicy progressPolicy;
   private TextView defaultView;
+  private StoryViewModel storyViewModel;
+  private long loadStartTime = -1;
 
   public BrowseFragment() {
     // Required empty public constructor
@@ -62,13 +74,51 @@ public class BrowseFragment extends Fragment implements AdapterView.OnItemSelect
     hideKeyboard(container);
     binding = FragmentBrowseBinding.inflate(inflater, container, false);
     progressBar = binding.progressCircular;
+    progressPolicy = new ProgressPolicy(progressBar);
     defaultView = binding.textBrowseDefault;
     recyclerView = binding.listNewsStories;
+    storyAdapter = new StoryAdapter(getContext());
+    storyAdapter.setScreenName(SCREEN_NAME);
+    recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+    recyclerView.setAdapter(storyAdapter);
+    storyPager = new StoryPager(recyclerView);
+    storyViewModel = new ViewModelProvider(this).get(StoryViewModel.class);
+    storyViewModel.setStaleAfter(STALE_AFTER);
+    url = storyViewModel.getUrl(); // Retained through configuration changes
     createBrowseSpinner();
     defaultView.setText(R.string.browse_default_message);
+    prefetchSections();
     return binding.getRoot();
   }
 
+  @Override
+  public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+    super.onViewCreated(view, savedInstanceState);
+    storyViewModel.getResult().observe(getViewLifecycleOwner(), this::onStoriesLoaded);
+  }
+
+  /**
+   * Starts fetching the news sections in the background so that selections from the spinner can
+   * be displayed without waiting for the API; sections with a result or stored stories that
+   * aren't older than {@link #STALE_AFTER} are skipped.
+   */
+  private void prefetchSections() {
+    if (!QueryUtils.isDeviceConnected(getContext())) {
+      return;
+    }
+    StoryRepository repository = StoryRepository.getInstance(requireContext());
+    Map<String, String> sectionUrls = new LinkedHashMap<>();
+    String[] sections = getResources().getStringArray(R.array.section_array);
+    for (int i = 1; i < sections.length; i++) { // Skips the default/non-functional array item
+      String sectionUrl = QueryUtils.createSectionUrl(requireContext(), sections[i]);
+      FetchResult result = repository.getCachedResult(sectionUrl);
+      if (result == null || result.getAge() > STALE_AFTER) {
+        sectionUrls.put(sections[i], sectionUrl);
+      }
+    }
+    PREFETCHER.prefetch(requireContext(), sectionUrls, STALE_AFTER);
+  }
+
   /**
    * Uses {@link InputMethodManager} to hide the software keyboard; this method prevents the
    * keyboard from remaining on the screen if it was visible when switching from the {@link
@@ -120,7 +170,16 @@ public class BrowseFragment extends Fragment implements AdapterView.OnItemSelect
       String selection = parent.getSelectedItem().toString();
       binding.textNowReadingSection.setVisibility(View.VISIBLE);
       createUrlString(selection);
-      checkConfigureLoader();
+      if (!url.equals(storyViewModel.getUrl())) {
+        // Restored selections aren't counted again; the most used sections are warmed up
+        SectionUsage.getInstance(requireContext()).recordUse(getSpinnerMap().get(selection));
+      }
+      FetchResult prefetchedResult = PREFETCHER.getCachedResult(url);
+      if (prefetchedResult != null) {
+        // The repository publishes the prefetched result instead of contacting the API
+        StoryRepository.getInstance(requireContext()).offer(url, prefetchedResult);
+      }
+      loadStories();
     } else {
       binding.textNowReadingSection.setVisibility(View.INVISIBLE);
     }
@@ -132,23 +191,7 @@ public class BrowseFragment extends Fragment implements AdapterView.OnItemSelect
    * @param spinnerSelection A {@link String} that contains the user's selection from the spinner.
    */
   private void createUrlString(String spinnerSelection) {
-    Map<String, String> uriSegments = new HashMap<>();
-    String section = getSpinnerMap().get(spinnerSelection);
-    // Base URL
-    uriSegments.put(getString(R.string.uri_scheme_key), getString(R.string.uri_scheme_value));
-    uriSegments.put(getString(R.string.uri_authority_key), getString(R.string.uri_authority_value));
-    // Section
-    uriSegments.put(getString(R.string.uri_path_key), section); // Add selection to query
-    // Parameters
-    uriSegments.put(getString(R.string.param_key_show_fields),
-        getString(R.string.param_value_multiple_fields));
-    uriSegments
-        .put(getString(R.string.param_key_page_size), getString(R.string.param_value_page_size_30));
-    uriSegments.put(getString(R.string.param_key_use_date),
-        getString(R.string.param_value_use_date_last_modified));
-    uriSegments.put(getString(R.string.param_key_order_by),
-        getString(R.string.param_value_order_by_newest));
-    url = QueryUtils.createUri(uriSegments);
+    url = QueryUtils.createSectionUrl(requireContext(), getSpinnerMap().get(spinnerSelection));
   }
 
   /**
@@ -167,95 +210,100 @@ public class BrowseFragment extends Fragment implements AdapterView.OnItemSelect
   }
 
   /**
-   * Checks for an Internet connection before initializing or restarting the loader and contacting
-   * the API.
+   * Requests the stories of the selected section from the {@link StoryRepository}; stored stories
+   * are displayed while offline, so the request is made without an Internet connection as well. A
+   * result that is already loaded, e.g. before a rotation or tab switch, is displayed immediately
+   * instead of the progress bar, and is refreshed in the background once it is older than {@link
+   * #STALE_AFTER}. The request for a previous selection is cancelled.
    */
-  private void checkConfigureLoader() {
-    final int BROWSE_LOADER_ID = 2;
-    recyclerView.setVisibility(View.INVISIBLE);
-    if (QueryUtils.isDeviceConnected(getContext())) {
+  private void loadStories() {
+    if (!storyViewModel.hasResult(url)) {
+      recyclerView.setVisibility(View.INVISIBLE);
       defaultView.setVisibility(View.INVISIBLE);
-      progressBar.setVisibility(View.VISIBLE);
-      /*
-      Checks hasLoaderInit to determine if restartLoader or initLoader is called; hasLoaderInit is
-      only false before the first news query is made.
-       */
-      if (!hasLoaderInit) {
-        LoaderManager.getInstance(this).initLoader(BROWSE_LOADER_ID, null, this);
-        hasLoaderInit = true;
-      } else {
-        LoaderManager.getInstance(this).restartLoader(BROWSE_LOADER_ID, null, this);
-      }
-    } else {
-      defaultView.setVisibility(View.VISIBLE);
-      defaultView.setText(getString(R.string.no_network_connection));
+      progressPolicy.start();
+      loadStartTime = Metrics.startTimer();
     }
+    storyViewModel.setUrl(url);
   }
 
-  @NonNull
-  @Override
-  public Loader<ArrayList<Story>> onCreateLoader(int id, @Nullable Bundle args) {
-    return new StoryLoader(requireContext(), url);
+  /**
+   * Called by the {@link StoryViewModel} with each result of the selected section.
+   *
+   * @param result The {@link FetchResult} of the request.
+   */
+  private void onStoriesLoaded(FetchResult result) {
+    if (result != null && url != null) {
+      PREFETCHER.put(url, result);
+    }
+    progressPolicy.finish(() -> {
+      updateUserInterface(result);
+      recordLoadTime();
+    });
   }
 
-  @Override
-  public void onLoadFinished(@NonNull Loader<ArrayList<Story>> loader, ArrayList<Story> storyData) {
-    updateUserInterface(QueryUtils.isResponseValid(), storyData);
+  /**
+   * Records the time from showing the progress bar until the result is displayed in {@link
+   * Metrics}; results that refresh stories already on screen aren't timed.
+   */
+  private void recordLoadTime() {
+    if (loadStartTime >= 0) {
+      Metrics.getInstance().record(Metrics.STAGE_LOAD, SCREEN_NAME, loadStartTime);
+      loadStartTime = -1;
+    }
   }
 
   /**
-   * Helper method for {@link #onLoadFinished} that updates the user interface based on
-   * valid/invalid responses and empty/null cases.
+   * Helper method for {@link #onStoriesLoaded} that updates the user interface based on
+   * successful/unsuccessful requests and empty/null cases.
    *
-   * @param validResponse A {@link Boolean} that indicates if the HTTP response is valid.
-   * @param storyData     An {@link ArrayList} of {@link Story} objects.
+   * @param result The {@link FetchResult} of the request.
    */
-  private void updateUserInterface(boolean validResponse, ArrayList<Story> storyData) {
-    progressBar.setVisibility(View.INVISIBLE);
+  private void updateUserInterface(FetchResult result) {
     defaultView.setVisibility(View.VISIBLE);
-    if (storyData == null) {
-      if (!QueryUtils.isDeviceConnected(getContext())) {
-        recyclerView.setVisibility(View.INVISIBLE);
-        defaultView.setText(R.string.no_network_connection);
-      } else {
-        defaultView.setText(R.string.no_data_available);
-      }
-    } else if (!validResponse) {
-      updateInvalidResponse();
+    if (result == null) {
+      defaultView.setText(R.string.no_data_available);
+    } else if (!result.isSuccessful()) {
+      updateInvalidResponse(result);
     } else {
-      updateValidResponse(storyData);
+      updateValidResponse(result.getItems());
     }
   }
 
   /**
-   * Updates the interface based on invalid responses; this method will show response codes and
-   * messages or a general error for connection-specific errors that yield no response codes.
+   * Updates the interface based on unsuccessful requests; this method will show response codes
+   * and messages, a general error for connection-specific errors that yield no response codes, or
+   * a message for responses that can't be read.
+   *
+   * @param result The unsuccessful {@link FetchResult} of the request.
    */
-  private void updateInvalidResponse() {
-    if (QueryUtils.isConnectionError()) {
-      defaultView.setText(getString(R.string.problem_with_request));
-    } else {
-      defaultView.setText(QueryUtils.httpResponseMessage);
+  private void updateInvalidResponse(FetchResult result) {
+    if (!QueryUtils.isDeviceConnected(getContext())) {
+      recyclerView.setVisibility(View.INVISIBLE);
+      defaultView.setText(R.string.no_network_connection);
+      return;
     }
+    defaultView.setText(result.getErrorMessage(requireContext()));
   }
 
   /**
-   * Updates the user interface based on valid responses; this method displays messages for parsing
-   * errors, displays news, and uses a general error where necessary.
+   * Updates the user interface based on successful requests; this method displays news, and uses a
+   * general error where necessary.
    *
-   * @param stories An {@link ArrayList} of {@link Story} objects.
+   * @param stories A {@link List} of {@link StoryItem} objects.
    */
-  private void updateValidResponse(ArrayList<Story> stories) {
-    if (QueryUtils.isParseError) {
-      defaultView.setText(R.string.problem_with_response);
-    } else if (QueryUtils.isNoDataResponse) {
-      defaultView.setText(R.string.no_data_available);
-    } else if (!QueryUtils.isNullOrEmpty(stories)) {
+  private void updateValidResponse(List<StoryItem> stories) {
+    if (!QueryUtils.isNullOrEmpty(stories)) {
       defaultView.setVisibility(View.INVISIBLE);
-      recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-      storyAdapter = new StoryAdapter(getContext(), stories);
+      // A new feed is displayed from its first story instead of the previous scroll position
+      boolean isNewFeed = !url.equals(displayedUrl);
+      displayedUrl = url;
+      // A refreshed result of the displayed feed updates the stories that are displayed
+      if (isNewFeed || !storyPager.refreshFeed(url, stories)) {
+        storyAdapter.submitStories(stories, isNewFeed ? () -> recyclerView.scrollToPosition(0)
+            : null);
+        storyPager.setFeed(url, storyAdapter, stories);
+      }
       recyclerView.setVisibility(View.VISIBLE);
-      recyclerView.setAdapter(storyAdapter);
     } else {
       defaultView.setVisibility(View.VISIBLE);
       defaultView.setText(getString(R.string.problem_with_request));
@@ -268,15 +316,19 @@ public class BrowseFragment extends Fragment implements AdapterView.OnItemSelect
   }
 
   @Override
-  public void onLoaderReset(@NonNull Loader<ArrayList<Story>> storyLoader) {
-    if (storyAdapter != null) {
-      storyAdapter.updateStories(new ArrayList<>());
-    }
+  public void onDestroyView() {
+    super.onDestroyView();
+    // Detaches the adapter so it stops listening to the RelativeTimeTicker
+    recyclerView.setAdapter(null);
+    // The next view gets a new pager and progress policy, so these are released with this one
+    progressPolicy.cancel();
+    storyPager.cancel(recyclerView);
   }
 
   @Override
   public void onDestroy() {
     super.onDestroy();
+    PREFETCHER.cancel();
     binding = null;
   }
 }
\ No newline at end of file
@@ -1,44 +1,76 @@
 package com.example.newsq.ui.search;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.widget.SearchView;
 import androidx.appcompat.widget.SearchView.OnQueryTextListener;
 import androidx.fragment.app.Fragment;
-import androidx.loader.app.LoaderManager;
-import androidx.loader.app.LoaderManager.LoaderCallbacks;
-import androidx.loader.content.Loader;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import com.example.newsq.BuildConfig;
+import com.example.newsq.FetchResult;
+import com.example.newsq.Metrics;
+import com.example.newsq.ProgressPolicy;
 import com.example.newsq.QueryUtils;
 import com.example.newsq.R;
-import com.example.newsq.Story;
+import com.example.newsq.SearchResultCache;
 import com.example.newsq.StoryAdapter;
-import com.example.newsq.StoryLoader;
+import com.example.newsq.StoryField;
+import com.example.newsq.StoryIndex;
+import com.example.newsq.StoryItem;
+import com.example.newsq.StoryPager;
+import com.example.newsq.StoryViewModel;
 import com.example.newsq.databinding.FragmentSearchBinding;
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
- * A {@link Fragment} subclass that implements {@link LoaderCallbacks} and is responsible for
+ * A {@link Fragment} subclass that observes a {@link StoryViewModel} and is responsible for
  * displaying the news search results provided by the API.
+ * <p>
+ * Queries are searched as they are typed: keystrokes are debounced, a new query replaces the url
+ * of the {@link StoryViewModel} so the superseded request is cancelled, and results are kept in
+ * the {@link SearchResultCache} so a repeated query is displayed without contacting the API.
+ * <p>
+ * While the API is contacted, the query is answered locally from the {@link StoryIndex} of every
+ * story the app has loaded, or from the cached results of a shorter query; if the API can't be
+ * reached, the local results stay on the screen.
  */
-public class SearchFragment extends Fragment implements LoaderCallbacks<ArrayList<Story>> {
+public class SearchFragment extends Fragment {
 
+  private static final long STALE_AFTER = 2 * 60 * 1000; // in milliseconds
+  private static final String SCREEN_NAME = "Search"; // for Metrics
+  private static final long SEARCH_DEBOUNCE = 300; // in milliseconds
+  private static final int MIN_QUERY_LENGTH = 2;
+  private static final int MAX_LOCAL_RESULTS = 50;
   private final String SEARCH_STRING = "searchQuery";
-  private boolean hasLoaderInit = false;
+  private final SearchResultCache SEARCH_CACHE = SearchResultCache.getInstance();
+  private final Handler SEARCH_HANDLER = new Handler(Looper.getMainLooper());
+  private final Runnable SEARCH_RUNNABLE = this::searchPendingQuery;
+  private String pendingQuery;
+  private String currentQuery;
+  private boolean isShowingLocalResults = false;
   private String url;
+  private String displayedUrl;
   private FragmentSearchBinding binding;
   private RecyclerView recyclerView;
   private StoryAdapter storyAdapter;
+  private StoryPager storyPager;
   private ProgressBar progressBar;
+  private ProgressPolicy progressPolicy;
   private TextView defaultView;
+  private StoryViewModel storyViewModel;
+  private long loadStartTime = -1;
 
   public SearchFragment() {
     // Required empty public constructor
@@ -60,7 +92,16 @@ public class SearchFragment extends Fragment implements LoaderCallbacks<ArrayLis
       Bundle savedInstanceState) {
     binding = FragmentSearchBinding.inflate(inflater, container, false);
     recyclerView = binding.listNewsStories;
+    storyAdapter = new StoryAdapter(getContext());
+    storyAdapter.setScreenName(SCREEN_NAME);
+    recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+    recyclerView.setAdapter(storyAdapter);
+    storyPager = new StoryPager(recyclerView);
+    storyViewModel = new ViewModelProvider(this).get(StoryViewModel.class);
+    storyViewModel.setStaleAfter(STALE_AFTER);
+    url = storyViewModel.getUrl(); // Retained through configuration changes
     progressBar = binding.progressCircular;
+    progressPolicy = new ProgressPolicy(progressBar);
     defaultView = binding.textSearchDefault;
     defaultView.setText(R.string.search_default_message);
     configureSearchField();
@@ -70,6 +111,12 @@ public class SearchFragment extends Fragment implements LoaderCallbacks<ArrayLis
     return binding.getRoot();
   }
 
+  @Override
+  public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+    super.onViewCreated(view, savedInstanceState);
+    storyViewModel.getResult().observe(getViewLifecycleOwner(), this::onStoriesLoaded);
+  }
+
   /**
    * Configures the {@link SearchView} for news queries.
    */
@@ -81,19 +128,80 @@ public class SearchFragment extends Fragment implements LoaderCallbacks<ArrayLis
     searchView.setOnQueryTextListener(new OnQueryTextListener() {
       @Override
       public boolean onQueryTextSubmit(String query) {
-        createUrlString(query);
-        checkConfigureLoader();
+        SEARCH_HANDLER.removeCallbacks(SEARCH_RUNNABLE);
+        currentQuery = null; // Submitting always searches again
+        search(query);
         searchView.clearFocus();
         return false;
       }
 
       @Override
       public boolean onQueryTextChange(String newText) {
-        return false;
+        // Waits for typing to pause before searching
+        SEARCH_HANDLER.removeCallbacks(SEARCH_RUNNABLE);
+        if (SearchResultCache.normalize(newText).length() >= MIN_QUERY_LENGTH) {
+          pendingQuery = newText;
+          SEARCH_HANDLER.postDelayed(SEARCH_RUNNABLE, SEARCH_DEBOUNCE);
+        }
+        return true;
       }
     });
   }
 
+  /**
+   * Searches for a query; cached results are displayed without contacting the API, and local
+   * results are displayed while the API is contacted.
+   *
+   * @param query A {@link String} that contains the user input.
+   */
+  private void search(String query) {
+    String normalizedQuery = SearchResultCache.normalize(query);
+    if (normalizedQuery.isEmpty() || normalizedQuery.equals(currentQuery)) {
+      return;
+    }
+    currentQuery = normalizedQuery;
+    createUrlString(query.trim());
+    List<StoryItem> cachedStories = SEARCH_CACHE.get(normalizedQuery);
+    if (cachedStories != null) {
+      showCachedResults(cachedStories);
+      return;
+    }
+    if (loadStories()) {
+      return;
+    }
+    List<StoryItem> localStories = StoryIndex.getInstance()
+        .search(normalizedQuery, MAX_LOCAL_RESULTS);
+    if (localStories.isEmpty()) {
+      localStories = SEARCH_CACHE.getPrefixMatches(normalizedQuery);
+    }
+    if (!QueryUtils.isNullOrEmpty(localStories)) {
+      // The stories aren't the first page of the new request, so they aren't paged
+      storyPager.clearFeed();
+      storyAdapter.submitStories(localStories, () -> recyclerView.scrollToPosition(0));
+      displayedUrl = null;
+      isShowingLocalResults = true;
+      recyclerView.setVisibility(View.VISIBLE);
+    }
+  }
+
+  /**
+   * Searches for the last query typed before the debounce delay expired.
+   */
+  private void searchPendingQuery() {
+    search(pendingQuery);
+  }
+
+  /**
+   * Displays the cached results of a query and cancels any search that is still loading.
+   *
+   * @param stories A {@link List} of {@link StoryItem} objects.
+   */
+  private void showCachedResults(List<StoryItem> stories) {
+    storyViewModel.setUrl(null);
+    progressPolicy.cancel();
+    updateValidResponse(stories);
+  }
+
   /**
    * Creates a {@link String} formatted for an API request.
    *
@@ -102,109 +210,127 @@ public class SearchFragment extends Fragment implements LoaderCallbacks<ArrayLis
   private void createUrlString(String searchTerm) {
     Map<String, String> uriSegments = new HashMap<>();
     // Base URL
-    uriSegments.put(getString(R.string.uri_scheme_key), getString(R.string.uri_scheme_value));
-    uriSegments.put(getString(R.string.uri_authority_key), getString(R.string.uri_authority_value));
+    uriSegments.put(getString(R.string.uri_scheme_key), BuildConfig.API_SCHEME);
+    uriSegments.put(getString(R.string.uri_authority_key), BuildConfig.API_AUTHORITY);
     // Section
     uriSegments.put(getString(R.string.uri_path_key), getString(R.string.endpoint_content));
     // Parameters
     uriSegments.put(getString(R.string.param_query), searchTerm); // Add search term
     uriSegments.put(getString(R.string.param_key_show_fields),
-        getString(R.string.param_value_multiple_fields));
+        StoryField.toParameterValue(StoryField.DISPLAYED_FIELDS));
     uriSegments
         .put(getString(R.string.param_key_page_size), getString(R.string.param_value_page_size_30));
     url = QueryUtils.createUri(uriSegments);
   }
 
   /**
-   * Checks for an Internet connection before initializing or restarting the loader and contacting
-   * the API.
+   * Requests the search results from the {@link com.example.newsq.StoryRepository
+   * StoryRepository}; stored results are displayed while offline, so the request is made without an
+   * Internet connection as well. A result that is already loaded, e.g. before a rotation or tab
+   * switch, is displayed immediately instead of the progress bar, and is refreshed in the
+   * background once it is older than {@link #STALE_AFTER}. The request for a previous query is
+   * cancelled.
+   *
+   * @return A {@link Boolean} value of true if a loaded result is displayed, and false if the
+   * results are loading.
    */
-  private void checkConfigureLoader() {
-    recyclerView.setVisibility(View.INVISIBLE);
-    final int SEARCH_LOADER_ID = 3;
-    if (QueryUtils.isDeviceConnected(getContext())) {
+  private boolean loadStories() {
+    isShowingLocalResults = false;
+    boolean hasResult = storyViewModel.hasResult(url);
+    if (!hasResult) {
+      recyclerView.setVisibility(View.INVISIBLE);
       defaultView.setVisibility(View.INVISIBLE);
-      progressBar.setVisibility(View.VISIBLE);
-      /*
-      Checks hasLoaderInit to determine if restartLoader or initLoader is called; hasLoaderInit is
-      only false before the first news query is made.
-       */
-      if (!hasLoaderInit) {
-        LoaderManager.getInstance(this).initLoader(SEARCH_LOADER_ID, null, this);
-        hasLoaderInit = true;
-      } else {
-        LoaderManager.getInstance(this).restartLoader(SEARCH_LOADER_ID, null, this);
-      }
-    } else {
-      defaultView.setVisibility(View.VISIBLE);
-      defaultView.setText(getString(R.string.no_network_connection));
+      progressPolicy.start();
+      loadStartTime = Metrics.startTimer();
     }
+    storyViewModel.setUrl(url);
+    return hasResult;
   }
 
-  @NonNull
-  @Override
-  public Loader<ArrayList<Story>> onCreateLoader(int id, Bundle args) {
-    return new StoryLoader(requireContext(), url);
+  /**
+   * Called by the {@link StoryViewModel} with each result of the current query.
+   *
+   * @param result The {@link FetchResult} of the request.
+   */
+  private void onStoriesLoaded(FetchResult result) {
+    if (result != null && result.isSuccessful() && !result.isFromStore()
+        && currentQuery != null) {
+      SEARCH_CACHE.put(currentQuery, result.getItems());
+    }
+    progressPolicy.finish(() -> {
+      updateUserInterface(result);
+      recordLoadTime();
+    });
   }
 
-  @Override
-  public void onLoadFinished(@NonNull Loader<ArrayList<Story>> loader, ArrayList<Story> storyData) {
-    updateUserInterface(QueryUtils.isResponseValid(), storyData);
+  /**
+   * Records the time from showing the progress bar until the result is displayed in {@link
+   * Metrics}; results that refresh stories already on screen aren't timed.
+   */
+  private void recordLoadTime() {
+    if (loadStartTime >= 0) {
+      Metrics.getInstance().record(Metrics.STAGE_LOAD, SCREEN_NAME, loadStartTime);
+      loadStartTime = -1;
+    }
   }
 
   /**
-   * Helper method for {@link #onLoadFinished} that updates the user interface based on
-   * valid/invalid responses and empty/null cases.
+   * Helper method for {@link #onStoriesLoaded} that updates the user interface based on
+   * successful/unsuccessful requests and empty/null cases.
    *
-   * @param validResponse A {@link Boolean} that indicates if the HTTP response is valid.
-   * @param storyData     An {@link ArrayList} of {@link Story} objects.
+   * @param result The {@link FetchResult} of the request.
    */
-  private void updateUserInterface(boolean validResponse, ArrayList<Story> storyData) {
-    progressBar.setVisibility(View.INVISIBLE);
+  private void updateUserInterface(FetchResult result) {
+    if (isShowingLocalResults && (result == null || !result.isSuccessful())) {
+      // Keeps the local results instead of an error
+      return;
+    }
     defaultView.setVisibility(View.VISIBLE);
-    if (storyData == null) {
-      if (!QueryUtils.isDeviceConnected(getContext())) {
-        recyclerView.setVisibility(View.INVISIBLE);
-        defaultView.setText(R.string.no_network_connection);
-      } else {
-        defaultView.setText(R.string.no_data_available);
-      }
-    } else if (!validResponse) {
-      updateInvalidResponse();
+    if (result == null) {
+      defaultView.setText(R.string.no_data_available);
+    } else if (!result.isSuccessful()) {
+      updateInvalidResponse(result);
     } else {
-      updateValidResponse(storyData);
+      updateValidResponse(result.getItems());
     }
   }
 
   /**
-   * Updates the interface based on invalid responses; this method will show response codes and
-   * messages or a general error for connection-specific errors that yield no response codes.
+   * Updates the interface based on unsuccessful requests; this method will show response codes
+   * and messages, a general error for connection-specific errors that yield no response codes, or
+   * a message for responses that can't be read.
+   *
+   * @param result The unsuccessful {@link FetchResult} of the request.
    */
-  private void updateInvalidResponse() {
-    if (QueryUtils.isConnectionError()) {
-      defaultView.setText(getString(R.string.problem_with_request));
-    } else {
-      defaultView.setText(QueryUtils.httpResponseMessage);
+  private void updateInvalidResponse(FetchResult result) {
+    if (!QueryUtils.isDeviceConnected(getContext())) {
+      recyclerView.setVisibility(View.INVISIBLE);
+      defaultView.setText(R.string.no_network_connection);
+      return;
     }
+    defaultView.setText(result.getErrorMessage(requireContext()));
   }
 
   /**
-   * Updates the user interface based on valid responses; this method displays messages for parsing
-   * errors, displays news, and uses a general error where necessary.
+   * Updates the user interface based on successful requests; this method displays news, and uses a
+   * general error where necessary.
    *
-   * @param stories An {@link ArrayList} of {@link Story} objects.
+   * @param stories A {@link List} of {@link StoryItem} objects.
    */
-  private void updateValidResponse(ArrayList<Story> stories) {
-    if (QueryUtils.isParseError) {
-      defaultView.setText(R.string.problem_with_response);
-    } else if (QueryUtils.isNoDataResponse) {
-      defaultView.setText(R.string.no_data_available);
-    } else if (!QueryUtils.isNullOrEmpty(stories)) {
+  private void updateValidResponse(List<StoryItem> stories) {
+    isShowingLocalResults = false;
+    if (!QueryUtils.isNullOrEmpty(stories)) {
       defaultView.setVisibility(View.INVISIBLE);
-      recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-      storyAdapter = new StoryAdapter(getContext(), stories);
+      // A new feed is displayed from its first story instead of the previous scroll position
+      boolean isNewFeed = !url.equals(displayedUrl);
+      displayedUrl = url;
+      // A refreshed result of the displayed feed updates the stories that are displayed
+      if (isNewFeed || !storyPager.refreshFeed(url, stories)) {
+        storyAdapter.submitStories(stories, isNewFeed ? () -> recyclerView.scrollToPosition(0)
+            : null);
+        storyPager.setFeed(url, storyAdapter, stories);
+      }
       recyclerView.setVisibility(View.VISIBLE);
-      recyclerView.setAdapter(storyAdapter);
     } else {
       defaultView.setVisibility(View.VISIBLE);
       defaultView.setText(getString(R.string.problem_with_request));
@@ -222,10 +348,15 @@ public class SearchFragment extends Fragment implements LoaderCallbacks<ArrayLis
   }
 
   @Override
-  public void onLoaderReset(@NonNull Loader<ArrayList<Story>> loader) {
-    if (storyAdapter != null) {
-      storyAdapter.updateStories(new ArrayList<>());
-    }
+  public void onDestroyView() {
+    super.onDestroyView();
+    // A pending search would run against the destroyed view
+    SEARCH_HANDLER.removeCallbacks(SEARCH_RUNNABLE);
+    // Detaches the adapter so it stops listening to the RelativeTimeTicker
+    recyclerView.setAdapter(null);
+    // The next view gets a new pager and progress policy, so these are released with this one
+    progressPolicy.cancel();
+    storyPager.cancel(recyclerView);
   }
 
   @Override
@@ -0,0 +1,103 @@
+package com.example.newsq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for {@link CircuitBreaker}.
+ */
+public class CircuitBreakerTest {
+
+  private static final int FAILURE_THRESHOLD = 3;
+  private static final long OPEN_TIME = 100; // in milliseconds
+
+  @Test
+  public void closed_allowsRequestsBelowThreshold() {
+    CircuitBreaker breaker = new CircuitBreaker(FAILURE_THRESHOLD, OPEN_TIME);
+    breaker.recordFailure();
+    breaker.recordFailure();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertTrue(breaker.allowRequest());
+    assertTrue(breaker.allowRequest());
+  }
+
+  @Test
+  public void success_resetsConsecutiveFailures() {
+    CircuitBreaker breaker = new CircuitBreaker(FAILURE_THRESHOLD, OPEN_TIME);
+    breaker.recordFailure();
+    breaker.recordFailure();
+    breaker.recordSuccess();
+    breaker.recordFailure();
+    breaker.recordFailure();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void failuresAtThreshold_openCircuit() {
+    CircuitBreaker breaker = openBreaker();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.allowRequest());
+    assertFalse(breaker.allowRequest());
+    assertEquals(1, breaker.getOpenCount());
+    assertEquals(2, breaker.getRejectedCount());
+  }
+
+  @Test
+  public void openTimeElapsed_letsOneTrialThrough() throws InterruptedException {
+    CircuitBreaker breaker = openBreaker();
+    Thread.sleep(OPEN_TIME + 20);
+    assertTrue(breaker.allowRequest());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    assertFalse(breaker.allowRequest());
+    assertEquals(1, breaker.getRejectedCount());
+  }
+
+  @Test
+  public void successfulTrial_closesCircuit() throws InterruptedException {
+    CircuitBreaker breaker = openBreaker();
+    Thread.sleep(OPEN_TIME + 20);
+    assertTrue(breaker.allowRequest());
+    breaker.recordSuccess();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertTrue(breaker.allowRequest());
+    assertTrue(breaker.allowRequest());
+  }
+
+  @Test
+  public void failedTrial_opensCircuitAgain() throws InterruptedException {
+    CircuitBreaker breaker = openBreaker();
+    Thread.sleep(OPEN_TIME + 20);
+    assertTrue(breaker.allowRequest());
+    breaker.recordFailure();
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.allowRequest());
+    assertEquals(2, breaker.getOpenCount());
+  }
+
+  @Test
+  public void staleTrial_isReplaced() throws InterruptedException {
+    CircuitBreaker breaker = openBreaker();
+    Thread.sleep(OPEN_TIME + 20);
+    assertTrue(breaker.allowRequest());
+    // The trial never reports back, e.g. because it was cancelled
+    assertFalse(breaker.allowRequest());
+    Thread.sleep(OPEN_TIME + 20);
+    assertTrue(breaker.allowRequest());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    assertFalse(breaker.allowRequest());
+  }
+
+  /**
+   * Returns a {@link CircuitBreaker} that was just opened by consecutive failures.
+   */
+  private static CircuitBreaker openBreaker() {
+    CircuitBreaker breaker = new CircuitBreaker(FAILURE_THRESHOLD, OPEN_TIME);
+    for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+      breaker.recordFailure();
+    }
+    return breaker;
+  }
+}
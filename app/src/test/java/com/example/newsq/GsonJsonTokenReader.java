@@ -0,0 +1,91 @@
+package com.example.newsq;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * A {@link JsonTokenReader} that reads from a Gson {@link JsonReader}, which {@code
+ * android.util.JsonReader} was derived from and which reads input the same way. It lets the unit
+ * tests and the JVM benchmarks run {@link StoryParser} without the Android framework.
+ */
+public final class GsonJsonTokenReader implements JsonTokenReader {
+
+  private final JsonReader READER;
+
+  /**
+   * Creates a {@link GsonJsonTokenReader} for a {@link JsonReader}; closing this reader closes the
+   * {@link JsonReader}.
+   *
+   * @param reader The {@link JsonReader} to read from.
+   */
+  public GsonJsonTokenReader(JsonReader reader) {
+    this.READER = reader;
+  }
+
+  @Override
+  public boolean hasContent() throws IOException {
+    try {
+      READER.peek();
+    } catch (EOFException e) {
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void beginObject() throws IOException {
+    READER.beginObject();
+  }
+
+  @Override
+  public void endObject() throws IOException {
+    READER.endObject();
+  }
+
+  @Override
+  public void beginArray() throws IOException {
+    READER.beginArray();
+  }
+
+  @Override
+  public void endArray() throws IOException {
+    READER.endArray();
+  }
+
+  @Override
+  public boolean hasNext() throws IOException {
+    return READER.hasNext();
+  }
+
+  @Override
+  public String nextName() throws IOException {
+    return READER.nextName();
+  }
+
+  @Override
+  public String nextString() throws IOException {
+    return READER.nextString();
+  }
+
+  @Override
+  public boolean isNextNull() throws IOException {
+    return READER.peek() == JsonToken.NULL;
+  }
+
+  @Override
+  public void nextNull() throws IOException {
+    READER.nextNull();
+  }
+
+  @Override
+  public void skipValue() throws IOException {
+    READER.skipValue();
+  }
+
+  @Override
+  public void close() throws IOException {
+    READER.close();
+  }
+}
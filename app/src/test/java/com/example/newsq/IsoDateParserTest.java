@@ -0,0 +1,109 @@
+package com.example.newsq;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for {@link IsoDateParser}.
+ */
+public class IsoDateParserTest {
+
+  /**
+   * The time of 2020-12-15T18:04:31Z in milliseconds since the epoch.
+   */
+  private static final long TIME = 1608055471000L;
+
+  @Test
+  public void parseEpochMillis_utc() {
+    assertEquals(TIME, IsoDateParser.parseEpochMillis("2020-12-15T18:04:31Z"));
+    assertEquals(TIME, IsoDateParser.parseEpochMillis("2020-12-15 18:04:31Z"));
+    assertEquals(0, IsoDateParser.parseEpochMillis("1970-01-01T00:00:00Z"));
+  }
+
+  @Test
+  public void parseEpochMillis_noOffset_isUtc() {
+    assertEquals(TIME, IsoDateParser.parseEpochMillis("2020-12-15T18:04:31"));
+  }
+
+  @Test
+  public void parseEpochMillis_offsets() {
+    long hour = 60 * 60 * 1000L;
+    assertEquals(TIME - 5 * hour - hour / 2,
+        IsoDateParser.parseEpochMillis("2020-12-15T18:04:31+05:30"));
+    assertEquals(TIME - 5 * hour - hour / 2,
+        IsoDateParser.parseEpochMillis("2020-12-15T18:04:31+0530"));
+    assertEquals(TIME - 5 * hour, IsoDateParser.parseEpochMillis("2020-12-15T18:04:31+05"));
+    assertEquals(TIME + 8 * hour, IsoDateParser.parseEpochMillis("2020-12-15T18:04:31-08:00"));
+    assertEquals(TIME, IsoDateParser.parseEpochMillis("2020-12-15T18:04:31+00:00"));
+  }
+
+  @Test
+  public void parseEpochMillis_fractionalSeconds() {
+    assertEquals(TIME + 500, IsoDateParser.parseEpochMillis("2020-12-15T18:04:31.5Z"));
+    assertEquals(TIME + 120, IsoDateParser.parseEpochMillis("2020-12-15T18:04:31.12Z"));
+    assertEquals(TIME + 123, IsoDateParser.parseEpochMillis("2020-12-15T18:04:31.123Z"));
+    assertEquals(TIME + 123, IsoDateParser.parseEpochMillis("2020-12-15T18:04:31.123456789Z"));
+    assertEquals(TIME + 123 - 60 * 60 * 1000L,
+        IsoDateParser.parseEpochMillis("2020-12-15T18:04:31.123+01:00"));
+  }
+
+  @Test
+  public void parseEpochMillis_leapDay() {
+    assertEquals(1582934400000L, IsoDateParser.parseEpochMillis("2020-02-29T00:00:00Z"));
+    assertEquals(951782400000L, IsoDateParser.parseEpochMillis("2000-02-29T00:00:00Z"));
+  }
+
+  @Test
+  public void parseEpochMillis_invalidInput_returnsInvalidTime() {
+    String[] invalidTimestamps = {
+        null,
+        "",
+        "2020-12-15",
+        "2020/12/15T18:04:31Z",
+        "2020-12-15T18:04:31X",
+        "2020-12-15T18:04:31Zjunk",
+        "2020-12-15T18:04:31.Z",
+        "2020-13-15T18:04:31Z",
+        "2020-12-00T18:04:31Z",
+        "2020-12-15T24:04:31Z",
+        "2020-12-15T18:60:31Z",
+        "2020-12-15T18:04:31+24:00",
+        "2020-12-15T18:04:31+05:60",
+        "2020-12-15T18:04:31+5",
+        "2020-12-15T18:04:31+05:3",
+        "2020-12-15T18:04:31+05:30:00",
+        "abcd-12-15T18:04:31Z"};
+    for (String timestamp : invalidTimestamps) {
+      assertEquals(timestamp, IsoDateParser.INVALID_TIME,
+          IsoDateParser.parseEpochMillis(timestamp));
+    }
+  }
+
+  @Test
+  public void parseEpochMillis_separatorWithoutMinutes_returnsInvalidTime() {
+    assertEquals(IsoDateParser.INVALID_TIME,
+        IsoDateParser.parseEpochMillis("2020-12-15T18:04:31+05:"));
+    assertEquals(IsoDateParser.INVALID_TIME,
+        IsoDateParser.parseEpochMillis("2020-12-15T18:04:31-05:"));
+  }
+
+  @Test
+  public void parseEpochMillis_dayPastEndOfMonth_returnsInvalidTime() {
+    String[] invalidDates = {
+        "2020-02-30T00:00:00Z",
+        "2020-02-31T00:00:00Z",
+        "2019-02-29T00:00:00Z",
+        "1900-02-29T00:00:00Z",
+        "2020-04-31T00:00:00Z",
+        "2020-06-31T00:00:00Z",
+        "2020-09-31T00:00:00Z",
+        "2020-11-31T00:00:00Z",
+        "2020-12-32T00:00:00Z"};
+    for (String timestamp : invalidDates) {
+      assertEquals(timestamp, IsoDateParser.INVALID_TIME,
+          IsoDateParser.parseEpochMillis(timestamp));
+    }
+    assertEquals(1609372800000L, IsoDateParser.parseEpochMillis("2020-12-31T00:00:00Z"));
+  }
+}
@@ -0,0 +1,146 @@
+package com.example.newsq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import com.example.newsq.RequestLimiter.Priority;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Local unit tests for {@link RequestLimiter}. They run on Robolectric for its {@link
+ * CancellationSignal}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RequestLimiterTest {
+
+  /**
+   * A refill rate slow enough that no token is earned during a test.
+   */
+  private static final double NO_REFILL = 0.001;
+  private static final long TIMEOUT = 5000; // in milliseconds
+  private static final long SETTLE_TIME = 100; // in milliseconds
+
+  private final ExecutorService REQUESTS = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    REQUESTS.shutdownNow();
+  }
+
+  @Test
+  public void takeToken_prefetch_leavesReservedTokens() {
+    RequestLimiter limiter = new RequestLimiter(NO_REFILL, 3, 2, 4, 8);
+    assertTrue(limiter.takeToken(Priority.PREFETCH, null, 0));
+    assertFalse(limiter.takeToken(Priority.PREFETCH, null, 0));
+    assertTrue(limiter.takeToken(Priority.USER, null, 0));
+    assertTrue(limiter.takeToken(Priority.USER, null, 0));
+    assertFalse(limiter.takeToken(Priority.USER, null, 0));
+  }
+
+  @Test
+  public void acquire_prefetch_leavesOneSlot() {
+    RequestLimiter limiter = new RequestLimiter(NO_REFILL, 5, 0, 3, 8);
+    assertTrue(limiter.acquire(Priority.PREFETCH, null, 0));
+    assertTrue(limiter.acquire(Priority.PREFETCH, null, 0));
+    assertFalse(limiter.acquire(Priority.PREFETCH, null, 0));
+    assertTrue(limiter.acquire(Priority.USER, null, 0));
+    assertEquals(3, limiter.getInFlight());
+  }
+
+  @Test
+  public void acquire_prefetchWaitsWhileUserWaits() throws Exception {
+    RequestLimiter limiter = new RequestLimiter(NO_REFILL, 5, 0, 1, 1);
+    assertTrue(limiter.acquire(Priority.USER, null, 0));
+
+    Future<Boolean> user = REQUESTS.submit(() -> limiter.acquire(Priority.USER, null, TIMEOUT));
+    Thread.sleep(SETTLE_TIME);
+    Future<Boolean> prefetch = REQUESTS.submit(
+        () -> limiter.acquire(Priority.PREFETCH, null, TIMEOUT));
+    Thread.sleep(SETTLE_TIME);
+
+    // The freed slot goes to the user, although the prefetch request is waiting as well
+    limiter.release();
+    assertTrue(user.get(TIMEOUT, TimeUnit.MILLISECONDS));
+    Thread.sleep(SETTLE_TIME);
+    assertFalse(prefetch.isDone());
+    assertEquals(1, limiter.getInFlight());
+
+    limiter.release();
+    assertTrue(prefetch.get(TIMEOUT, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void onResponse_tooManyRequests_halvesLimitAndEmptiesBucket() {
+    RequestLimiter limiter = new RequestLimiter(NO_REFILL, 5, 0, 8, 8);
+    limiter.onResponse(429);
+    assertEquals(4, limiter.getLimit());
+    assertEquals(1, limiter.getThrottledCount());
+    assertFalse(limiter.takeToken(Priority.USER, null, 0));
+
+    limiter.onResponse(429);
+    limiter.onResponse(429);
+    limiter.onResponse(429);
+    assertEquals(1, limiter.getLimit());
+    assertEquals(4, limiter.getThrottledCount());
+  }
+
+  @Test
+  public void onResponse_success_growsLimitUpToMax() {
+    RequestLimiter limiter = new RequestLimiter(NO_REFILL, 5, 0, 1, 3);
+    limiter.onResponse(200);
+    assertEquals(2, limiter.getLimit());
+    for (int i = 0; i < 20; i++) {
+      limiter.onResponse(200);
+    }
+    assertEquals(3, limiter.getLimit());
+  }
+
+  @Test
+  public void takeToken_waitTimesOut_isDeferred() {
+    RequestLimiter limiter = new RequestLimiter(NO_REFILL, 1, 0, 4, 8);
+    assertTrue(limiter.takeToken(Priority.USER, null, 0));
+    long startTime = System.nanoTime();
+    assertFalse(limiter.takeToken(Priority.USER, null, 50));
+    assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertEquals(1, limiter.getDeferredCount());
+  }
+
+  @Test
+  public void acquire_waitTimesOut_isDeferred() {
+    RequestLimiter limiter = new RequestLimiter(NO_REFILL, 5, 0, 1, 1);
+    assertTrue(limiter.acquire(Priority.USER, null, 0));
+    assertFalse(limiter.acquire(Priority.USER, null, 50));
+    assertFalse(limiter.acquire(Priority.PREFETCH, null, 0));
+    assertEquals(2, limiter.getDeferredCount());
+  }
+
+  @Test
+  public void takeToken_cancelledWhileWaiting_throws() throws Exception {
+    RequestLimiter limiter = new RequestLimiter(NO_REFILL, 1, 0, 4, 8);
+    assertTrue(limiter.takeToken(Priority.USER, null, 0));
+    CancellationSignal signal = new CancellationSignal();
+    Future<Boolean> user = REQUESTS.submit(() -> limiter.takeToken(Priority.USER, signal,
+        TIMEOUT));
+    Thread.sleep(SETTLE_TIME);
+    signal.cancel();
+    try {
+      user.get(TIMEOUT, TimeUnit.MILLISECONDS);
+      fail("The waiting request wasn't cancelled");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof OperationCanceledException);
+    }
+    assertEquals(0, limiter.getDeferredCount());
+  }
+}
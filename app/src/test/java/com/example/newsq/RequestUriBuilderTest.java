@@ -0,0 +1,72 @@
+package com.example.newsq;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * Local unit tests for {@link RequestUriBuilder}. The expected urls are the urls {@code
+ * android.net.Uri.Builder} builds from the same calls.
+ */
+public class RequestUriBuilderTest {
+
+  @Test
+  public void createUri_sectionRequest() {
+    Map<String, String> uriSegments = new LinkedHashMap<>();
+    uriSegments.put("scheme", "https");
+    uriSegments.put("authority", "content.guardianapis.com");
+    uriSegments.put("path", "world");
+    uriSegments.put("show-fields", "headline,byline,trailText");
+    uriSegments.put("page-size", "30");
+    assertEquals("https://content.guardianapis.com/world"
+            + "?show-fields=headline%2Cbyline%2CtrailText&page-size=30&api-key=test",
+        RequestUriBuilder.createUri(uriSegments, "test"));
+  }
+
+  @Test
+  public void createUri_percentEncodesParameters() {
+    Map<String, String> uriSegments = new LinkedHashMap<>();
+    uriSegments.put("scheme", "https");
+    uriSegments.put("authority", "content.guardianapis.com");
+    uriSegments.put("path", "search");
+    uriSegments.put("q", "s\u00e3o paulo & rio/2020?");
+    uriSegments.put("order-by", "newest");
+    assertEquals("https://content.guardianapis.com/search"
+            + "?q=s%C3%A3o%20paulo%20%26%20rio%2F2020%3F&order-by=newest&api-key=a%2Bb%3D",
+        RequestUriBuilder.createUri(uriSegments, "a+b="));
+  }
+
+  @Test
+  public void createUri_keepsUnreservedCharacters() {
+    Map<String, String> uriSegments = new LinkedHashMap<>();
+    uriSegments.put("scheme", "https");
+    uriSegments.put("authority", "example.com");
+    uriSegments.put("q", "aZ09_-!.~'()*");
+    assertEquals("https://example.com?q=aZ09_-!.~'()*&api-key=k",
+        RequestUriBuilder.createUri(uriSegments, "k"));
+  }
+
+  @Test
+  public void createUri_authorityWithPort_keepsColon() {
+    Map<String, String> uriSegments = new LinkedHashMap<>();
+    uriSegments.put("scheme", "http");
+    uriSegments.put("authority", "10.0.2.2:8080");
+    uriSegments.put("path", "uk-news");
+    assertEquals("http://10.0.2.2:8080/uk-news?api-key=test",
+        RequestUriBuilder.createUri(uriSegments, "test"));
+  }
+
+  @Test
+  public void build_encodesPathSegmentsAndAuthority() {
+    String url = new RequestUriBuilder()
+        .scheme("https")
+        .authority("user@h\u00f6st:443")
+        .appendPath("a b")
+        .appendPath("c/d")
+        .appendQueryParameter("k", "")
+        .build();
+    assertEquals("https://user@h%C3%B6st:443/a%20b/c%2Fd?k=", url);
+  }
+}
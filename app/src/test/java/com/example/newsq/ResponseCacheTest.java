@@ -0,0 +1,221 @@
+package com.example.newsq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Local unit tests for {@link ResponseCache}. They run on Robolectric for {@code
+ * android.util.Log}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ResponseCacheTest {
+
+  private static final String KEY = "https://content.guardianapis.com/world?api-key=test";
+  private static final long HOUR = 60 * 60 * 1000; // in milliseconds
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private File directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = folder.newFolder("responses");
+  }
+
+  @Test
+  public void get_missingEntry_returnsNull() {
+    assertNull(new ResponseCache(directory, 1024).get(KEY));
+  }
+
+  @Test
+  public void commit_storesBodyAndValidators() throws IOException {
+    ResponseCache cache = new ResponseCache(directory, 1024);
+    long expiresAt = System.currentTimeMillis() + HOUR;
+    put(cache, KEY, "body", "\"v1\"", "Tue, 15 Dec 2020 18:04:31 GMT", expiresAt);
+
+    ResponseCache.Entry entry = cache.get(KEY);
+    assertNotNull(entry);
+    assertEquals("body", readBody(entry));
+    assertEquals("\"v1\"", entry.getETag());
+    assertEquals("Tue, 15 Dec 2020 18:04:31 GMT", entry.getLastModified());
+    assertTrue(entry.isFresh());
+    assertTrue(entry.hasValidator());
+    assertEquals(4, cache.getSize());
+  }
+
+  @Test
+  public void commit_readsRestOfBody() throws IOException {
+    ResponseCache cache = new ResponseCache(directory, 1024);
+    ResponseCache.Editor editor = cache.edit(KEY, null, null, 0);
+    assertNotNull(editor);
+    InputStream inputStream = editor.wrap(toStream("partly read"));
+    assertEquals('p', inputStream.read());
+    editor.commit();
+    assertEquals("partly read", readBody(cache.get(KEY)));
+  }
+
+  @Test
+  public void abort_discardsBody() throws IOException {
+    ResponseCache cache = new ResponseCache(directory, 1024);
+    ResponseCache.Editor editor = cache.edit(KEY, null, null, 0);
+    assertNotNull(editor);
+    readAll(editor.wrap(toStream("body")));
+    editor.abort();
+    assertNull(cache.get(KEY));
+    assertEquals(0, cache.getSize());
+    assertEquals(0, directory.list().length);
+  }
+
+  @Test
+  public void entry_expiredWithoutValidator_isNeitherFreshNorRevalidatable() throws IOException {
+    ResponseCache cache = new ResponseCache(directory, 1024);
+    put(cache, KEY, "body", null, null, System.currentTimeMillis() - 1);
+    ResponseCache.Entry entry = cache.get(KEY);
+    assertNotNull(entry);
+    assertFalse(entry.isFresh());
+    assertFalse(entry.hasValidator());
+  }
+
+  @Test
+  public void refresh_updatesExpiryTime() throws IOException {
+    ResponseCache cache = new ResponseCache(directory, 1024);
+    put(cache, KEY, "body", "\"v1\"", null, System.currentTimeMillis() - 1);
+    cache.refresh(KEY, cache.get(KEY), System.currentTimeMillis() + HOUR);
+    ResponseCache.Entry entry = cache.get(KEY);
+    assertTrue(entry.isFresh());
+    assertEquals("\"v1\"", entry.getETag());
+  }
+
+  @Test
+  public void commit_overMaxSize_evictsLeastRecentlyUsed() throws IOException {
+    ResponseCache cache = new ResponseCache(directory, 10);
+    put(cache, "a", "aaaa", null, null, 0);
+    put(cache, "b", "bbbb", null, null, 0);
+    // Using the first entry makes the second the least recently used
+    assertNotNull(cache.get("a"));
+    put(cache, "c", "cccc", null, null, 0);
+
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("c"));
+    assertEquals(8, cache.getSize());
+    assertEquals(4, directory.list().length);
+  }
+
+  @Test
+  public void commit_sameKey_replacesEntry() throws IOException {
+    ResponseCache cache = new ResponseCache(directory, 1024);
+    put(cache, KEY, "old body", null, null, 0);
+    put(cache, KEY, "new", null, null, 0);
+    assertEquals("new", readBody(cache.get(KEY)));
+    assertEquals(3, cache.getSize());
+  }
+
+  @Test
+  public void get_metadataOfAnotherKey_removesEntry() throws IOException {
+    ResponseCache cache = new ResponseCache(directory, 1024);
+    put(cache, KEY, "body", null, null, 0);
+    Properties metadata = new Properties();
+    metadata.setProperty("key", "https://content.guardianapis.com/science");
+    try (OutputStream out = new FileOutputStream(findFile(".meta"))) {
+      metadata.store(out, null);
+    }
+
+    assertNull(cache.get(KEY));
+    assertEquals(0, cache.getSize());
+    assertEquals(0, directory.list().length);
+  }
+
+  @Test
+  public void get_missingMetadata_removesEntry() throws IOException {
+    ResponseCache cache = new ResponseCache(directory, 1024);
+    put(cache, KEY, "body", null, null, 0);
+    assertTrue(findFile(".meta").delete());
+
+    assertNull(cache.get(KEY));
+    assertEquals(0, cache.getSize());
+    assertEquals(0, directory.list().length);
+  }
+
+  @Test
+  public void newCache_loadsExistingEntriesAndDeletesTempFiles() throws IOException {
+    put(new ResponseCache(directory, 1024), KEY, "body", null, null, 0);
+    assertTrue(new File(directory, "unfinished.tmp").createNewFile());
+
+    ResponseCache cache = new ResponseCache(directory, 1024);
+    assertEquals(4, cache.getSize());
+    assertEquals("body", readBody(cache.get(KEY)));
+    assertFalse(new File(directory, "unfinished.tmp").exists());
+  }
+
+  /**
+   * Adds a response body to the cache the way a request does.
+   */
+  private static void put(ResponseCache cache, String key, String body, String eTag,
+      String lastModified, long expiresAt) throws IOException {
+    ResponseCache.Editor editor = cache.edit(key, eTag, lastModified, expiresAt);
+    assertNotNull(editor);
+    readAll(editor.wrap(toStream(body)));
+    editor.commit();
+  }
+
+  /**
+   * Returns the only file of the cache directory with the given suffix.
+   */
+  private File findFile(String suffix) {
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(suffix));
+    assertNotNull(files);
+    assertEquals(1, files.length);
+    return files[0];
+  }
+
+  /**
+   * Reads the body of a cached response.
+   */
+  private static String readBody(ResponseCache.Entry entry) throws IOException {
+    assertNotNull(entry);
+    try (InputStream inputStream = entry.openBody()) {
+      return readAll(inputStream);
+    }
+  }
+
+  /**
+   * Reads a stream to its end.
+   */
+  private static String readAll(InputStream inputStream) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[16];
+    int count;
+    while ((count = inputStream.read(buffer)) != -1) {
+      out.write(buffer, 0, count);
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns a stream that reads the given text.
+   */
+  private static InputStream toStream(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+}
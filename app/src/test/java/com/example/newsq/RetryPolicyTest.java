@@ -0,0 +1,87 @@
+package com.example.newsq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for {@link RetryPolicy}.
+ */
+public class RetryPolicyTest {
+
+  /**
+   * The time of Tue, 15 Dec 2020 18:04:31 GMT in milliseconds since the epoch.
+   */
+  private static final long NOW = 1608055471000L;
+
+  @Test
+  public void parseRetryAfter_seconds() {
+    assertEquals(120000, RetryPolicy.parseRetryAfter("120", NOW));
+    assertEquals(5000, RetryPolicy.parseRetryAfter(" 5 ", NOW));
+    assertEquals(0, RetryPolicy.parseRetryAfter("0", NOW));
+    assertEquals(0, RetryPolicy.parseRetryAfter("-5", NOW));
+  }
+
+  @Test
+  public void parseRetryAfter_httpDate() {
+    assertEquals(60000, RetryPolicy.parseRetryAfter("Tue, 15 Dec 2020 18:05:31 GMT", NOW));
+    assertEquals(0, RetryPolicy.parseRetryAfter("Tue, 15 Dec 2020 18:04:31 GMT", NOW));
+    assertEquals(0, RetryPolicy.parseRetryAfter("Tue, 15 Dec 2020 17:00:00 GMT", NOW));
+  }
+
+  @Test
+  public void parseRetryAfter_missingOrInvalid_isZero() {
+    assertEquals(0, RetryPolicy.parseRetryAfter(null, NOW));
+    assertEquals(0, RetryPolicy.parseRetryAfter("", NOW));
+    assertEquals(0, RetryPolicy.parseRetryAfter("  ", NOW));
+    assertEquals(0, RetryPolicy.parseRetryAfter("soon", NOW));
+    assertEquals(0, RetryPolicy.parseRetryAfter("2020-12-15T18:05:31Z", NOW));
+  }
+
+  @Test
+  public void getDelay_backoffGrowsAndIsCapped() {
+    RetryPolicy policy = new RetryPolicy(5, 1000, 4000, 30000);
+    for (int i = 0; i < 100; i++) {
+      assertBetween(500, 1000, policy.getDelay(1, null));
+      assertBetween(1000, 2000, policy.getDelay(2, null));
+      assertBetween(2000, 4000, policy.getDelay(3, null));
+      assertBetween(2000, 4000, policy.getDelay(40, null));
+    }
+  }
+
+  @Test
+  public void getDelay_longerRetryAfter_isWaitedFor() {
+    RetryPolicy policy = new RetryPolicy(5, 1000, 4000, 30000);
+    assertEquals(10000, policy.getDelay(1, "10"));
+    assertEquals(30000, policy.getDelay(1, "30"));
+    // A shorter Retry-After doesn't shorten the backoff
+    assertBetween(2000, 4000, policy.getDelay(3, "1"));
+  }
+
+  @Test
+  public void getDelay_retryAfterOverLimit_isNotRetried() {
+    RetryPolicy policy = new RetryPolicy(5, 1000, 4000, 30000);
+    assertEquals(-1, policy.getDelay(1, "31"));
+    assertEquals(-1, policy.getDelay(1, "3600"));
+  }
+
+  @Test
+  public void isRetryable_transientStatusCodes() {
+    for (int statusCode : new int[]{408, 429, 500, 502, 503, 504}) {
+      assertTrue(String.valueOf(statusCode), RetryPolicy.isRetryable(statusCode));
+    }
+    for (int statusCode : new int[]{200, 304, 400, 401, 403, 404, 501, 505}) {
+      assertFalse(String.valueOf(statusCode), RetryPolicy.isRetryable(statusCode));
+    }
+  }
+
+  /**
+   * Asserts that a delay is within the given bounds, inclusive.
+   */
+  private static void assertBetween(long min, long max, long delay) {
+    assertTrue(delay + " < " + min, delay >= min);
+    assertTrue(delay + " > " + max, delay <= max);
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.newsq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Local unit tests for {@link SearchResultCache}. They run on Robolectric, which formats the text
+ * of each {@link StoryItem}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SearchResultCacheTest {
+
+  private static final long TIME_TO_LIVE = 60 * 1000; // in milliseconds
+
+  private static final StoryItem CLIMATE_POLICY =
+      createStory("policy", "Climate policy shift", "Ministers agree", "Ann Smith");
+  private static final StoryItem CLIMATE_TALKS =
+      createStory("talks", "Climate talks stall", "No deal in sight", "Bo Jones");
+  private static final StoryItem CLIMATE_BYLINE =
+      createStory("byline", "Summit ends", "Leaders leave", "Cy Policy");
+
+  @Test
+  public void normalize_trimsCollapsesAndLowerCases() {
+    assertEquals("climate policy", SearchResultCache.normalize("  Climate \t POLICY \n"));
+    assertEquals("", SearchResultCache.normalize(null));
+    assertEquals("", SearchResultCache.normalize("   "));
+  }
+
+  @Test
+  public void get_returnsCachedResults() {
+    SearchResultCache cache = new SearchResultCache(10, TIME_TO_LIVE);
+    assertNull(cache.get("climate"));
+    cache.put("climate", Arrays.asList(CLIMATE_POLICY, CLIMATE_TALKS));
+    assertEquals(Arrays.asList(CLIMATE_POLICY, CLIMATE_TALKS), cache.get("climate"));
+  }
+
+  @Test
+  public void put_copiesResults() {
+    SearchResultCache cache = new SearchResultCache(10, TIME_TO_LIVE);
+    List<StoryItem> stories = new ArrayList<>(Collections.singletonList(CLIMATE_POLICY));
+    cache.put("climate", stories);
+    stories.add(CLIMATE_TALKS);
+    assertEquals(Collections.singletonList(CLIMATE_POLICY), cache.get("climate"));
+  }
+
+  @Test
+  public void get_expiredResults_returnsNull() throws InterruptedException {
+    SearchResultCache cache = new SearchResultCache(10, 20);
+    cache.put("climate", Collections.singletonList(CLIMATE_POLICY));
+    Thread.sleep(50);
+    assertNull(cache.get("climate"));
+    assertNull(cache.getPrefixMatches("climate policy"));
+  }
+
+  @Test
+  public void put_overMaxEntries_evictsLeastRecentlyUsed() {
+    SearchResultCache cache = new SearchResultCache(2, TIME_TO_LIVE);
+    cache.put("first", Collections.singletonList(CLIMATE_POLICY));
+    cache.put("second", Collections.singletonList(CLIMATE_TALKS));
+    // Reading the first query makes the second the least recently used
+    assertNotNull(cache.get("first"));
+    cache.put("third", Collections.singletonList(CLIMATE_BYLINE));
+    assertNotNull(cache.get("first"));
+    assertNull(cache.get("second"));
+    assertNotNull(cache.get("third"));
+  }
+
+  @Test
+  public void getPrefixMatches_filtersToStoriesWithEveryTerm() {
+    SearchResultCache cache = new SearchResultCache(10, TIME_TO_LIVE);
+    cache.put("climate", Arrays.asList(CLIMATE_POLICY, CLIMATE_TALKS, CLIMATE_BYLINE));
+    // Terms are matched in the headline, trail text, or byline, also as part of a word
+    assertEquals(Arrays.asList(CLIMATE_POLICY), cache.getPrefixMatches("climate polic"));
+    assertEquals(Arrays.asList(CLIMATE_TALKS), cache.getPrefixMatches("climate talks"));
+    assertEquals(Arrays.asList(CLIMATE_POLICY), cache.getPrefixMatches("climate agree"));
+  }
+
+  @Test
+  public void getPrefixMatches_usesLongestCachedPrefix() {
+    SearchResultCache cache = new SearchResultCache(10, TIME_TO_LIVE);
+    cache.put("cli", Arrays.asList(CLIMATE_POLICY, CLIMATE_TALKS));
+    cache.put("climate", Collections.singletonList(CLIMATE_TALKS));
+    assertEquals(Arrays.asList(CLIMATE_TALKS), cache.getPrefixMatches("climate s"));
+  }
+
+  @Test
+  public void getPrefixMatches_noUsablePrefix_returnsNull() {
+    SearchResultCache cache = new SearchResultCache(10, TIME_TO_LIVE);
+    cache.put("climate", Arrays.asList(CLIMATE_POLICY, CLIMATE_TALKS));
+    // The query itself, longer queries, and unrelated queries aren't prefixes
+    assertNull(cache.getPrefixMatches("climate"));
+    assertNull(cache.getPrefixMatches("clim"));
+    assertNull(cache.getPrefixMatches("weather"));
+    // A prefix without any story that has every term
+    assertNull(cache.getPrefixMatches("climate economy"));
+  }
+
+  /**
+   * Returns a {@link StoryItem} with the given attributes.
+   */
+  private static StoryItem createStory(String webUrl, String headline, String trailText,
+      String byline) {
+    return new StoryItem(new Story(headline, byline, trailText, "Environment",
+        "2020-12-15T18:04:31Z", webUrl));
+  }
+}
@@ -0,0 +1,187 @@
+package com.example.newsq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Local unit tests for {@link SingleFlight}. They run on Robolectric for its {@link
+ * CancellationSignal}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SingleFlightTest {
+
+  private static final String KEY = "https://content.guardianapis.com/world";
+  private static final long TIMEOUT = 5000; // in milliseconds
+
+  private final ExecutorService CALLERS = Executors.newCachedThreadPool();
+
+  @After
+  public void tearDown() {
+    CALLERS.shutdownNow();
+  }
+
+  @Test
+  public void execute_concurrentIdenticalKeys_shareOneCall() throws Exception {
+    SingleFlight<String> flights = new SingleFlight<>();
+    AtomicInteger callCount = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    SingleFlight.Call<String> call = signal -> {
+      started.countDown();
+      finish.await();
+      return "result " + callCount.incrementAndGet();
+    };
+
+    Future<String> first = CALLERS.submit(() -> flights.execute(KEY, null, call));
+    assertTrue(started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    Future<String> second = CALLERS.submit(() -> flights.execute(KEY, null, call));
+    awaitCoalesced(flights, 1);
+    finish.countDown();
+
+    assertEquals("result 1", first.get(TIMEOUT, TimeUnit.MILLISECONDS));
+    assertEquals("result 1", second.get(TIMEOUT, TimeUnit.MILLISECONDS));
+    assertEquals(1, callCount.get());
+    assertEquals(2, flights.getCallCount());
+  }
+
+  @Test
+  public void execute_afterResult_runsAgain() throws Exception {
+    SingleFlight<Integer> flights = new SingleFlight<>();
+    AtomicInteger callCount = new AtomicInteger();
+    assertEquals(1, (int) flights.execute(KEY, null, signal -> callCount.incrementAndGet()));
+    assertEquals(2, (int) flights.execute(KEY, null, signal -> callCount.incrementAndGet()));
+    assertEquals(0, flights.getCoalescedCount());
+  }
+
+  @Test
+  public void execute_cancelledJoiner_returnsAtOnce() throws Exception {
+    SingleFlight<String> flights = new SingleFlight<>();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    CancellationSignal[] sharedSignal = new CancellationSignal[1];
+    SingleFlight.Call<String> call = signal -> {
+      sharedSignal[0] = signal;
+      started.countDown();
+      finish.await();
+      return "result";
+    };
+    CancellationSignal joinerSignal = new CancellationSignal();
+
+    Future<String> first = CALLERS.submit(() -> flights.execute(KEY, null, call));
+    assertTrue(started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    Future<String> joiner = CALLERS.submit(() -> flights.execute(KEY, joinerSignal, call));
+    awaitCoalesced(flights, 1);
+    joinerSignal.cancel();
+
+    assertCancelled(joiner);
+    assertFalse(first.isDone());
+    assertFalse(sharedSignal[0].isCanceled());
+    finish.countDown();
+    assertEquals("result", first.get(TIMEOUT, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void execute_lastCallerLeaves_cancelsSharedSignal() throws Exception {
+    SingleFlight<String> flights = new SingleFlight<>();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch cancelled = new CountDownLatch(1);
+    SingleFlight.Call<String> call = signal -> {
+      signal.setOnCancelListener(cancelled::countDown);
+      started.countDown();
+      cancelled.await();
+      return "result";
+    };
+    CancellationSignal firstSignal = new CancellationSignal();
+    CancellationSignal joinerSignal = new CancellationSignal();
+
+    Future<String> first = CALLERS.submit(() -> flights.execute(KEY, firstSignal, call));
+    assertTrue(started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    Future<String> joiner = CALLERS.submit(() -> flights.execute(KEY, joinerSignal, call));
+    awaitCoalesced(flights, 1);
+
+    firstSignal.cancel();
+    assertCancelled(first);
+    assertEquals(1, cancelled.getCount());
+    joinerSignal.cancel();
+    assertCancelled(joiner);
+    assertTrue(cancelled.await(TIMEOUT, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void execute_cancelledFlight_isReplaced() throws Exception {
+    SingleFlight<String> flights = new SingleFlight<>();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    CancellationSignal callerSignal = new CancellationSignal();
+
+    Future<String> cancelledCaller = CALLERS.submit(() -> flights.execute(KEY, callerSignal,
+        signal -> {
+          started.countDown();
+          finish.await();
+          return "cancelled result";
+        }));
+    assertTrue(started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    callerSignal.cancel();
+    assertCancelled(cancelledCaller);
+
+    // The cancelled call is still running, but new callers don't join it
+    assertEquals("new result", flights.execute(KEY, null, signal -> "new result"));
+    assertEquals(0, flights.getCoalescedCount());
+    finish.countDown();
+  }
+
+  @Test
+  public void execute_callThrows_rethrowsException() throws Exception {
+    SingleFlight<String> flights = new SingleFlight<>();
+    try {
+      flights.execute(KEY, null, signal -> {
+        throw new IllegalArgumentException("failed");
+      });
+      fail("The exception of the call wasn't rethrown");
+    } catch (IllegalArgumentException e) {
+      assertEquals("failed", e.getMessage());
+    }
+  }
+
+  /**
+   * Waits until the given number of calls have joined a running call.
+   */
+  private static void awaitCoalesced(SingleFlight<?> flights, long count)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (flights.getCoalescedCount() < count) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("No call joined the running call");
+      }
+      Thread.sleep(5);
+    }
+  }
+
+  /**
+   * Asserts that a caller returns with an {@link OperationCanceledException}.
+   */
+  private static void assertCancelled(Future<?> caller) throws Exception {
+    try {
+      caller.get(TIMEOUT, TimeUnit.MILLISECONDS);
+      fail("The caller wasn't cancelled");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof OperationCanceledException);
+    }
+  }
+}
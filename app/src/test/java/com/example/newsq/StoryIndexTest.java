@@ -0,0 +1,143 @@
+package com.example.newsq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Local unit tests for {@link StoryIndex}. They run on Robolectric, which formats the text of
+ * each {@link StoryItem}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class StoryIndexTest {
+
+  private static final String DATE = "2020-12-15T18:04:31Z";
+
+  @Test
+  public void search_ranksHeadlineAboveTrailTextAboveByline() {
+    StoryIndex index = new StoryIndex(100);
+    index.addAll(Arrays.asList(
+        createStory("byline", "Markets", "Stocks fall", "Ann Climate", DATE),
+        createStory("headline", "Climate talks", "Leaders meet", "Bo Smith", DATE),
+        createStory("trail", "Summit ends", "Climate deal agreed", "Cy Jones", DATE)));
+    assertEquals(Arrays.asList("headline", "trail", "byline"),
+        getWebUrls(index.search("climate", 10)));
+  }
+
+  @Test
+  public void search_exactMatchAbovePrefixMatch() {
+    StoryIndex index = new StoryIndex(100);
+    index.addAll(Arrays.asList(
+        createStory("prefix", "Rainfall record", "", "", DATE),
+        createStory("exact", "Rain returns", "", "", DATE)));
+    assertEquals(Arrays.asList("exact", "prefix"), getWebUrls(index.search("rain", 10)));
+    assertEquals(Arrays.asList("prefix"), getWebUrls(index.search("rainf", 10)));
+  }
+
+  @Test
+  public void search_prefixMatchesEveryTermThatStartsWithQuery() {
+    StoryIndex index = new StoryIndex(100);
+    index.addAll(Arrays.asList(
+        createStory("climate", "Climate talks", "", "", DATE),
+        createStory("climbing", "Climbing season", "", "", DATE),
+        createStory("clinic", "Clinic opens", "", "", DATE)));
+    assertEquals(3, index.search("cli", 10).size());
+    assertEquals(2, index.search("clim", 10).size());
+    assertTrue(index.search("clx", 10).isEmpty());
+  }
+
+  @Test
+  public void search_requiresEveryTerm() {
+    StoryIndex index = new StoryIndex(100);
+    index.addAll(Arrays.asList(
+        createStory("both", "Climate policy", "", "", DATE),
+        createStory("one", "Climate talks", "", "", DATE)));
+    assertEquals(Arrays.asList("both"), getWebUrls(index.search("climate pol", 10)));
+    assertTrue(index.search("climate economy", 10).isEmpty());
+  }
+
+  @Test
+  public void search_equalScores_newerFirst() {
+    StoryIndex index = new StoryIndex(100);
+    index.addAll(Arrays.asList(
+        createStory("older", "Election results", "", "", "2020-12-14T10:00:00Z"),
+        createStory("newer", "Election results", "", "", "2020-12-15T10:00:00Z")));
+    assertEquals(Arrays.asList("newer", "older"), getWebUrls(index.search("election", 10)));
+  }
+
+  @Test
+  public void search_returnsAtMostMaxResults() {
+    StoryIndex index = new StoryIndex(100);
+    List<StoryItem> stories = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      stories.add(createStory("story" + i, "Football scores", "", "", DATE));
+    }
+    index.addAll(stories);
+    assertEquals(3, index.search("football", 3).size());
+  }
+
+  @Test
+  public void search_blankOrShortQuery_returnsEmptyList() {
+    StoryIndex index = new StoryIndex(100);
+    index.addAll(Arrays.asList(createStory("a", "A story", "", "", DATE)));
+    assertTrue(index.search("", 10).isEmpty());
+    assertTrue(index.search(" ,. ", 10).isEmpty());
+    assertTrue(index.search("a", 10).isEmpty());
+  }
+
+  @Test
+  public void addAll_sameWebUrl_replacesTerms() {
+    StoryIndex index = new StoryIndex(100);
+    index.addAll(Arrays.asList(createStory("url", "Old headline", "", "", DATE)));
+    index.addAll(Arrays.asList(createStory("url", "New headline", "", "", DATE)));
+    assertEquals(1, index.size());
+    assertTrue(index.search("old", 10).isEmpty());
+    assertEquals(Arrays.asList("url"), getWebUrls(index.search("new", 10)));
+    assertEquals(1, index.search("headline", 10).size());
+  }
+
+  @Test
+  public void addAll_overMaxStories_removesFirstAdded() {
+    StoryIndex index = new StoryIndex(2);
+    index.addAll(Arrays.asList(
+        createStory("first", "Alpha", "", "", DATE),
+        createStory("second", "Bravo", "", "", DATE),
+        createStory("third", "Charlie", "", "", DATE)));
+    assertEquals(2, index.size());
+    assertTrue(index.search("alpha", 10).isEmpty());
+    assertEquals(Arrays.asList("second"), getWebUrls(index.search("bravo", 10)));
+    assertEquals(Arrays.asList("third"), getWebUrls(index.search("charlie", 10)));
+  }
+
+  @Test
+  public void tokenize_splitsLowerCaseTermsAndSkipsShortOnes() {
+    assertEquals(Arrays.asList("uk", "covid", "19", "cases", "rise"),
+        StoryIndex.tokenize("UK: Covid-19 cases rise, a"));
+    assertTrue(StoryIndex.tokenize(null).isEmpty());
+  }
+
+  /**
+   * Returns a {@link StoryItem} with the given attributes.
+   */
+  private static StoryItem createStory(String webUrl, String headline, String trailText,
+      String byline, String date) {
+    return new StoryItem(new Story(headline, byline, trailText, "News", date, webUrl));
+  }
+
+  /**
+   * Returns the web urls of the stories in order.
+   */
+  private static List<String> getWebUrls(List<StoryItem> stories) {
+    List<String> webUrls = new ArrayList<>();
+    for (StoryItem story : stories) {
+      webUrls.add(story.getWebUrl());
+    }
+    return webUrls;
+  }
+}
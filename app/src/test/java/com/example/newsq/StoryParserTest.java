@@ -0,0 +1,127 @@
+package com.example.newsq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.google.gson.stream.JsonReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import org.junit.Test;
+
+/**
+ * Local unit tests for {@link StoryParser}, run on the sample API responses of the benchmarks.
+ */
+public class StoryParserTest {
+
+  private static final String PAYLOAD_PATH = "/payloads/guardian-%d.json";
+
+  @Test
+  public void parse_samplePayloads_returnsEveryStory() throws IOException {
+    for (int storyCount : new int[]{10, 30, 200}) {
+      ArrayList<Story> stories = parse(openPayload(storyCount));
+      assertNotNull(stories);
+      assertEquals(storyCount, stories.size());
+      for (Story story : stories) {
+        assertFalse(story.getWebUrl().isEmpty());
+        assertFalse(story.getHeadline().isEmpty());
+        assertFalse(story.getSectionName().isEmpty());
+      }
+    }
+  }
+
+  @Test
+  public void parse_samplePayload_readsStoryAttributes() throws IOException {
+    Story story = parse(openPayload(10)).get(0);
+    assertEquals("World news", story.getSectionName());
+    assertEquals("2020-12-15T17:39:30Z", story.getWebPublicationDate());
+    assertEquals("https://www.theguardian.com/world/2020/dec/15/researchers-call-for-action-on"
+        + "-the-future-of-the-high-street-live", story.getWebUrl());
+    assertEquals("Researchers call for action on the future of the high street \u2013 live",
+        story.getHeadline());
+    assertEquals("Exclusive: Officials raise concerns in a leaked letter seen by the Guardian",
+        story.getTrailText());
+  }
+
+  @Test
+  public void parse_nullByline_isEmpty() throws IOException {
+    assertEquals("", parse(openPayload(10)).get(0).getByline());
+  }
+
+  @Test
+  public void parse_unknownValues_areSkipped() throws IOException {
+    ArrayList<Story> stories = parse("{\"extra\":[1,{\"a\":null}],\"response\":{\"status\":\"ok\","
+        + "\"results\":[{\"id\":\"x\",\"tags\":[{\"id\":\"t\"}],\"webUrl\":\"https://a\","
+        + "\"fields\":{\"headline\":\"H\",\"wordcount\":\"12\"}}],\"pages\":3}}");
+    assertEquals(1, stories.size());
+    assertEquals("https://a", stories.get(0).getWebUrl());
+    assertEquals("H", stories.get(0).getHeadline());
+    assertEquals("", stories.get(0).getByline());
+  }
+
+  @Test
+  public void parse_emptyResults_returnsEmptyList() throws IOException {
+    assertEquals(0, parse("{\"response\":{\"results\":[]}}").size());
+  }
+
+  @Test
+  public void parse_emptyBody_returnsNull() throws IOException {
+    assertNull(parse(""));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void parse_missingResults_throwsIllegalStateException() throws IOException {
+    parse("{\"response\":{\"status\":\"error\",\"message\":\"Invalid key\"}}");
+  }
+
+  @Test
+  public void parse_malformedBody_throwsIOException() {
+    String[] malformedBodies = {
+        "{\"response\":{\"results\":[{\"webUrl\":}]}}",
+        "{\"response\":{\"results\":[{\"webUrl\":\"https://a\"",
+        "<html>Service unavailable</html>"};
+    for (String body : malformedBodies) {
+      try {
+        parse(body);
+        fail("Parsed a malformed body: " + body);
+      } catch (IOException e) {
+        // Expected
+      }
+    }
+  }
+
+  /**
+   * Parses a response the way the app reads it from a connection.
+   */
+  private static ArrayList<Story> parse(InputStream inputStream) throws IOException {
+    try (JsonTokenReader reader = new GsonJsonTokenReader(new JsonReader(
+        new InputStreamReader(inputStream, StandardCharsets.UTF_8)))) {
+      return StoryParser.parse(reader);
+    }
+  }
+
+  /**
+   * Parses a response held in a {@link String}.
+   */
+  private static ArrayList<Story> parse(String response) throws IOException {
+    return parse(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Opens a sample response of the benchmarks.
+   */
+  private static InputStream openPayload(int storyCount) throws IOException {
+    String path = String.format(PAYLOAD_PATH, storyCount);
+    InputStream inputStream = StoryParserTest.class.getResourceAsStream(path);
+    if (inputStream == null) {
+      throw new IOException("No payload at " + path);
+    }
+    return inputStream;
+  }
+}
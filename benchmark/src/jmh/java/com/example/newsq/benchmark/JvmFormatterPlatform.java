@@ -0,0 +1,108 @@
+package com.example.newsq.benchmark;
+
+import com.example.newsq.StoryFormatter;
+
+/**
+ * A {@link StoryFormatter.Platform} for the JVM that stands in for {@code android.text.Html} and
+ * {@code android.text.format.DateUtils}. Tags are removed, entities are decoded and whitespace is
+ * collapsed, which is the plain text {@code Html.fromHtml} returns for API trail texts, and times
+ * are formatted in English with the same minute resolution as the app.
+ */
+final class JvmFormatterPlatform implements StoryFormatter.Platform {
+
+  private static final long MINUTE = 60 * 1000; // in milliseconds
+  private static final long HOUR = 60 * MINUTE; // in milliseconds
+  private static final long DAY = 24 * HOUR; // in milliseconds
+
+  @Override
+  public String fromHtml(String html) {
+    StringBuilder builder = new StringBuilder(html.length());
+    int length = html.length();
+    int index = 0;
+    while (index < length) {
+      char character = html.charAt(index);
+      if (character == '<') {
+        int end = html.indexOf('>', index);
+        index = end == -1 ? length : end + 1;
+      } else if (character == '&') {
+        int end = html.indexOf(';', index);
+        int codePoint = end == -1 ? -1 : decodeEntity(html.substring(index + 1, end));
+        if (codePoint == -1) {
+          builder.append(character);
+          index++;
+        } else {
+          builder.appendCodePoint(codePoint);
+          index = end + 1;
+        }
+      } else if (Character.isWhitespace(character)) {
+        if (builder.length() > 0 && builder.charAt(builder.length() - 1) != ' ') {
+          builder.append(' ');
+        }
+        index++;
+      } else {
+        builder.append(character);
+        index++;
+      }
+    }
+    return builder.toString().trim();
+  }
+
+  @Override
+  public CharSequence getRelativeTime(long time, long now) {
+    long elapsed = Math.max(now - time, 0);
+    if (elapsed < MINUTE) {
+      return "0 minutes ago";
+    } else if (elapsed < HOUR) {
+      return formatCount(elapsed / MINUTE, "minute");
+    } else if (elapsed < DAY) {
+      return formatCount(elapsed / HOUR, "hour");
+    }
+    return formatCount(elapsed / DAY, "day");
+  }
+
+  /**
+   * Returns a count followed by a unit, e.g. "5 minutes ago".
+   *
+   * @param count The number of units.
+   * @param unit  A {@link String} that contains the singular unit.
+   * @return A {@link String} that contains the relative time.
+   */
+  private static String formatCount(long count, String unit) {
+    return count + " " + unit + (count == 1 ? "" : "s") + " ago";
+  }
+
+  /**
+   * Returns the code point of an HTML entity.
+   *
+   * @param entity A {@link String} with the name of the entity, without {@code &} and {@code ;}.
+   * @return The code point of the entity, or -1 if it isn't known.
+   */
+  private static int decodeEntity(String entity) {
+    switch (entity) {
+      case "amp":
+        return '&';
+      case "lt":
+        return '<';
+      case "gt":
+        return '>';
+      case "quot":
+        return '"';
+      case "apos":
+        return '\'';
+      case "nbsp":
+        return ' ';
+      default:
+        break;
+    }
+    if (entity.length() > 1 && entity.charAt(0) == '#') {
+      try {
+        return entity.charAt(1) == 'x' || entity.charAt(1) == 'X'
+            ? Integer.parseInt(entity.substring(2), 16)
+            : Integer.parseInt(entity.substring(1));
+      } catch (NumberFormatException e) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,84 @@
+package com.example.newsq.benchmark;
+
+import com.example.newsq.GsonJsonTokenReader;
+import com.example.newsq.JsonTokenReader;
+import com.example.newsq.Story;
+import com.example.newsq.StoryParser;
+import com.google.gson.stream.JsonReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Loads the sample API responses in {@code src/jmh/resources/payloads}. Each payload has the
+ * format of a section endpoint response with {@code show-fields} set to the fields the app
+ * displays, including HTML entities, tags and null bylines, and the number of stories as its page
+ * size.
+ */
+final class Payloads {
+
+  private static final String PAYLOAD_PATH = "/payloads/guardian-%d.json";
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Private constructor; this class only has static methods.
+   */
+  private Payloads() {
+  }
+
+  /**
+   * Returns the bytes of a sample response.
+   *
+   * @param storyCount The number of stories in the response: 10, 30 or 200.
+   * @return A byte array that contains the UTF-8 encoded response.
+   * @throws IOException if the payload doesn't exist or can't be read.
+   */
+  static byte[] load(int storyCount) throws IOException {
+    String path = String.format(PAYLOAD_PATH, storyCount);
+    try (InputStream inputStream = Payloads.class.getResourceAsStream(path)) {
+      if (inputStream == null) {
+        throw new IOException("No payload at " + path);
+      }
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int length;
+      while ((length = inputStream.read(buffer)) != -1) {
+        outputStream.write(buffer, 0, length);
+      }
+      return outputStream.toByteArray();
+    }
+  }
+
+  /**
+   * Returns a {@link JsonTokenReader} that reads a response the way the app reads it from a
+   * connection.
+   *
+   * @param payload A byte array that contains a response.
+   * @return A {@link JsonTokenReader} positioned at the start of the response.
+   */
+  static JsonTokenReader newReader(byte[] payload) {
+    return new GsonJsonTokenReader(new JsonReader(new InputStreamReader(
+        new ByteArrayInputStream(payload), StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Returns the stories of a sample response.
+   *
+   * @param storyCount The number of stories in the response: 10, 30 or 200.
+   * @return An {@link ArrayList} of the stories in the response.
+   * @throws IOException if the payload doesn't exist or can't be parsed.
+   */
+  static ArrayList<Story> loadStories(int storyCount) throws IOException {
+    try (JsonTokenReader reader = newReader(load(storyCount))) {
+      ArrayList<Story> stories = StoryParser.parse(reader);
+      if (stories == null || stories.size() != storyCount) {
+        throw new IOException("Unexpected number of stories in payload " + storyCount);
+      }
+      return stories;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.newsq.benchmark;
+
+import com.example.newsq.RequestUriBuilder;
+import java.util.HashMap;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures how many request urls {@link RequestUriBuilder#createUri(Map, String)} builds per
+ * second, for the parameters of the World screen and for a search with characters that have to be
+ * encoded.
+ */
+@State(Scope.Benchmark)
+public class RequestUriBenchmark {
+
+  private static final String API_KEY = "test";
+
+  private Map<String, String> sectionSegments;
+  private Map<String, String> searchSegments;
+
+  @Setup
+  public void setUp() {
+    sectionSegments = createSegments("world");
+    searchSegments = createSegments("search");
+    searchSegments.put("q", "climate change S\u00e3o Paulo & \"net zero\"");
+    searchSegments.put("page", "2");
+  }
+
+  @Benchmark
+  public String createSectionUri() {
+    return RequestUriBuilder.createUri(sectionSegments, API_KEY);
+  }
+
+  @Benchmark
+  public String createSearchUri() {
+    return RequestUriBuilder.createUri(searchSegments, API_KEY);
+  }
+
+  /**
+   * Returns the url segments the app uses for a request, as set in {@code WorldFragment}.
+   *
+   * @param path A {@link String} that contains the section or endpoint.
+   * @return A {@link Map} of url segments and query parameters.
+   */
+  private static Map<String, String> createSegments(String path) {
+    Map<String, String> uriSegments = new HashMap<>();
+    uriSegments.put("scheme", "https");
+    uriSegments.put("authority", "content.guardianapis.com");
+    uriSegments.put("path", path);
+    uriSegments.put("show-fields", "headline,byline,trailText");
+    uriSegments.put("page-size", "30");
+    uriSegments.put("use-date", "last-modified");
+    uriSegments.put("order-by", "newest");
+    return uriSegments;
+  }
+}
@@ -0,0 +1,66 @@
+package com.example.newsq.benchmark;
+
+import com.example.newsq.IsoDateParser;
+import com.example.newsq.Story;
+import com.example.newsq.StoryFormatter;
+import java.io.IOException;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures how many pages of sample stories {@link StoryFormatter} formats per second, for each
+ * of the formatters {@code StoryItem} and {@code StoryAdapter} use.
+ */
+@State(Scope.Benchmark)
+public class StoryFormatterBenchmark {
+
+  // The time the sample responses were requested
+  private static final String NOW = "2020-12-15T18:00:00Z";
+
+  @Param({"10", "30", "200"})
+  public int storyCount;
+
+  private final StoryFormatter FORMATTER = new StoryFormatter(new JvmFormatterPlatform());
+  private List<Story> stories;
+  private long now;
+
+  @Setup
+  public void setUp() throws IOException {
+    stories = Payloads.loadStories(storyCount);
+    now = IsoDateParser.parseEpochMillis(NOW);
+  }
+
+  @Benchmark
+  public void formatText(Blackhole blackhole) {
+    for (Story story : stories) {
+      blackhole.consume(FORMATTER.formatText(story.getHeadline()));
+      blackhole.consume(FORMATTER.formatText(story.getTrailText()));
+    }
+  }
+
+  @Benchmark
+  public void formatTitleCase(Blackhole blackhole) {
+    for (Story story : stories) {
+      blackhole.consume(StoryFormatter.formatTitleCase(story.getSectionName()));
+    }
+  }
+
+  @Benchmark
+  public void formatDate(Blackhole blackhole) {
+    for (Story story : stories) {
+      blackhole.consume(FORMATTER.formatDate(story.getPublishedAt(), now));
+    }
+  }
+
+  @Benchmark
+  public void parseDate(Blackhole blackhole) {
+    for (Story story : stories) {
+      blackhole.consume(IsoDateParser.parseEpochMillis(story.getWebPublicationDate()));
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.example.newsq.benchmark;
+
+import com.example.newsq.JsonTokenReader;
+import com.example.newsq.Story;
+import com.example.newsq.StoryParser;
+import java.io.IOException;
+import java.util.ArrayList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures how many sample responses {@link StoryParser} can turn into {@link Story} objects per
+ * second, including the UTF-8 decoding of the response and the parsing of publication dates.
+ */
+@State(Scope.Benchmark)
+public class StoryParserBenchmark {
+
+  @Param({"10", "30", "200"})
+  public int storyCount;
+
+  private byte[] payload;
+
+  @Setup
+  public void setUp() throws IOException {
+    payload = Payloads.load(storyCount);
+  }
+
+  @Benchmark
+  public ArrayList<Story> parseStories() throws IOException {
+    try (JsonTokenReader reader = Payloads.newReader(payload)) {
+      return StoryParser.parse(reader);
+    }
+  }
+}